@@ -0,0 +1,42 @@
+package EightPuzzle;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Boards of input.txt used by all benchmarks (copied here, so results don't depend on
+// the working directory and the file can be changed without changing the benchmarks)
+final class BenchmarkInputs {
+    static final String[] LINES = {
+            "(2,3)[5 4 3 2 1 0]",
+            "(3,3)[8 7 6 5 4 3 2 1 0]",
+            "(3,4)[1 2 3 4 5 6 8 0 7 10 11 9]",
+            "(5,5)[1 2 3 4 5 6 7 8 9 10 11 12 13 14 15 16 17 18 19 21 20 23 22 24 0]"
+    };
+
+    private BenchmarkInputs() {
+    }
+
+    static int[][] board(int line_index) {
+        // same format as PuzzleReader (src/PuzzleReader.java): (rows,cols)[values separated by spaces]
+        // (PuzzleReader is in the default package, so it can't be used from here, the lines above are valid)
+        String line = LINES[line_index];
+        String[] shape = line.substring(1, line.indexOf(')')).split(",");
+        int rows = Integer.parseInt(shape[0].trim());
+        int cols = Integer.parseInt(shape[1].trim());
+        String[] values = line.substring(line.indexOf('[') + 1, line.indexOf(']')).trim().split("\\s+");
+
+        int[][] board = new int[rows][cols];
+        for (int i = 0; i < rows * cols; i++)
+            board[i / cols][i % cols] = Integer.parseInt(values[i]);
+        return board;
+    }
+
+    static List<EightPuzzle.Heuristic> heuristics(String names) {
+        // comma separated names of EightPuzzle.Heuristic, "NONE" for uniform cost search
+        List<EightPuzzle.Heuristic> heuristics = new ArrayList<>();
+        if (!names.equals("NONE"))
+            for (String name : names.split(","))
+                heuristics.add(EightPuzzle.Heuristic.valueOf(name));
+        return heuristics;
+    }
+}
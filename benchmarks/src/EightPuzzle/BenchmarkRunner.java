@@ -0,0 +1,33 @@
+package EightPuzzle;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Runs all benchmarks (or the ones matching regular expressions given as arguments) with
+// the GC profiler, so allocation rate (gc.alloc.rate.norm - bytes per operation) is reported
+// next to throughput and latency percentiles. Results are also saved to benchmark_results.json,
+// it can be compared with results of an older version to find regressions.
+//
+// Usage (run from the project directory):
+//      java -cp <classes of both modules + jmh library> EightPuzzle.BenchmarkRunner [regex...]
+// for example "StateBenchmark" or "SolveBenchmark.solve"
+public class BenchmarkRunner {
+    public static void main(String[] args) throws RunnerException {
+        OptionsBuilder options = new OptionsBuilder();
+        if (args.length == 0)
+            options.include("EightPuzzle\\..*Benchmark");
+        for (String regex : args)
+            options.include(regex);
+
+        Options built = options
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("benchmark_results.json")
+                .build();
+        new Runner(built).run();
+    }
+}
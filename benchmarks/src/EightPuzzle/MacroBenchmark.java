@@ -0,0 +1,287 @@
+package EightPuzzle;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+// Whole solves of a suite of generated boards (see InstanceGenerator.java) with every combination of heuristics,
+// compared with results stored in a baseline file. JMH benchmarks (SolveBenchmark) measure a few boards precisely,
+// this one shows how solves scale with difficulty and board shape, and fails when they get worse.
+//
+// Usage (run from the project directory):
+//      java -cp <classes of both modules> EightPuzzle.MacroBenchmark [options]
+//          --baseline FILE        results that don't depend on the machine (default: macro_baseline.tsv)
+//          --local-baseline FILE  times and peak heap of this machine (default: macro_baseline.local.tsv)
+//          --update               write the results as the new baselines instead of comparing them
+//          --algorithm NAME       name of EightPuzzle.Algorithm (default: A_STAR)
+//          --repeat N             solves of each instance, the fastest one is recorded (default: 3)
+//          --max-expanded N       budget of a single solve (default: 200000), weak heuristics stop at it
+//          --time-tolerance F     allowed relative increase of time (default: 1.0)
+//          --memory-tolerance F   allowed relative increase of peak heap (default: 0.5)
+//
+// Recorded for each instance and combination: result, moves, expanded nodes, time and peak heap (bytes above
+// the heap used before the solve). A regression (exit code 1) is:
+//      - an instance that was solved isn't solved anymore, or its solution is longer
+//      - more expanded nodes (searches are deterministic, any increase is a change of the search)
+//      - total time of all combinations of an instance higher by more than the tolerance (and by more than
+//        TIME_NOISE_MS), or its highest peak heap higher by more than the tolerance (and MEMORY_NOISE_BYTES)
+// Times of single solves vary too much between runs (a few ms, JIT and GC timing), so they're only reported,
+// totals of instances are compared.
+//
+// Results, moves and expanded nodes are the same on every machine, they're kept in the baseline that is part
+// of the project. Times and memory depend on the machine, so they're kept in a local baseline (not committed),
+// and they're compared only when it exists - run with --update once on the machine to record it.
+public class MacroBenchmark {
+    static final long SUITE_SEED = 20240601;
+    static final double TIME_NOISE_MS = 20;
+    static final long MEMORY_NOISE_BYTES = 16 << 20;
+
+    Path baseline_file = Paths.get("macro_baseline.tsv");
+    Path local_baseline_file = Paths.get("macro_baseline.local.tsv");
+    boolean update = false;
+    EightPuzzle.Algorithm algorithm = EightPuzzle.Algorithm.A_STAR;
+    int repeat = 3;
+    long max_expanded_nodes = 200_000;
+    double time_tolerance = 1.0;
+    double memory_tolerance = 0.5;
+
+    public static void main(String[] args) throws IOException {
+        MacroBenchmark benchmark = new MacroBenchmark();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--baseline":         benchmark.baseline_file = Paths.get(args[++i]); break;
+                case "--local-baseline":   benchmark.local_baseline_file = Paths.get(args[++i]); break;
+                case "--update":           benchmark.update = true; break;
+                case "--algorithm":        benchmark.algorithm = EightPuzzle.Algorithm.valueOf(args[++i]); break;
+                case "--repeat":           benchmark.repeat = Integer.parseInt(args[++i]); break;
+                case "--max-expanded":     benchmark.max_expanded_nodes = Long.parseLong(args[++i]); break;
+                case "--time-tolerance":   benchmark.time_tolerance = Double.parseDouble(args[++i]); break;
+                case "--memory-tolerance": benchmark.memory_tolerance = Double.parseDouble(args[++i]); break;
+                default:                   throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        int regressions = benchmark.run();
+        if (regressions > 0)
+            System.exit(1);
+    }
+
+    // Boards of the benchmark, the same ones on every run (fixed seed). Uniform random boards of small shapes,
+    // random walks of growing length for shapes whose random boards are too hard for weak heuristics.
+    static List<int[][]> suite() {
+        Random random = new Random(SUITE_SEED);
+        List<int[][]> boards = new ArrayList<>();
+        for (int i = 0; i < 4; i++)
+            boards.add(InstanceGenerator.randomPermutation(3, 3, random));
+        for (int i = 0; i < 2; i++)
+            boards.add(InstanceGenerator.randomPermutation(2, 4, random));
+        for (int i = 0; i < 2; i++)
+            boards.add(InstanceGenerator.randomPermutation(2, 5, random));
+        for (int moves : new int[]{ 20, 40 })
+            boards.add(InstanceGenerator.randomWalk(3, 4, moves, random));
+        for (int moves : new int[]{ 20, 40, 60 })
+            boards.add(InstanceGenerator.randomWalk(4, 4, moves, random));
+        for (int moves : new int[]{ 20, 40 })
+            boards.add(InstanceGenerator.randomWalk(5, 5, moves, random));
+        return boards;
+    }
+
+    // every subset of heuristics (the empty one is uniform cost search)
+    static List<List<EightPuzzle.Heuristic>> combinations() {
+        EightPuzzle.Heuristic[] all = EightPuzzle.Heuristic.values();
+        List<List<EightPuzzle.Heuristic>> combinations = new ArrayList<>();
+        for (int mask = 0; mask < 1 << all.length; mask++) {
+            List<EightPuzzle.Heuristic> combination = new ArrayList<>();
+            for (int i = 0; i < all.length; i++)
+                if ((mask & (1 << i)) != 0)
+                    combination.add(all[i]);
+            combinations.add(combination);
+        }
+        return combinations;
+    }
+
+    // returns the number of regressions
+    int run() throws IOException {
+        Map<String, Record> baseline = update || !Files.exists(baseline_file) ? new HashMap<>() : Record.load(baseline_file);
+        if (!update && baseline.isEmpty())
+            System.out.println("No baseline in " + baseline_file + ", results are not compared (run with --update to store them).");
+        Map<String, Record> local_baseline = update || !Files.exists(local_baseline_file)
+                ? new HashMap<>() : Record.load(local_baseline_file);
+        if (!update && local_baseline.isEmpty())
+            System.out.println("No baseline of this machine in " + local_baseline_file
+                    + ", times and peak heap are not compared (run with --update to store them).");
+
+        SolverConfig base_config = SolverConfig.defaults()
+                .withAlgorithm(algorithm)
+                .withBudget(new SearchBudget(max_expanded_nodes, SearchBudget.UNLIMITED, SearchBudget.UNLIMITED))
+                .withPrintStatistics(false);
+        List<int[][]> suite = suite();
+        List<List<EightPuzzle.Heuristic>> combinations = combinations();
+
+        // pattern databases (and other tables of heuristics) of each shape are built by their first solve,
+        // it shouldn't be measured
+        for (int[][] board : suite)
+            EightPuzzle.solve(base_config.withHeuristics(combinations.get(combinations.size() - 1)), board, new CancellationToken());
+
+        List<Record> results = new ArrayList<>();
+        int regressions = 0;
+        for (int[][] board : suite) {
+            // totals of the instance, of combinations that are in the local baseline too
+            double time_ms = 0, expected_time_ms = 0;
+            long peak_bytes = 0, expected_peak_bytes = 0;
+
+            for (List<EightPuzzle.Heuristic> heuristics : combinations) {
+                Record record = measure(base_config.withHeuristics(heuristics), board);
+                results.add(record);
+
+                Record expected = baseline.get(record.key());
+                List<String> problems = expected == null ? new ArrayList<>() : compare(record, expected);
+                Record expected_local = local_baseline.get(record.key());
+                if (expected_local != null && expected_local.hasMeasurements()) {
+                    time_ms += record.time_ms;
+                    expected_time_ms += expected_local.time_ms;
+                    peak_bytes = Math.max(peak_bytes, record.peak_bytes);
+                    expected_peak_bytes = Math.max(expected_peak_bytes, expected_local.peak_bytes);
+                }
+                regressions += problems.isEmpty() ? 0 : 1;
+                System.out.printf("%-60s %-70s %s%s\n", record.instance, record.heuristics, record.summary(),
+                        problems.isEmpty() ? "" : "   REGRESSION: " + String.join(", ", problems));
+            }
+
+            if (time_ms > expected_time_ms * (1 + time_tolerance) && time_ms - expected_time_ms > TIME_NOISE_MS) {
+                regressions++;
+                System.out.printf("%-60s REGRESSION: total time %.1fms -> %.1fms\n",
+                        InstanceGenerator.toLine(board), expected_time_ms, time_ms);
+            }
+            if (peak_bytes > expected_peak_bytes * (1 + memory_tolerance) && peak_bytes - expected_peak_bytes > MEMORY_NOISE_BYTES) {
+                regressions++;
+                System.out.printf("%-60s REGRESSION: peak heap %dMB -> %dMB\n",
+                        InstanceGenerator.toLine(board), expected_peak_bytes >> 20, peak_bytes >> 20);
+            }
+        }
+
+        if (update) {
+            Record.save(baseline_file, results, false);
+            Record.save(local_baseline_file, results, true);
+            System.out.printf("%d results written to %s and %s.\n", results.size(), baseline_file, local_baseline_file);
+        } else {
+            System.out.printf("%d results, %d regressions.\n", results.size(), regressions);
+        }
+        return regressions;
+    }
+
+    private Record measure(SolverConfig config, int[][] board) {
+        SolveReport report = null;
+        double best_time_ms = Double.MAX_VALUE;
+        long peak_bytes = 0;
+        for (int i = 0; i < repeat; i++) {
+            // heap is measured only by the first solve (after the garbage collector ran), the fastest time of all
+            if (i == 0)
+                System.gc();
+            Runtime runtime = Runtime.getRuntime();
+            long used_before = runtime.totalMemory() - runtime.freeMemory();
+            long start_time = System.nanoTime();
+            report = EightPuzzle.solve(config, board, new CancellationToken());
+            best_time_ms = Math.min(best_time_ms, (System.nanoTime() - start_time) / 1e6);
+            if (i == 0)
+                peak_bytes = Math.max(0, report.getStatistics().getPeakHeapBytes() - used_before);
+        }
+
+        boolean solved = report.getResult() == EightPuzzle.SolveResult.SOLVED;
+        return new Record(InstanceGenerator.toLine(board), names(config.getHeuristics()), report.getResult().toString(),
+                solved ? report.getSolutionStates().size() - 1 : -1, report.getExpandedNodesCount(), best_time_ms, peak_bytes);
+    }
+
+    // deterministic parts of a result (times and memory are compared as totals of instances, see run)
+    private List<String> compare(Record actual, Record expected) {
+        List<String> problems = new ArrayList<>();
+        if (expected.result.equals("SOLVED") && !actual.result.equals("SOLVED"))
+            problems.add("not solved (" + actual.result + ")");
+        else if (expected.result.equals("SOLVED") && actual.moves > expected.moves)
+            problems.add("moves " + expected.moves + " -> " + actual.moves);
+        if (actual.expanded > expected.expanded)
+            problems.add("expanded " + expected.expanded + " -> " + actual.expanded);
+        return problems;
+    }
+
+    private static String names(List<EightPuzzle.Heuristic> heuristics) {
+        if (heuristics.isEmpty())
+            return "NONE";
+        StringBuilder sb = new StringBuilder();
+        for (EightPuzzle.Heuristic heuristic : heuristics)
+            sb.append(sb.length() == 0 ? "" : ",").append(heuristic);
+        return sb.toString();
+    }
+
+    // result of one instance with one combination of heuristics, a line of a baseline file (tab separated,
+    // the baseline of the project doesn't have the last two columns, time and peak heap)
+    static class Record {
+        final String instance;
+        final String heuristics;
+        final String result;
+        final int moves;
+        final long expanded;
+        final double time_ms;
+        final long peak_bytes;
+
+        Record(String instance_, String heuristics_, String result_, int moves_, long expanded_,
+               double time_ms_, long peak_bytes_) {
+            instance = instance_;
+            heuristics = heuristics_;
+            result = result_;
+            moves = moves_;
+            expanded = expanded_;
+            time_ms = time_ms_;
+            peak_bytes = peak_bytes_;
+        }
+
+        // false for records of the baseline of the project
+        boolean hasMeasurements() {
+            return !Double.isNaN(time_ms);
+        }
+
+        String key() {
+            return instance + "\t" + heuristics;
+        }
+
+        String summary() {
+            return String.format("%-15s moves %3d, expanded %7d, %9.2fms, peak heap %4dMB",
+                    result, moves, expanded, time_ms, peak_bytes >> 20);
+        }
+
+        static Map<String, Record> load(Path file) throws IOException {
+            Map<String, Record> records = new HashMap<>();
+            for (String line : Files.readAllLines(file)) {
+                if (line.isEmpty() || line.startsWith("#"))
+                    continue;
+                String[] parts = line.split("\t");
+                boolean measured = parts.length > 6;
+                Record record = new Record(parts[0], parts[1], parts[2], Integer.parseInt(parts[3]),
+                        Long.parseLong(parts[4]), measured ? Double.parseDouble(parts[5]) : Double.NaN,
+                        measured ? Long.parseLong(parts[6]) : 0);
+                records.put(record.key(), record);
+            }
+            return records;
+        }
+
+        static void save(Path file, List<Record> records, boolean with_measurements) throws IOException {
+            try (Writer writer = Files.newBufferedWriter(file)) {
+                writer.write("# instance\theuristics\tresult\tmoves\texpanded" + (with_measurements ? "\ttime_ms\tpeak_bytes" : "") + "\n");
+                for (Record record : records) {
+                    writer.write(String.format(Locale.ROOT, "%s\t%s\t%s\t%d\t%d", record.instance,
+                            record.heuristics, record.result, record.moves, record.expanded));
+                    if (with_measurements)
+                        writer.write(String.format(Locale.ROOT, "\t%.3f\t%d", record.time_ms, record.peak_bytes));
+                    writer.write("\n");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package EightPuzzle;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Heuristic of a node, calculated from scratch (initial node) and from the parent (every other node),
+// for each heuristic alone. Table based heuristics are built/loaded in setup, only lookups are measured.
+@org.openjdk.jmh.annotations.State(Scope.Thread) // (EightPuzzle.State hides the annotation)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NodeBenchmark {
+    // index of a line in BenchmarkInputs.LINES
+    @Param({"0", "1", "2", "3"})
+    int line;
+
+    @Param({"MANHATTAN_DISTANCE", "MISMATCH_COUNT", "DIRECT_REVERSE_PENALTY", "PATTERN_DATABASE",
+            "LINEAR_CONFLICT", "WALKING_DISTANCE"})
+    String heuristic;
+
+    HeuristicEvaluator evaluator;
+    Node parent;
+    // context of the parent's state, loaded once like searches do for each expanded node
+    HeuristicEvaluator.Context parent_context;
+    State child_state;
+
+    @Setup
+    public void setup() {
+        int[][] board = BenchmarkInputs.board(line);
+
+        List<EightPuzzle.Heuristic> heuristics = BenchmarkInputs.heuristics(heuristic);
+        evaluator = new HeuristicEvaluator(goalStateOf(board), heuristics);
+        parent = new Node(null, 0, new State(board));
+        parent.setHeuristics(evaluator, null);
+        parent_context = evaluator.newContext();
+        evaluator.loadContext(parent_context, parent.state);
+        State[] children = State.newChildBuffer(parent.state);
+        parent.state.childrenInto(children);
+        child_state = children[0];
+    }
+
+    private static State goalStateOf(int[][] board) {
+        BoardGeometry geometry = BoardGeometry.of(board.length, board[0].length);
+        return new State(geometry.goal_value_at, geometry.rows);
+    }
+
+    @Benchmark
+    public int setHeuristicsInitialNode() {
+        Node node = new Node(null, 0, parent.state);
+        node.setHeuristics(evaluator, null);
+        return node.heuristic;
+    }
+
+    @Benchmark
+    public int setHeuristicsChildNode() {
+        Node node = new Node(parent, 1, child_state);
+        node.setHeuristics(evaluator, parent_context);
+        return node.heuristic;
+    }
+}
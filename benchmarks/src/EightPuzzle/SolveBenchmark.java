@@ -0,0 +1,44 @@
+package EightPuzzle;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Whole solves of input.txt boards, including allocation of all nodes and states.
+// Solution cache is not used, every invocation searches again.
+@org.openjdk.jmh.annotations.State(Scope.Thread) // (EightPuzzle.State hides the annotation)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class SolveBenchmark {
+    @Param({"0", "1", "2", "3"})
+    int line;
+
+    // "ALGORITHM:HEURISTIC,HEURISTIC" (heuristics as in BenchmarkInputs.heuristics)
+    @Param({"A_STAR:MANHATTAN_DISTANCE,DIRECT_REVERSE_PENALTY", "IDA_STAR:PATTERN_DATABASE"})
+    String configuration;
+
+    int[][] board;
+    EightPuzzle puzzle;
+
+    @Setup
+    public void setup() {
+        board = BenchmarkInputs.board(line);
+        String[] parts = configuration.split(":");
+
+        puzzle = new EightPuzzle();
+        puzzle.setAlgorithm(EightPuzzle.Algorithm.valueOf(parts[0]));
+        puzzle.setHeuristics(BenchmarkInputs.heuristics(parts[1]));
+        puzzle.setPrintStatistics(false);
+
+        // pattern databases are built/loaded by the first solve, it shouldn't be measured
+        puzzle.solve(board);
+    }
+
+    @Benchmark
+    public EightPuzzle.SolveResult solve() {
+        return puzzle.solve(board);
+    }
+}
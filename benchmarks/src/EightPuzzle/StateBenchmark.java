@@ -0,0 +1,52 @@
+package EightPuzzle;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Operations done for every generated node: creating children, and hashing/comparing
+// states in StateSet and HashMaps of searches.
+@org.openjdk.jmh.annotations.State(Scope.Thread) // (EightPuzzle.State hides the annotation)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StateBenchmark {
+    // index of a line in BenchmarkInputs.LINES
+    @Param({"0", "1", "2", "3"})
+    int line;
+
+    State state;
+    State equal_state;
+    State other_state;
+    StateSet empty_visited_states;
+
+    @Setup
+    public void setup() {
+        state = new State(BenchmarkInputs.board(line));
+        equal_state = new State(state);
+        State[] children = State.newChildBuffer(state);
+        state.childrenInto(children);
+        other_state = children[0];
+        empty_visited_states = new HeapStateSet();
+    }
+
+    @Benchmark
+    public List<State> possibleNewStates() {
+        return state.possibleNewStates(empty_visited_states);
+    }
+
+    @Benchmark
+    public void equalsState(Blackhole blackhole) {
+        blackhole.consume(state.equals(equal_state));
+        blackhole.consume(state.equals(other_state));
+    }
+
+    @Benchmark
+    public int hashCodeState() {
+        return state.hashCode();
+    }
+}
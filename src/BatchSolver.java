@@ -0,0 +1,197 @@
+import EightPuzzle.CancellationToken;
+import EightPuzzle.EightPuzzle;
+import EightPuzzle.SearchBudget;
+import EightPuzzle.SolutionCache;
+import EightPuzzle.SolveReport;
+import EightPuzzle.SolverConfig;
+import EightPuzzle.State;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static EightPuzzle.EightPuzzle.Heuristic;
+import static EightPuzzle.EightPuzzle.Heuristic.*;
+
+// Headless batch mode: solves every line of an input file (same format as input.txt)
+// on a pool of worker threads and writes results of each puzzle to the output file.
+//
+// Usage:
+//      java BatchSolver <input file> [output file] [options]
+//          --threads N            number of worker threads (default: number of cores)
+//          --algorithm NAME       name of EightPuzzle.Algorithm (default: A_STAR)
+//          --weight W             heuristic weight of WEIGHTED_A_STAR and initial weight of ARA_STAR
+//          --heuristics A,B,...   names of EightPuzzle.Heuristic (default: MANHATTAN_DISTANCE,DIRECT_REVERSE_PENALTY,
+//                                 "none" for uniform cost search)
+//          --max-time MS          time limit of a single puzzle
+//          --max-expanded N       expanded nodes limit of a single puzzle
+//          --cache FILE           keep solutions in a file between runs (repeated boards aren't solved again)
+//          --storage MODE         name of EightPuzzle.StorageMode, where nodes are kept (default: HEAP)
+//          --storage-dir DIR      directory of temporary files of MAPPED_FILE storage (default: system temp directory)
+// When output file is not given results are written to the console.
+//
+// Lines are read one by one (see PuzzleReader.java) and only a limited number of puzzles is queued at once,
+// so files with any number of lines can be solved in constant memory. Results are
+// written in the same order as lines of the input file.
+public class BatchSolver {
+    // rough number of bytes used by a single node/state kept by the search (see Program.STORED_NODE_BYTES)
+    static final long STORED_NODE_BYTES = 200;
+    // the same with OFF_HEAP or MAPPED_FILE storage, only the open list of the search is left on the heap
+    static final long OFF_HEAP_STORED_NODE_BYTES = 16;
+
+    // how many puzzles per worker thread can be queued/waiting to be written at once
+    static final int QUEUED_PER_THREAD = 4;
+
+    int threads = Runtime.getRuntime().availableProcessors();
+    EightPuzzle.Algorithm algorithm = EightPuzzle.Algorithm.A_STAR;
+    double weight = 2.0;
+    List<Heuristic> heuristics = new ArrayList<>(List.of(MANHATTAN_DISTANCE, DIRECT_REVERSE_PENALTY));
+    long max_time_ms = SearchBudget.UNLIMITED;
+    long max_expanded_nodes = SearchBudget.UNLIMITED;
+    EightPuzzle.StorageMode storage = EightPuzzle.StorageMode.HEAP;
+    Path storage_directory = Paths.get(System.getProperty("java.io.tmpdir"));
+    // shared by all worker threads, null if --cache wasn't given
+    SolutionCache solution_cache = null;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.out.println("Usage: java BatchSolver <input file> [output file] [--threads N] [--algorithm NAME] [--weight W]"
+                    + " [--heuristics A,B,...] [--max-time MS] [--max-expanded N] [--cache FILE]"
+                    + " [--storage MODE] [--storage-dir DIR]");
+            return;
+        }
+
+        BatchSolver solver = new BatchSolver();
+        String input_file = args[0];
+        String output_file = null;
+        Path cache_file = null;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads":      solver.threads = Integer.parseInt(args[++i]); break;
+                case "--algorithm":    solver.algorithm = EightPuzzle.Algorithm.valueOf(args[++i]); break;
+                case "--weight":       solver.weight = Double.parseDouble(args[++i]); break;
+                case "--heuristics":   solver.heuristics = parseHeuristics(args[++i]); break;
+                case "--max-time":     solver.max_time_ms = Long.parseLong(args[++i]); break;
+                case "--max-expanded": solver.max_expanded_nodes = Long.parseLong(args[++i]); break;
+                case "--cache":        cache_file = Paths.get(args[++i]); break;
+                case "--storage":      solver.storage = EightPuzzle.StorageMode.valueOf(args[++i]); break;
+                case "--storage-dir":  solver.storage_directory = Paths.get(args[++i]); break;
+                default:               output_file = args[i];
+            }
+        }
+
+        if (cache_file != null) {
+            solver.solution_cache = new SolutionCache(100_000, 10_000_000);
+            if (Files.exists(cache_file))
+                solver.solution_cache.load(cache_file);
+        }
+
+        try (PuzzleReader reader = PuzzleReader.open(Paths.get(input_file));
+             Writer writer = output_file == null
+                     ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+                     : Files.newBufferedWriter(Paths.get(output_file))) {
+            solver.solveAll(reader, writer);
+        }
+
+        if (cache_file != null)
+            solver.solution_cache.save(cache_file);
+    }
+
+    static List<Heuristic> parseHeuristics(String names) {
+        List<Heuristic> heuristics = new ArrayList<>();
+        if (names.equalsIgnoreCase("none"))
+            return heuristics;
+        for (String name : names.split(","))
+            heuristics.add(Heuristic.valueOf(name.trim()));
+        return heuristics;
+    }
+
+    void solveAll(PuzzleReader reader, Writer writer) throws IOException, InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // each solve gets an equal part of the heap, so parallel solves can't run out of memory together
+        long node_bytes = storage == EightPuzzle.StorageMode.HEAP ? STORED_NODE_BYTES : OFF_HEAP_STORED_NODE_BYTES;
+        SearchBudget budget = new SearchBudget(max_expanded_nodes, max_time_ms,
+                Runtime.getRuntime().maxMemory() / node_bytes / threads);
+        // one config for all tasks (it can't change, so the tasks can share it)
+        SolverConfig config = SolverConfig.defaults()
+                .withHeuristics(heuristics)
+                .withAlgorithm(algorithm)
+                .withWeight(weight)
+                .withBudget(budget)
+                .withStorage(storage)
+                .withStorageDirectory(storage_directory)
+                .withPrintStatistics(false)
+                .withSolutionCache(solution_cache);
+
+        // results waiting to be written, in the order of input lines
+        Deque<Future<String>> pending = new ArrayDeque<>();
+        int puzzles = 0, solved = 0;
+        long start_time = System.currentTimeMillis();
+
+        while (reader.hasNext()) {
+            PuzzleReader.Puzzle puzzle = reader.next();
+            pending.add(pool.submit(() -> solvePuzzle(puzzle, config)));
+            puzzles++;
+
+            // backpressure - don't read further lines until the oldest puzzle is written
+            while (pending.size() >= threads * QUEUED_PER_THREAD || (!pending.isEmpty() && pending.peek().isDone()))
+                solved += writeResult(pending.poll(), writer);
+        }
+        while (!pending.isEmpty())
+            solved += writeResult(pending.poll(), writer);
+        writer.flush();
+        pool.shutdown();
+
+        System.err.printf("%d puzzles, %d solved in %dms (%d threads).\n",
+                puzzles, solved, System.currentTimeMillis() - start_time, threads);
+    }
+
+    private int writeResult(Future<String> result, Writer writer) throws IOException, InterruptedException {
+        try {
+            String text = result.get();
+            writer.write(text);
+            return text.contains(" Moves\n") ? 1 : 0;
+        } catch (ExecutionException e) {
+            writer.write("Error: " + e.getCause() + "\n\n");
+            return 0;
+        }
+    }
+
+    String solvePuzzle(PuzzleReader.Puzzle input, SolverConfig config) {
+        StringBuilder sb = new StringBuilder();
+        if (!input.isValid())
+            return sb.append("Invalid ").append(input).append("\n\n").toString();
+        sb.append(input).append('\n');
+
+        // every task gets its own report of the solve
+        SolveReport report = EightPuzzle.solve(config, input.values, new CancellationToken());
+        EightPuzzle.SolveResult result = report.getResult();
+        if (result == EightPuzzle.SolveResult.SOLVED) {
+            // values that moved (the challenge week output), separated by spaces
+            List<State> states = report.getSolutionStates();
+            for (int i = 1; i < states.size(); i++)
+                sb.append(states.get(i).getValueThatMoved()).append(i == states.size() - 1 ? "" : " ");
+            sb.append('\n');
+            sb.append(states.size() - 1).append(" Moves\n");
+        } else {
+            sb.append("No solution (").append(result).append(")\n");
+        }
+        sb.append(report.getExpandedNodesCount()).append(" Nodes expanded\n");
+        sb.append(report.getUnexpandedNodesCount()).append(" Nodes unexpanded\n");
+        sb.append(report.getCompletionTime()).append("ms\n\n");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,164 @@
+import EightPuzzle.State;
+
+import java.awt.*;
+import java.awt.geom.Line2D;
+import java.awt.image.BufferedImage;
+
+import static java.lang.Integer.max;
+
+// Draws states of a solution as tiles of GraphicsPanel.
+//
+// Everything that's the same for all states of one board shape is prepared once, when the renderer
+// is created: the image of the empty grid (fields and boundary), the tile size and the size of each
+// value's label (font metrics are not measured again for every field of every state). Drawing a state
+// is drawing the grid image, labels of its fields and the blank field with an arrow of the last move.
+class BoardRenderer {
+    final int rows;
+    final int cols;
+    // tile dimensions and the space between tiles
+    final int width;
+    final int height;
+    final int margin;
+
+    private final int separating_dist;
+    private final int field_size;
+    private final BufferedImage grid;
+
+    private final String[] labels;
+    private final int[] half_label_width;
+    private final int half_label_height;
+
+    BoardRenderer(int rows_, int cols_, FontMetrics fm) {
+        rows = rows_;
+        cols = cols_;
+
+        // longer side of a tile, boards with more fields get bigger tiles
+        int max_row_col = max(rows, cols);
+        int max_size = 20 + max_row_col * 20;
+        width = max_size * cols / max_row_col;
+        height = max_size * rows / max_row_col;
+        int size = max(width, height);
+        margin = (int)(size * 0.1);
+
+        separating_dist = (int)(size * 0.05);
+        field_size = (size - separating_dist * (max_row_col - 1)) / max_row_col;
+
+        labels = new String[rows * cols];
+        half_label_width = new int[rows * cols];
+        for (int value = 0; value < labels.length; value++) {
+            labels[value] = Integer.toString(value);
+            half_label_width[value] = fm.stringWidth(labels[value]) / 2;
+        }
+        half_label_height = fm.getHeight() / 2;
+
+        grid = drawGrid();
+    }
+
+    private BufferedImage drawGrid() {
+        int boundary_width = field_size * cols + separating_dist * (cols - 1);
+        int boundary_height = field_size * rows + separating_dist * (rows - 1);
+        // (drawRect covers width + 1 pixels)
+        BufferedImage image = new BufferedImage(boundary_width + 1, boundary_height + 1, BufferedImage.TYPE_INT_ARGB);
+        Graphics g = image.getGraphics();
+
+        g.setColor(Color.lightGray);
+        for (int row = 0; row < rows; row++)
+            for (int col = 0; col < cols; col++)
+                g.fillRect(col * (field_size + separating_dist), row * (field_size + separating_dist), field_size, field_size);
+
+        g.setColor(Color.orange);
+        g.drawRect(0, 0, boundary_width, boundary_height);
+        g.dispose();
+        return image;
+    }
+
+    void draw(Graphics g, State state, int x, int y) {
+        g.drawImage(grid, x, y, null);
+
+        g.setColor(Color.black);
+        int blank_x = 0, blank_y = 0;
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                int field_x = x + col * (field_size + separating_dist);
+                int field_y = y + row * (field_size + separating_dist);
+                int value = state.getValue(row, col);
+                if (value == 0) {
+                    blank_x = field_x;
+                    blank_y = field_y;
+                    continue;
+                }
+                int field_center_x = (int)(field_x + field_size * 0.5);
+                int field_center_y = (int)(field_y + field_size * 0.5);
+                g.drawString(labels[value], field_center_x - half_label_width[value], field_center_y + half_label_height);
+            }
+        }
+
+        g.setColor(Color.orange);
+        g.fillRect(blank_x + 1, blank_y + 1, field_size - 1, field_size - 1);
+        if (state.getLastMove() == State.Direction.NONE)
+            return;
+
+        // arrow from the blank field towards the field it came from
+        int field_center_x = (int)(blank_x + field_size * 0.5);
+        int field_center_y = (int)(blank_y + field_size * 0.5);
+        int last_move_x = field_center_x, last_move_y = field_center_y;
+        switch (state.getLastMove()) {
+            case UP:    last_move_y -= field_size * 0.9 + separating_dist - half_label_height; break;
+            case DOWN:  last_move_y += field_size * 0.9 + separating_dist - half_label_height; break;
+            case RIGHT: last_move_x += field_size * 0.9 + separating_dist - half_label_width[0]; break;
+            case LEFT:  last_move_x -= field_size * 0.9 + separating_dist - half_label_width[0]; break;
+        }
+        g.setColor(Color.black);
+        drawArrowLine(g, field_center_x, field_center_y, last_move_x, last_move_y,
+                (int)(field_size * 0.20), (int)(field_size * 0.15));
+    }
+
+    /**
+     * "drawArrowLine" function was copied from: https://stackoverflow.com/a/27461352/4620679
+     * Author: phibao37; last edited by: RubenLaguna
+     *
+     * Draw an arrow line between two points.
+     * @param g the graphics component.
+     * @param x1 x-position of first point.
+     * @param y1 y-position of first point.
+     * @param x2 x-position of second point.
+     * @param y2 y-position of second point.
+     * @param d  the width of the arrow.
+     * @param h  the height of the arrow.
+     */
+    private void drawArrowLine(Graphics g, int x1, int y1, int x2, int y2, int d, int h) {
+        int dx = x2 - x1, dy = y2 - y1;
+        double D = Math.sqrt(dx*dx + dy*dy);
+        double xm = D - d, xn = xm, ym = h, yn = -h, x;
+        double sin = dy / D, cos = dx / D;
+
+        x = xm*cos - ym*sin + x1;
+        ym = xm*sin + ym*cos + y1;
+        xm = x;
+
+        x = xn*cos - yn*sin + x1;
+        yn = xn*sin + yn*cos + y1;
+        xn = x;
+
+        int[] xpoints = {x2, (int) xm, (int) xn};
+        int[] ypoints = {y2, (int) ym, (int) yn};
+
+        Graphics2D g2 = (Graphics2D)g;
+        g2.setRenderingHint
+                (RenderingHints.KEY_ANTIALIASING,
+                        RenderingHints.VALUE_ANTIALIAS_ON);
+
+        // ugly fix to hide line being visible after arrow head
+        // (due to increased stroke of the line)
+        x2 += (x1 - x2) / 10;
+        y2 += (y1 - y2) / 10;
+
+        Stroke preserved_stroke = g2.getStroke();
+        g2.setStroke(new BasicStroke(2));
+        g2.draw(new Line2D.Double(x1, y1, x2, y2));
+        g2.setStroke(preserved_stroke);
+
+        //g.drawLine(x1, y1, x2, y2);
+        g.fillPolygon(xpoints, ypoints, 3);
+    }
+}
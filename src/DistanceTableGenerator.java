@@ -0,0 +1,48 @@
+import EightPuzzle.DistanceTableBuilder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+// Writes the exact distance of every state of a board shape to a file (see EightPuzzle.DistanceTable)
+// and prints how many states there are at each distance.
+//
+// Usage:
+//      java DistanceTableGenerator <rows> <cols> <output file> [options]
+//          --work-dir DIR         directory of temporary layer and run files (default: system temp directory)
+//          --buffer-states N      number of states sorted in memory at once (default: 8M, 8 bytes each)
+public class DistanceTableGenerator {
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.out.println("Usage: java DistanceTableGenerator <rows> <cols> <output file>"
+                    + " [--work-dir DIR] [--buffer-states N]");
+            return;
+        }
+
+        int rows = Integer.parseInt(args[0]);
+        int cols = Integer.parseInt(args[1]);
+        Path output = Paths.get(args[2]);
+        Path work_directory = Paths.get(System.getProperty("java.io.tmpdir"));
+        int buffer_states = 1 << 23;
+        for (int i = 3; i < args.length; i++) {
+            switch (args[i]) {
+                case "--work-dir":      work_directory = Paths.get(args[++i]); break;
+                case "--buffer-states": buffer_states = Integer.parseInt(args[++i]); break;
+                default:                throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        long start_time = System.currentTimeMillis();
+        long[] counts = new DistanceTableBuilder(rows, cols, work_directory, buffer_states).build(output);
+
+        long total = 0;
+        double mean = 0;
+        for (int distance = 0; distance < counts.length; distance++) {
+            System.out.printf("%3d %12d\n", distance, counts[distance]);
+            total += counts[distance];
+            mean += (double)distance * counts[distance];
+        }
+        System.out.printf("%d states, mean distance %.2f, max distance %d (%dms)\n",
+                total, mean / total, counts.length - 1, System.currentTimeMillis() - start_time);
+    }
+}
@@ -0,0 +1,217 @@
+package EightPuzzle;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static EightPuzzle.EightPuzzle.StorageMode;
+
+// Anytime Repairing A* (ARA*), Likhachev, Gordon, Thrun (2003)
+//
+// Weighted A* orders nodes by depth + weight * heuristic. With weight > 1 nodes close to the goal are
+// preferred over the ones with short paths, so a solution is found after expanding far fewer nodes,
+// and (with admissible heuristics) it's at most "weight" times longer than the shortest one.
+//
+// ARA* runs weighted A* repeatedly with a decreasing weight. The first solution is found quickly and
+// each next search finds a solution at least as good as the previous one, until the weight reaches 1
+// (the solution is the shortest one) or limits stop the search. Searches don't start from scratch:
+//      - all generated nodes and their best depths are kept between searches
+//      - a node whose depth improved after it was expanded in the current search is not expanded again,
+//        it's put aside ("inconsistent" nodes) and added to the open list of the next search
+//      - a search stops as soon as no open node has lower priority than the best solution found so far
+// Every improved solution is sent to SearchListener.onSolutionImproved.
+// Nodes and closed states are kept in the selected storage (see EightPuzzle.StorageMode and
+// SearchMemory.java), the map of best nodes stays on the heap.
+class AraStarSearch {
+    // weight is decreased by this much after each search
+    private static final double WEIGHT_STEP = 0.5;
+
+    private final State initial_state;
+    private final State goal_state;
+    private final HeuristicEvaluator evaluator;
+    private final SearchLimits limits;
+    private final SearchMetrics metrics;
+    // may be null
+    private final SearchListener listener;
+    private final double initial_weight;
+
+    private final SearchMemory memory;
+    private final NodeArena arena;
+    // node with the lowest depth of every generated state
+    private final StateIntMap best_node = new StateIntMap();
+    private final IntBucketQueue open;
+    // states expanded by the current search
+    private final StateSet closed;
+    // nodes that improved after their state was expanded by the current search
+    private int[] inconsistent = new int[16];
+    private int inconsistent_count = 0;
+
+    // best goal node found so far
+    private int goal_node = StateIntMap.NOT_FOUND;
+    private long nodes_expanded = 0;
+
+    // the same State objects are reused for all nodes (see BestFirstSearch.java)
+    private final State board;
+    private final State[] children;
+    // table indices of "board" (see HeuristicEvaluator.Context)
+    private final HeuristicEvaluator.Context context;
+
+    AraStarSearch(State initial_state_, State goal_state_, HeuristicEvaluator evaluator_, SearchLimits limits_,
+                  SearchMetrics metrics_, SearchListener listener_, double initial_weight_,
+                  StorageMode storage, Path storage_directory) {
+        initial_state = initial_state_;
+        goal_state = goal_state_;
+        evaluator = evaluator_;
+        limits = limits_;
+        metrics = metrics_;
+        listener = listener_;
+        initial_weight = Math.max(1, initial_weight_);
+        memory = SearchMemory.acquire(storage, storage_directory);
+        arena = memory.arena;
+        open = memory.open;
+        closed = memory.visited;
+        board = new State(initial_state);
+        children = State.newChildBuffer(initial_state);
+        context = evaluator.newContext();
+    }
+
+    // returns the best solution found (the shortest one if the search wasn't stopped by limits),
+    // or null if goal can't be reached or no solution was found before limits stopped the search
+    List<State> run() {
+        int root = arena.add(NodeArena.NO_PARENT, 0, evaluator.evaluate(initial_state), initial_state);
+        best_node.put(initial_state, root);
+        if (initial_state.equals(goal_state))
+            goal_node = root;
+
+        double weight = initial_weight;
+        int weight_scaled = EightPuzzle.scaledWeight(weight);
+        open.add(root, priority(root, weight_scaled), 0);
+
+        while (true) {
+            int previous_goal_node = goal_node;
+            boolean stopped = !improvePath(weight_scaled);
+
+            if (goal_node != previous_goal_node && listener != null)
+                listener.onSolutionImproved(arena.pathTo(goal_node, initial_state), weight);
+
+            // weight 1 - the solution is the shortest one (or the goal can't be reached)
+            if (stopped || weight <= 1)
+                break;
+
+            weight = Math.max(1, weight - WEIGHT_STEP);
+            weight_scaled = EightPuzzle.scaledWeight(weight);
+            reorderOpen(weight_scaled);
+        }
+
+        if (goal_node == StateIntMap.NOT_FOUND)
+            return null;
+        return arena.pathTo(goal_node, initial_state);
+    }
+
+    private int priority(int node, int weight_scaled) {
+        return arena.depthOf(node) * EightPuzzle.PRIORITY_SCALE + arena.heuristicOf(node) * weight_scaled;
+    }
+
+    private int goalPriority() {
+        // heuristic of the goal state is 0
+        if (goal_node == StateIntMap.NOT_FOUND)
+            return Integer.MAX_VALUE;
+        return arena.depthOf(goal_node) * EightPuzzle.PRIORITY_SCALE;
+    }
+
+    // a single weighted A* search, returns false if it was stopped by limits
+    private boolean improvePath(int weight_scaled) {
+        while (open.minF() < goalPriority()) {
+            int node = open.poll();
+            long lo = arena.packedLowOf(node);
+            long hi = arena.packedHighOf(node);
+
+            // skip nodes whose state was reached by a shorter path after they were added,
+            // and states already expanded by this search
+            if (best_node.get(lo, hi) != node || !closed.add(lo, hi)) {
+                metrics.duplicates_rejected++;
+                continue;
+            }
+
+            if (limits.exceeded(nodes_expanded, arena.size()))
+                return false;
+
+            nodes_expanded++;
+            metrics.expanded(open.size(), closed.size(), priority(node, weight_scaled) / EightPuzzle.PRIORITY_SCALE);
+            expand(node, weight_scaled);
+        }
+        return true;
+    }
+
+    private void expand(int node, int weight_scaled) {
+        arena.loadState(node, board);
+        int depth = arena.depthOf(node);
+        int heuristic = arena.heuristicOf(node);
+        evaluator.loadContext(context, board);
+
+        // (without the move that undoes the last move, it leads to the parent)
+        int children_count = board.childrenInto(children);
+        for (int i = 0; i < children_count; i++) {
+            State child = children[i];
+
+            int previous = best_node.get(child);
+            if (previous != StateIntMap.NOT_FOUND && arena.depthOf(previous) <= depth + 1) {
+                metrics.duplicates_rejected++;
+                continue;
+            }
+
+            // heuristic of a state doesn't change, it's evaluated only when the state is reached for the first time
+            int child_heuristic = previous != StateIntMap.NOT_FOUND
+                    ? arena.heuristicOf(previous) : metrics.evaluateChild(evaluator, heuristic, context, child);
+            metrics.nodes_generated++;
+            int child_node = arena.add(node, depth + 1, child_heuristic, child);
+            best_node.put(child, child_node);
+
+            if (child.equals(goal_state))
+                goal_node = child_node;
+
+            if (closed.contains(child))
+                addInconsistent(child_node);
+            else
+                open.add(child_node, priority(child_node, weight_scaled), depth + 1);
+        }
+    }
+
+    private void addInconsistent(int node) {
+        if (inconsistent_count == inconsistent.length)
+            inconsistent = Arrays.copyOf(inconsistent, inconsistent_count * 2);
+        inconsistent[inconsistent_count++] = node;
+    }
+
+    private void reorderOpen(int weight_scaled) {
+        // priorities depend on the weight, so all open nodes (and inconsistent ones) are added again
+        int[] nodes = new int[open.size() + inconsistent_count];
+        int count = 0;
+        while (!open.isEmpty())
+            nodes[count++] = open.poll();
+        System.arraycopy(inconsistent, 0, nodes, count, inconsistent_count);
+        count += inconsistent_count;
+        inconsistent_count = 0;
+
+        open.reset();
+        closed.clear();
+        for (int i = 0; i < count; i++) {
+            int node = nodes[i];
+            if (best_node.get(arena.packedLowOf(node), arena.packedHighOf(node)) == node)
+                open.add(node, priority(node, weight_scaled), arena.depthOf(node));
+        }
+    }
+
+    // releases the storage of nodes and closed states (heap structures go back to the pool)
+    void close() {
+        memory.release();
+    }
+
+    long getNodesExpanded() {
+        return nodes_expanded;
+    }
+
+    int getNodesUnexpanded() {
+        return open.size();
+    }
+}
@@ -0,0 +1,171 @@
+package EightPuzzle;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static EightPuzzle.EightPuzzle.PRIORITY_SCALE;
+import static EightPuzzle.EightPuzzle.StorageMode;
+
+// A* (and uniform cost search when no heuristics are selected) with all generated nodes kept in memory.
+// Weighted A* is the same search with heuristic values multiplied by the weight (see EightPuzzle.PRIORITY_SCALE).
+//
+// Each solve creates its own search object, all state of the search is in its fields (or in SearchMemory),
+// so any number of searches can run at the same time.
+class BestFirstSearch {
+    private final State initial_state;
+    private final State goal_state;
+    private final HeuristicEvaluator heuristic_evaluator;
+    private final SearchLimits limits;
+    private final SearchMetrics metrics;
+    // known distances of SolutionCache, may be null
+    private final SolutionCache.Distances known_distances;
+    private final int weight_scaled;
+
+    // nodes is ordered starting with the most likely to result in solution (after expanding them)
+    // The same queue is used for uniform cost search and A* with different heuristics, nodes are
+    // ordered by depth of a node + its heuristic value (in case of uniform cost search the heuristic
+    // value is 0). IntBucketQueue keeps nodes in buckets by that value, so adding and taking the
+    // most promising node is O(1) instead of O(log n) of PriorityQueue, and from nodes of equal value
+    // the deepest one is taken first (see BucketQueue.java).
+    //
+    // Nodes themselves are kept in NodeArena, the queue holds only their int handles (see NodeArena.java).
+    //
+    // The queue itself is small (4 bytes per node in a few arrays), nodes and visited states are
+    // kept in the selected storage, they're released (or returned to the pool) by close().
+    private final SearchMemory memory;
+
+    private long nodes_expanded = 0;
+    private int nodes_unexpanded = 0;
+
+    BestFirstSearch(State initial_state_, State goal_state_, HeuristicEvaluator heuristic_evaluator_,
+                    SearchLimits limits_, SearchMetrics metrics_, SolutionCache solution_cache, int weight_scaled_,
+                    StorageMode storage, Path storage_directory) {
+        initial_state = initial_state_;
+        goal_state = goal_state_;
+        heuristic_evaluator = heuristic_evaluator_;
+        limits = limits_;
+        metrics = metrics_;
+        // States on solution paths of previous solves have known distance to the goal state. It's used
+        // instead of the heuristic when it's higher, so when such state is taken from the queue no other
+        // node can lead to a shorter solution and the rest of the path is taken from SolutionCache.
+        known_distances = solution_cache == null
+                ? null : solution_cache.getDistances(initial_state.getRowSize(), initial_state.getColSize());
+        weight_scaled = weight_scaled_;
+        memory = SearchMemory.acquire(storage, storage_directory);
+    }
+
+    // returns states from the initial state to the goal state, or null if goal can't be reached
+    // or limits stopped the search
+    List<State> run() {
+        IntBucketQueue nodes = memory.open;
+        NodeArena arena = memory.arena;
+        // This will prevent expanding previously expanded nodes,
+        // without it the code could "run around in circles" indefinitely
+        // It is equivalent to "visited" list from this video: https://www.youtube.com/watch?v=dRMvK76xQJI
+        StateSet visited_states = memory.visited;
+
+        // the only State objects of the search, "board" holds the state of the node
+        // that is expanded and "children" the states of its children
+        State board = new State(initial_state);
+        State[] children = State.newChildBuffer(initial_state);
+        // table indices of the expanded state, its children's heuristics are calculated from them
+        HeuristicEvaluator.Context context = heuristic_evaluator.newContext();
+
+        // create first node with initial state
+        int root_heuristic = heuristic_evaluator.evaluate(initial_state);
+        int node = arena.add(NodeArena.NO_PARENT, 0, root_heuristic, initial_state);
+        nodes.add(node, estimate(root_heuristic, initial_state) * weight_scaled, 0);
+
+        // get the node that is the most promising (from IntBucketQueue)
+        //      - in case of uniform case search it's the lowest depth node
+        //      - in case of A* it's the lowest value of combined depth + chosen heuristics
+        boolean found = false;
+        while (!nodes.isEmpty()) {
+            node = nodes.poll();
+
+            // The same state can be in the queue more than once (reached by different paths).
+            // States are marked as visited when their node is expanded (and not when it's created),
+            // so the first node of a state taken from the queue - the one with the best depth - is
+            // expanded and the others are skipped. Marking states when nodes are created would keep
+            // the path found first, which (with deepest-first order of BucketQueue) is not always the shortest.
+            if (!visited_states.add(arena.packedLowOf(node), arena.packedHighOf(node))) {
+                metrics.duplicates_rejected++;
+                continue;
+            }
+            arena.loadState(node, board);
+
+            if (board.equals(goal_state) || (known_distances != null && known_distances.distanceOf(board) >= 0)) {
+                found = true;
+                break;
+            }
+
+            if (limits.exceeded(nodes_expanded, arena.size())) {
+                nodes_unexpanded = nodes.size();
+                return null;
+            }
+
+            int depth = arena.depthOf(node);
+            int heuristic = arena.heuristicOf(node);
+            metrics.expanded(nodes.size(), visited_states.size(), depth + estimate(heuristic, board));
+            nodes_expanded++;
+
+            // add children with states that weren't expanded yet to the "front-line" nodes
+            // (visited_states prevents "going around in circles")
+            // (the move that undoes the last move leads to the parent, it's already expanded)
+            int children_count = board.childrenInto(children);
+            heuristic_evaluator.loadContext(context, board);
+            for (int i = 0; i < children_count; i++) {
+                State child = children[i];
+                // This probes visited_states a second time for a state (add probes it again when the
+                // child's node is expanded), on purpose: children of already expanded states are not
+                // stored in the arena and the queue, which costs more than the extra lookup, and
+                // visited states can't be inserted here (see above, the shortest path has to win).
+                if (visited_states.contains(child)) {
+                    metrics.duplicates_rejected++;
+                    continue;
+                }
+
+                metrics.nodes_generated++;
+                int child_heuristic = metrics.evaluateChild(heuristic_evaluator, heuristic, context, child);
+                int child_node = arena.add(node, depth + 1, child_heuristic, child);
+                int priority = (depth + 1) * PRIORITY_SCALE + estimate(child_heuristic, child) * weight_scaled;
+                nodes.add(child_node, priority, depth + 1);
+            }
+        }
+
+        // goal state can't be reached from initial state
+        if (!found) {
+            nodes_unexpanded = 0;
+            return null;
+        }
+
+        // moves of nodes are replayed from the initial state to the node that was found having goal state
+        // (when the node has a known path to the goal state, that path is added after it)
+        List<State> solution_states = arena.pathTo(node, initial_state);
+        if (known_distances != null)
+            solution_states.addAll(known_distances.pathToGoal(solution_states.get(solution_states.size() - 1)));
+
+        nodes_unexpanded = nodes.size();
+        return solution_states;
+    }
+
+    private int estimate(int heuristic, State state) {
+        // the heuristic of the node itself stays unchanged, children's heuristics are calculated from it
+        if (known_distances == null)
+            return heuristic;
+        return Math.max(heuristic, known_distances.distanceOf(state));
+    }
+
+    // releases the storage of nodes and visited states (heap structures go back to the pool)
+    void close() {
+        memory.release();
+    }
+
+    long getNodesExpanded() {
+        return nodes_expanded;
+    }
+
+    int getNodesUnexpanded() {
+        return nodes_unexpanded;
+    }
+}
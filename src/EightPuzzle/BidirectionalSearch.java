@@ -0,0 +1,194 @@
+package EightPuzzle;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static EightPuzzle.EightPuzzle.*;
+import static EightPuzzle.State.Direction;
+
+// Bidirectional best-first search
+//
+// Two searches run at the same time: one forward from the initial state towards the goal
+// state, and one backward from the goal state towards the initial state (moves are reversible,
+// so searching backward is the same as searching forward from the goal). Each of them has its
+// own open list and its own map of reached states. When one search generates a state that
+// the other one has already reached, the two paths together form a solution.
+//
+// Without heuristics this is bidirectional uniform cost search (breadth-first search from both
+// ends). A solution of length d is found after each side reached only about depth d/2, which
+// is roughly the square root of the number of states explored by a single search.
+// With heuristics the forward search estimates distance to the goal state and the backward
+// search estimates distance to the initial state (front-to-end bidirectional A*).
+//
+// The side with fewer nodes in its open list is expanded next. Search stops when no undiscovered
+// path can be shorter than the best one found so far:
+//      - every such path has to go through open nodes of both sides, so it's at least
+//        (lowest depth of forward open list + lowest depth of backward open list + 1) long
+//      - with admissible heuristics it's at least the lowest f value of either open list
+class BidirectionalSearch {
+    private final Side forward;
+    private final Side backward;
+
+    // length of the best solution found so far and the state where both paths meet
+    private int best_length = Integer.MAX_VALUE;
+    private State meeting_state;
+
+    private long nodes_expanded = 0;
+    private final SearchLimits limits;
+    private final SearchMetrics metrics;
+
+    BidirectionalSearch(State initial_state, State goal_state, List<Heuristic> heuristics, SearchLimits limits_,
+                        SearchMetrics metrics_) {
+        limits = limits_;
+        metrics = metrics_;
+        forward = new Side(initial_state, new HeuristicEvaluator(goal_state, heuristics));
+        backward = new Side(goal_state, new HeuristicEvaluator(initial_state, heuristics));
+    }
+
+    // returns states leading from initial to goal state, or null if goal can't be reached
+    // (or the search was stopped by limits)
+    List<State> run() {
+        forward.other = backward;
+        backward.other = forward;
+        checkMeeting(forward.root, backward);
+
+        int lower_bound;
+        while (best_length > (lower_bound = lowerBound())) {
+            Side side = forward.open.size() <= backward.open.size() ? forward : backward;
+            if (side.open.isEmpty())
+                side = side.other;
+            if (side.open.isEmpty())
+                break;
+            if (limits.exceeded(nodes_expanded, getNodesUnexpanded() + forward.reached.size() + backward.reached.size()))
+                return null;
+            expand(side, lower_bound);
+        }
+
+        if (meeting_state == null)
+            return null;
+        return joinPaths();
+    }
+
+    private int lowerBound() {
+        // lowest possible length of a path that wasn't discovered yet
+        if (forward.open.isEmpty() || backward.open.isEmpty())
+            return Integer.MAX_VALUE;
+        int depth_bound = forward.lowestOpenDepth() + backward.lowestOpenDepth() + 1;
+        int f_bound = Math.max(forward.open.minF(), backward.open.minF());
+        return Math.max(depth_bound, f_bound);
+    }
+
+    private void expand(Side side, int lower_bound) {
+        Node node = side.open.poll();
+        side.removeOpenDepth(node.depth);
+
+        // skip nodes whose state was reached by a shorter path after they were added
+        if (side.reached.get(node.state) != node) {
+            metrics.duplicates_rejected++;
+            return;
+        }
+
+        nodes_expanded++;
+        metrics.expanded(getNodesUnexpanded(), forward.expanded.size() + backward.expanded.size(), lower_bound);
+        side.evaluator.loadContext(side.context, node.state);
+        int children_count = node.state.childrenInto(side.children);
+        for (int i = 0; i < children_count; i++) {
+            State child = side.children[i];
+            Node previous = side.reached.get(child);
+            if (side.expanded.contains(child) || (previous != null && previous.depth <= node.depth + 1)) {
+                metrics.duplicates_rejected++;
+                continue;
+            }
+
+            metrics.nodes_generated++;
+            // nodes keep their states (in the maps of reached states), so the buffer state is copied
+            Node new_node = new Node(node, node.depth + 1, new State(child));
+            metrics.setHeuristics(new_node, side.evaluator, side.context);
+            side.add(new_node);
+            checkMeeting(new_node, side.other);
+        }
+        side.expanded.add(node.state);
+    }
+
+    private void checkMeeting(Node node, Side other) {
+        Node other_node = other.reached.get(node.state);
+        if (other_node != null && node.depth + other_node.depth < best_length) {
+            best_length = node.depth + other_node.depth;
+            meeting_state = node.state;
+        }
+    }
+
+    private List<State> joinPaths() {
+        // forward part: initial state ... meeting state (following parents of forward nodes)
+        List<State> states = new ArrayList<>();
+        for (Node node = forward.reached.get(meeting_state); node != null; node = node.parent)
+            states.add(0, node.state);
+
+        // backward part: parents of the backward node lead from the meeting state to the goal state,
+        // moves are replayed forward, so states have correct last move and moved value
+        State state = states.get(states.size() - 1);
+        for (Node node = backward.reached.get(meeting_state).parent; node != null; node = node.parent) {
+            state = new State(state);
+            state.move(state.directionTo(node.state));
+            states.add(state);
+        }
+        return states;
+    }
+
+    long getNodesExpanded() {
+        return nodes_expanded;
+    }
+
+    int getNodesUnexpanded() {
+        return forward.open.size() + backward.open.size();
+    }
+
+    // open list, reached states and heuristics of a single direction
+    private static class Side {
+        final HeuristicEvaluator evaluator;
+        // context of the expanded state (see HeuristicEvaluator.Context)
+        final HeuristicEvaluator.Context context;
+        // children of the expanded state are generated into this buffer (see State.childrenInto)
+        final State[] children;
+        final BucketQueue<Node> open = new BucketQueue<>();
+        // best node (lowest depth) of every state reached by this side
+        final Map<State, Node> reached = new HashMap<>();
+        final StateSet expanded = new HeapStateSet();
+        final Node root;
+        Side other;
+
+        // number of open nodes at each depth, used to find the lowest depth in the open list
+        private final List<Integer> open_depth_count = new ArrayList<>();
+        private int lowest_open_depth = 0;
+
+        Side(State start, HeuristicEvaluator evaluator_) {
+            evaluator = evaluator_;
+            context = evaluator.newContext();
+            children = State.newChildBuffer(start);
+            root = new Node(null, 0, start);
+            root.setHeuristics(evaluator, null);
+            add(root);
+        }
+
+        void add(Node node) {
+            reached.put(node.state, node);
+            open.add(node, node.depth + node.heuristic, node.depth);
+            while (open_depth_count.size() <= node.depth)
+                open_depth_count.add(0);
+            open_depth_count.set(node.depth, open_depth_count.get(node.depth) + 1);
+            lowest_open_depth = Math.min(lowest_open_depth, node.depth);
+        }
+
+        void removeOpenDepth(int depth) {
+            open_depth_count.set(depth, open_depth_count.get(depth) - 1);
+        }
+
+        int lowestOpenDepth() {
+            while (open_depth_count.get(lowest_open_depth) == 0)
+                lowest_open_depth++;
+            return lowest_open_depth;
+        }
+    }
+}
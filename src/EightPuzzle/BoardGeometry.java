@@ -0,0 +1,100 @@
+package EightPuzzle;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static EightPuzzle.State.Direction;
+
+// Lookup tables that depend only on the shape of the board (rows x cols).
+// They're computed once per shape and shared by all states/searches of that shape,
+// so heuristics don't have to search for goal positions of values or calculate
+// coordinates of fields over and over again.
+class BoardGeometry {
+    private static final Map<Integer, BoardGeometry> cache = new ConcurrentHashMap<>();
+
+    final int rows;
+    final int cols;
+    final int size;
+
+    // row/column of each field index (index = row * cols + col)
+    final int[] row_of;
+    final int[] col_of;
+
+    // manhattan distance between every pair of fields
+    final int[][] distance;
+
+    // indices of neighboring fields (up, down, left, right)
+    final int[][] neighbors;
+
+    // possible moves for each position of the empty space (index), in the order RIGHT, LEFT, UP, DOWN,
+    // the arrays are shared - callers must not modify them
+    final Direction[][] moves;
+    // index of the field whose value moves into the empty space, for each position of the empty space
+    // and Direction ordinal (-1 if the move isn't possible)
+    final int[][] move_source;
+
+    // goal state of this shape: values 1..size-1 in order and empty space (0) in the last field
+    final int[] goal_index_of_value;
+    final int[] goal_value_at;
+
+    static BoardGeometry of(int rows, int cols) {
+        return cache.computeIfAbsent(rows * (State.MAX_SIZE + 1) + cols, key -> new BoardGeometry(rows, cols));
+    }
+
+    private BoardGeometry(int rows_, int cols_) {
+        rows = rows_;
+        cols = cols_;
+        size = rows * cols;
+
+        row_of = new int[size];
+        col_of = new int[size];
+        for (int i = 0; i < size; i++) {
+            row_of[i] = i / cols;
+            col_of[i] = i % cols;
+        }
+
+        distance = new int[size][size];
+        for (int a = 0; a < size; a++)
+            for (int b = 0; b < size; b++)
+                distance[a][b] = Math.abs(row_of[a] - row_of[b]) + Math.abs(col_of[a] - col_of[b]);
+
+        neighbors = new int[size][];
+        for (int i = 0; i < size; i++) {
+            int[] n = new int[4];
+            int count = 0;
+            if (row_of[i] != 0)        n[count++] = i - cols;
+            if (row_of[i] != rows - 1) n[count++] = i + cols;
+            if (col_of[i] != 0)        n[count++] = i - 1;
+            if (col_of[i] != cols - 1) n[count++] = i + 1;
+            neighbors[i] = Arrays.copyOf(n, count);
+        }
+
+        moves = new Direction[size][];
+        move_source = new int[size][Direction.values().length];
+        for (int i = 0; i < size; i++) {
+            Arrays.fill(move_source[i], -1);
+            // a value moves right into the empty space from its left side, etc.
+            if (col_of[i] != 0)        move_source[i][Direction.RIGHT.ordinal()] = i - 1;
+            if (col_of[i] != cols - 1) move_source[i][Direction.LEFT.ordinal()] = i + 1;
+            if (row_of[i] != rows - 1) move_source[i][Direction.UP.ordinal()] = i + cols;
+            if (row_of[i] != 0)        move_source[i][Direction.DOWN.ordinal()] = i - cols;
+
+            Direction[] m = new Direction[4];
+            int count = 0;
+            for (Direction dir : new Direction[] { Direction.RIGHT, Direction.LEFT, Direction.UP, Direction.DOWN })
+                if (move_source[i][dir.ordinal()] >= 0)
+                    m[count++] = dir;
+            moves[i] = Arrays.copyOf(m, count);
+        }
+
+        goal_index_of_value = new int[size];
+        goal_value_at = new int[size];
+        for (int i = 0; i < size - 1; i++) {
+            goal_value_at[i] = i + 1;
+            goal_index_of_value[i + 1] = i;
+        }
+        goal_value_at[size - 1] = 0;
+        goal_index_of_value[0] = size - 1;
+    }
+}
@@ -0,0 +1,89 @@
+package EightPuzzle;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Open list of best-first search ordered by integer f = depth + heuristic.
+//
+// Instead of a binary heap (PriorityQueue, O(log n) per push/poll) items are kept in
+// buckets indexed by f, and inside each f bucket by depth. Push appends to a bucket and
+// poll takes from the lowest f bucket, both in O(1) (amortized).
+//
+// Among nodes with equal f the deepest one is polled first. Nodes with equal f are equally
+// promising for A*, but deeper ones are closer to the goal (their heuristic is lower), so
+// large "plateaus" of equal f are not explored breadth-first before reaching the goal.
+// Inside a single (f, depth) bucket the last added item is polled first.
+class BucketQueue<T> {
+    // buckets.get(f).get(depth) - items with that f and depth
+    private final List<List<List<T>>> buckets = new ArrayList<>();
+    // highest depth that may be non-empty for each f
+    private final List<Integer> max_depth = new ArrayList<>();
+
+    // lowest f that may be non-empty
+    private int min_f = Integer.MAX_VALUE;
+    private int size = 0;
+
+    void add(T item, int f, int depth) {
+        while (buckets.size() <= f) {
+            buckets.add(new ArrayList<>());
+            max_depth.add(-1);
+        }
+        List<List<T>> f_bucket = buckets.get(f);
+        while (f_bucket.size() <= depth)
+            f_bucket.add(new ArrayList<>());
+
+        f_bucket.get(depth).add(item);
+        if (depth > max_depth.get(f))
+            max_depth.set(f, depth);
+        if (f < min_f)
+            min_f = f;
+        size++;
+    }
+
+    // returns item with the lowest f (deepest one among them) or null if the queue is empty
+    T poll() {
+        if (size == 0)
+            return null;
+
+        while (true) {
+            List<List<T>> f_bucket = buckets.get(min_f);
+            int depth = max_depth.get(min_f);
+            while (depth >= 0 && f_bucket.get(depth).isEmpty())
+                depth--;
+            max_depth.set(min_f, depth);
+
+            if (depth >= 0) {
+                List<T> items = f_bucket.get(depth);
+                size--;
+                return items.remove(items.size() - 1);
+            }
+            min_f++;
+        }
+    }
+
+    // lowest f of items in the queue (Integer.MAX_VALUE if empty)
+    int minF() {
+        if (size == 0)
+            return Integer.MAX_VALUE;
+        while (max_depth.get(min_f) < 0 || bucketEmpty(min_f))
+            min_f++;
+        return min_f;
+    }
+
+    private boolean bucketEmpty(int f) {
+        List<List<T>> f_bucket = buckets.get(f);
+        int depth = max_depth.get(f);
+        while (depth >= 0 && f_bucket.get(depth).isEmpty())
+            depth--;
+        max_depth.set(f, depth);
+        return depth < 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+}
@@ -0,0 +1,15 @@
+package EightPuzzle;
+
+// Allows to stop a running solve from another thread (e.g. GUI "Cancel" button).
+// The search checks it on every expanded node and returns SolveResult.CANCELLED.
+public class CancellationToken {
+    private volatile boolean cancelled = false;
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -0,0 +1,125 @@
+package EightPuzzle;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Exact distances to the goal state of every state of a board shape, written by DistanceTableBuilder.
+//
+// File layout:
+//      0   "DST2"
+//      4   rows, cols (a byte each)
+//      6   2 unused bytes
+//      8   one byte for each state of the solvable half of the shape, at index (8 + indexOf(state)):
+//          distance + 1, or 0 for states that can't reach the goal state
+// States themselves are not stored, the index of a state is its position in the file. Only half of
+// all permutations can reach the goal state (see indexOf), so a table of 3x4 boards takes 12!/2 bytes
+// (~240MB). The file is mapped into memory, the operating system loads only the pages that are read.
+//
+// Distances are exact, so a table can be used as a perfect heuristic, or to check that a solver
+// returns the shortest solutions.
+public class DistanceTable {
+    static final int HEADER_BYTES = 8;
+    static final byte[] MAGIC = { 'D', 'S', 'T', '2' };
+
+    private final OffHeapMemory memory;
+    private final int rows;
+    private final int cols;
+
+    private DistanceTable(OffHeapMemory memory_, int rows_, int cols_) {
+        memory = memory_;
+        rows = rows_;
+        cols = cols_;
+    }
+
+    public static DistanceTable open(Path path) throws IOException {
+        OffHeapMemory memory = OffHeapMemory.openFile(path, false);
+        memory.ensureCapacity(Files.size(path));
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (memory.getByte(i) != MAGIC[i]) {
+                memory.close();
+                throw new IOException("Not a distance table file: " + path);
+            }
+        }
+        return new DistanceTable(memory, memory.getByte(4), memory.getByte(5));
+    }
+
+    // number of bytes of a table of boards with "fields" fields
+    static long fileSize(int fields) {
+        return HEADER_BYTES + fields * halfOfTilePermutations(fields - 1);
+    }
+
+    // half of the permutations of "tiles" tiles (1 for a single tile, it has only one permutation)
+    private static long halfOfTilePermutations(int tiles) {
+        long permutations = 1;
+        for (int i = 2; i <= tiles; i++)
+            permutations *= i;
+        return (permutations + 1) / 2;
+    }
+
+    // Index of a state (values packed with 4 bits per field, boards up to 16 fields) in the table,
+    // or -1 if the state is in the half of the permutations that can't reach the goal state.
+    //
+    // States are ordered by the position of the empty space, then by the lexicographic rank of the
+    // order of the tiles (the empty space is skipped). Each tile adds the number of smaller tiles that
+    // weren't used by previous tiles, in factorial base, and these numbers sum up to the number of
+    // inversions of the tiles. Ranks 2k and 2k + 1 differ only in the order of the last 2 tiles, so
+    // exactly one of them has an even number of inversions, and rank / 2 numbers each half on its own.
+    //
+    // A horizontal move doesn't change the order of the tiles, a vertical move moves a tile over cols - 1
+    // others, so the parity of inversions of every reachable state is (cols - 1) * (rows of the empty
+    // space above the goal row), and the other half is never stored.
+    static long indexOf(long packed_lo, int rows, int cols) {
+        int fields = rows * cols;
+        int tiles = fields - 1;
+        long rank = 0;
+        int inversions = 0;
+        int blank_index = 0;
+        int unused = (1 << fields) - 1;
+        int tile = 0;
+        for (int i = 0; i < fields; i++) {
+            int value = (int)(packed_lo >>> (i * 4)) & 0xF;
+            if (value == 0) {
+                blank_index = i;
+                continue;
+            }
+            int smaller = Integer.bitCount(unused & ((1 << value) - 2));
+            rank = rank * (tiles - tile) + smaller;
+            inversions += smaller;
+            unused &= ~(1 << value);
+            tile++;
+        }
+
+        int goal_parity = (cols - 1) * (rows - 1 - blank_index / cols) & 1;
+        if ((inversions & 1) != goal_parity)
+            return -1;
+        return blank_index * halfOfTilePermutations(tiles) + rank / 2;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    // number of moves of the shortest solution, or -1 if the goal state can't be reached
+    public int distanceOf(int[][] values) {
+        if (values.length != rows || values[0].length != cols)
+            throw new IllegalArgumentException(String.format("Table of %dx%d boards can't be used for %dx%d board.",
+                    rows, cols, values.length, values[0].length));
+        return distanceOf(new State(values));
+    }
+
+    int distanceOf(State state) {
+        long index = indexOf(state.packedLow(), rows, cols);
+        if (index < 0)
+            return -1;
+        return (memory.getByte(HEADER_BYTES + index) & 0xFF) - 1;
+    }
+
+    public void close() {
+        memory.close();
+    }
+}
@@ -0,0 +1,264 @@
+package EightPuzzle;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import static EightPuzzle.State.Direction;
+
+// Breadth-first search of the whole state space of a board shape, from the goal state, with layers kept
+// on the disk. It writes a DistanceTable file and returns the number of states at each distance.
+//
+// Only 3 layers exist at once: the previous one, the one that's expanded and the next one. Every move
+// changes the parity of the blank position, so children of a state at distance d are at distance d - 1
+// or d + 1 - the next layer is the set of children that are not in the previous layer
+// (breadth-first frontier search, no set of all visited states is kept).
+//
+// Duplicates are removed later instead of when children are generated (delayed duplicate detection):
+//      1. children of the expanded layer are collected in a buffer, when it's full it's sorted,
+//         its duplicates are removed and it's written to a run file
+//      2. all run files and the previous layer (all sorted) are merged, every state is written to
+//         the next layer once and only if it's not in the previous layer
+// So memory is limited by the buffer size, and the disk holds ~3 layers plus run files of one layer.
+//
+// Layer and run files hold the packed low word of each state (8 bytes, boards have at most 16 fields).
+// The table has a byte for every permutation of the fields that can reach the goal state (half of them),
+// so boards are limited to MAX_FIELDS fields (3x4 takes ~240MB, the next shape that State supports - 3x5 -
+// would take ~650GB).
+public class DistanceTableBuilder {
+    public static final int MAX_FIELDS = 12;
+    private static final int IO_BUFFER_SIZE = 1 << 16;
+
+    private final int rows;
+    private final int cols;
+    private final int fields;
+    private final Path work_directory;
+    // number of states sorted in memory at once
+    private final int buffer_states;
+
+    // the only State objects of the search (see BestFirstSearch.java)
+    private final State parent;
+    private final State[] children;
+
+    public DistanceTableBuilder(int rows_, int cols_, Path work_directory_, int buffer_states_) {
+        rows = rows_;
+        cols = cols_;
+        fields = rows * cols;
+        if (fields > MAX_FIELDS || fields < 2)
+            throw new IllegalArgumentException(
+                    String.format("Distance table of %dx%d boards can't be built (2-%d fields).", rows, cols, MAX_FIELDS));
+        work_directory = work_directory_;
+        buffer_states = buffer_states_;
+
+        int[][] goal_values = new int[rows][cols];
+        for (int i = 0; i < fields - 1; i++)
+            goal_values[i / cols][i % cols] = i + 1;
+        parent = new State(goal_values);
+        children = State.newChildBuffer(parent);
+    }
+
+    // writes the table to "output", returns the number of states at each distance (index)
+    public long[] build(Path output) throws IOException {
+        Files.deleteIfExists(output);
+        OffHeapMemory table = OffHeapMemory.openFile(output, true);
+        List<Path> files = new ArrayList<>();
+        List<Long> counts = new ArrayList<>();
+        try {
+            table.ensureCapacity(DistanceTable.fileSize(fields));
+            for (int i = 0; i < DistanceTable.MAGIC.length; i++)
+                table.putByte(i, DistanceTable.MAGIC[i]);
+            table.putByte(4, (byte)rows);
+            table.putByte(5, (byte)cols);
+
+            // layer 0 is the goal state
+            Path previous = null;
+            Path current = newFile("layer", files);
+            try (DataOutputStream out = writer(current)) {
+                out.writeLong(parent.packedLow());
+            }
+            record(table, parent.packedLow(), 0);
+            counts.add(1L);
+
+            while (true) {
+                int distance = counts.size();
+                List<Path> runs = expand(current, files);
+                Path next = newFile("layer", files);
+                long count = merge(runs, previous, next, table, distance);
+                for (Path run : runs)
+                    delete(run, files);
+                if (count == 0) {
+                    delete(next, files);
+                    break;
+                }
+                counts.add(count);
+
+                if (previous != null)
+                    delete(previous, files);
+                previous = current;
+                current = next;
+            }
+        } finally {
+            table.close();
+            for (Path file : files)
+                Files.deleteIfExists(file);
+        }
+
+        long[] result = new long[counts.size()];
+        for (int i = 0; i < result.length; i++)
+            result[i] = counts.get(i);
+        return result;
+    }
+
+    private void record(OffHeapMemory table, long packed_lo, int distance) {
+        // the table stores distance + 1 (0 is a state that wasn't reached)
+        if (distance + 1 > 0xFF)
+            throw new IllegalStateException("Distance " + distance + " doesn't fit the table.");
+        // (every reached state is in the half of the permutations that the table stores)
+        table.putByte(DistanceTable.HEADER_BYTES + DistanceTable.indexOf(packed_lo, rows, cols), (byte)(distance + 1));
+    }
+
+    // writes children of all states of the layer into sorted run files without duplicates
+    private List<Path> expand(Path layer, List<Path> files) throws IOException {
+        List<Path> runs = new ArrayList<>();
+        long[] buffer = new long[buffer_states];
+        int count = 0;
+        try (DataInputStream in = reader(layer)) {
+            long packed_lo;
+            while ((packed_lo = readState(in)) != -1) {
+                // blank index isn't stored, it's found by its value
+                int blank_index = 0;
+                while (((packed_lo >>> (blank_index * 4)) & 0xF) != 0)
+                    blank_index++;
+                parent.load(packed_lo, 0, blank_index, Direction.NONE);
+
+                // (the last move is not known, so all children are generated)
+                int children_count = parent.childrenInto(children);
+                for (int i = 0; i < children_count; i++) {
+                    if (count == buffer.length) {
+                        runs.add(writeRun(buffer, count, files));
+                        count = 0;
+                    }
+                    buffer[count++] = children[i].packedLow();
+                }
+            }
+        }
+        if (count > 0)
+            runs.add(writeRun(buffer, count, files));
+        return runs;
+    }
+
+    private Path writeRun(long[] buffer, int count, List<Path> files) throws IOException {
+        Arrays.sort(buffer, 0, count);
+        Path run = newFile("run", files);
+        try (DataOutputStream out = writer(run)) {
+            for (int i = 0; i < count; i++)
+                if (i == 0 || buffer[i] != buffer[i - 1])
+                    out.writeLong(buffer[i]);
+        }
+        return run;
+    }
+
+    // merges sorted runs into the next layer (without states of the previous layer), returns its size
+    private long merge(List<Path> runs, Path previous, Path next, OffHeapMemory table, int distance) throws IOException {
+        PriorityQueue<RunReader> queue = new PriorityQueue<>((a, b) -> Long.compare(a.current, b.current));
+        RunReader previous_layer = null;
+        long count = 0;
+        try (DataOutputStream out = writer(next)) {
+            for (Path run : runs) {
+                RunReader reader = new RunReader(run);
+                if (reader.current != -1)
+                    queue.add(reader);
+                else
+                    reader.close();
+            }
+            if (previous != null)
+                previous_layer = new RunReader(previous);
+
+            long last = -1;
+            while (!queue.isEmpty()) {
+                RunReader reader = queue.poll();
+                long state = reader.current;
+                if (reader.advance())
+                    queue.add(reader);
+                else
+                    reader.close();
+
+                // the same state from different runs
+                if (state == last)
+                    continue;
+                last = state;
+
+                // both are sorted, so the previous layer is read only once
+                if (previous_layer != null) {
+                    while (previous_layer.current != -1 && previous_layer.current < state)
+                        previous_layer.advance();
+                    if (previous_layer.current == state)
+                        continue;
+                }
+
+                out.writeLong(state);
+                record(table, state, distance);
+                count++;
+            }
+        } finally {
+            for (RunReader reader : queue)
+                reader.close();
+            if (previous_layer != null)
+                previous_layer.close();
+        }
+        return count;
+    }
+
+    private Path newFile(String prefix, List<Path> files) throws IOException {
+        Path file = Files.createTempFile(work_directory, prefix, ".bin");
+        files.add(file);
+        return file;
+    }
+
+    private static void delete(Path file, List<Path> files) throws IOException {
+        Files.deleteIfExists(file);
+        files.remove(file);
+    }
+
+    private static DataOutputStream writer(Path file) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), IO_BUFFER_SIZE));
+    }
+
+    private static DataInputStream reader(Path file) throws IOException {
+        return new DataInputStream(new BufferedInputStream(Files.newInputStream(file), IO_BUFFER_SIZE));
+    }
+
+    // returns -1 at the end of the file (packed states are never negative, they use at most 52 bits)
+    private static long readState(DataInputStream in) throws IOException {
+        try {
+            return in.readLong();
+        } catch (EOFException e) {
+            return -1;
+        }
+    }
+
+    // sorted file with its current state (-1 after the last one)
+    private static class RunReader implements Closeable {
+        final DataInputStream in;
+        long current;
+
+        RunReader(Path file) throws IOException {
+            in = reader(file);
+            current = readState(in);
+        }
+
+        boolean advance() throws IOException {
+            current = readState(in);
+            return current != -1;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
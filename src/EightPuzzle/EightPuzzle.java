@@ -1,31 +1,90 @@
 package EightPuzzle;
 
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 
 public class EightPuzzle {
 
     // Detailed comments about each of these heuristics can be found in
-    // Node.java file (setHeuristics method)
+    // HeuristicEvaluator.java file (evaluate method), PatternDatabase.java,
+    // LinearConflict.java and WalkingDistance.java
+    // (LINEAR_CONFLICT is manhattan distance + linear conflict penalty, it can be selected alone)
+    // (MANHATTAN_DISTANCE and MISMATCH_COUNT don't count the empty space, counting it made them
+    // overestimate the remaining moves, so A* with them alone wasn't guaranteed to be optimal)
     public enum Heuristic {
-        MANHATTAN_DISTANCE, MISMATCH_COUNT, DIRECT_REVERSE_PENALTY
+        MANHATTAN_DISTANCE, MISMATCH_COUNT, DIRECT_REVERSE_PENALTY, PATTERN_DATABASE,
+        LINEAR_CONFLICT, WALKING_DISTANCE
     }
 
-    private State goal_state;
-    private List<Heuristic> heuristics = new ArrayList<>();
+    // A_STAR - best-first search with all generated nodes kept in memory
+    //          (uniform cost search when no heuristics are selected)
+    // IDA_STAR - iterative deepening A*, memory grows only with the depth of the solution
+    //            (see IdaStarSearch.java)
+    // BIDIRECTIONAL - searches from both initial and goal state until they meet
+    //                 (see BidirectionalSearch.java)
+    // HDA_STAR - parallel A*, states are divided between worker threads by their hash
+    //            (see HdaStarSearch.java)
+    // WEIGHTED_A_STAR - A* with heuristic multiplied by weight (see setWeight), finds a solution
+    //                   faster, but it can be up to "weight" times longer than the shortest one
+    // ARA_STAR - anytime A*, finds a weighted A* solution first and improves it until it's the shortest
+    //            one or the budget runs out (see AraStarSearch.java)
+    // PARALLEL_IDA_STAR - IDA* with subtrees of each iteration searched by worker threads
+    //                     (see ParallelIdaStarSearch.java)
+    public enum Algorithm {
+        A_STAR, IDA_STAR, BIDIRECTIONAL, HDA_STAR, WEIGHTED_A_STAR, ARA_STAR, PARALLEL_IDA_STAR
+    }
+
+    // SOLVED - solution_states lead from the initial state to the goal state
+    // UNSOLVABLE - goal state can't be reached from the initial state (or the initial state is invalid)
+    // BUDGET_EXCEEDED - search was stopped by one of the limits of SearchBudget
+    // CANCELLED - search was stopped by CancellationToken
+    public enum SolveResult {
+        SOLVED, UNSOLVABLE, BUDGET_EXCEEDED, CANCELLED
+    }
+
+    // Where A_STAR, WEIGHTED_A_STAR and ARA_STAR keep their nodes and visited states (see setStorage)
+    // HEAP - arrays on the Java heap
+    // OFF_HEAP - direct ByteBuffers, the garbage collector doesn't have to scan or copy them,
+    //            their size is limited by -XX:MaxDirectMemorySize instead of -Xmx
+    // MAPPED_FILE - temporary files mapped into memory (see setStorageDirectory), the operating system
+    //               keeps the pages that are used in RAM, searches are limited by free disk space
+    // (see OffHeapMemory.java)
+    public enum StorageMode {
+        HEAP, OFF_HEAP, MAPPED_FILE
+    }
 
-    private int nodes_expanded = 0;
+    // Queues need integer priorities, weighted priorities (depth + weight * heuristic) are
+    // multiplied by PRIORITY_SCALE, so weights are used with precision of 1/16.
+    static final int PRIORITY_SCALE = 16;
 
-    // This will prevent expanding previously expanded nodes,
-    // without it the code could "run around in circles" indefinitely
-    // It is equivalent to "visited" list from this video: https://www.youtube.com/watch?v=dRMvK76xQJI
-    Set<State> visited_states = new HashSet<>();
 
-    // Result variables
-    int completion_time;
-    List<State> solution_states;
+    // Settings of the solves of this object. Setters replace it with a changed copy (see SolverConfig.java),
+    // a solve reads it once when it starts, so changing settings doesn't affect solves that are running.
+    private volatile SolverConfig config;
+    // Result of the last finished solve of this object (returned by the getters). Solves themselves don't
+    // share anything (see solve(SolverConfig, ...)), so this object can run overlapping solves from
+    // different threads, each one gets its own SolveReport from solveAsync or solve(SolverConfig, ...).
+    private volatile SolveReport last_report = SolveReport.empty();
+
+    // Executor of solveAsync, shared by all solves (virtual threads if the JVM has them, see SolverThreads.java)
+    private static final ExecutorService async_executor = SolverThreads.newPerTaskExecutor("EightPuzzle solver");
 
     public EightPuzzle() {
-        solution_states = new ArrayList<State>();
+        this(SolverConfig.defaults());
+    }
+
+    public EightPuzzle(SolverConfig config_) {
+        config = config_;
+    }
+
+    public SolverConfig getConfig() {
+        return config;
+    }
+
+    public void setConfig(SolverConfig config_) {
+        config = config_;
     }
 
     public void setHeuristics(List<Heuristic> heuristics_) {
@@ -36,87 +95,262 @@ public class EightPuzzle {
 
         // The use of heuristics is what differentiates uniform
         // cost search (not used) from A* search (used).
-        heuristics = heuristics_;
+        config = config.withHeuristics(heuristics_);
+    }
+
+    public void setAlgorithm(Algorithm algorithm_) {
+        config = config.withAlgorithm(algorithm_);
+    }
+
+    public void setBudget(SearchBudget budget_) {
+        config = config.withBudget(budget_);
+    }
+
+    // weight of the heuristic used by WEIGHTED_A_STAR (initial weight of ARA_STAR)
+    public void setWeight(double weight_) {
+        config = config.withWeight(weight_);
+    }
+
+    // Storage of nodes and visited states of the next solves. Off-heap memory that can't be allocated
+    // (or a temporary file that can't be created) stops the solve with an exception.
+    public void setStorage(StorageMode storage_) {
+        config = config.withStorage(storage_);
+    }
+
+    // temporary files of MAPPED_FILE storage are created here
+    public void setStorageDirectory(Path storage_directory_) {
+        config = config.withStorageDirectory(storage_directory_);
+    }
+
+    // number of worker threads used by parallel algorithms
+    public void setThreads(int threads_) {
+        config = config.withThreads(threads_);
+    }
+
+    // solutions of previous solves, null if they're not kept (see SolutionCache.java)
+    public void setSolutionCache(SolutionCache solution_cache_) {
+        config = config.withSolutionCache(solution_cache_);
+    }
+
+    // receives statistics while the search runs (see SearchListener.java), null if not used
+    public void setSearchListener(SearchListener search_listener_, long progress_interval_ms_) {
+        config = config.withSearchListener(search_listener_, progress_interval_ms_);
+    }
+
+    // statistics are printed to the console after each solve (batch solving turns it off,
+    // many solves running at the same time would mix their output)
+    public void setPrintStatistics(boolean print_statistics_) {
+        config = config.withPrintStatistics(print_statistics_);
+    }
+
+    public SolveResult solve(int[][] initial_state_) {
+        return solve(initial_state_, new CancellationToken());
+    }
+
+    public SolveResult solve(int[][] initial_state_, CancellationToken cancellation_token) {
+        SolveReport report = solve(config, initial_state_, cancellation_token);
+        last_report = report;
+        return report.getResult();
+    }
+
+    // solves the board in the background with the current settings of this object
+    // (getters of this object are not updated, the report is the result)
+    public CompletableFuture<SolveReport> solveAsync(int[][] initial_state_, CancellationToken cancellation_token) {
+        return solveAsync(config, initial_state_, cancellation_token);
     }
 
-    public boolean solve(int[][] initial_state_) {
+    // Solves the board in the background (see async_executor). The future completes with the report,
+    // or exceptionally when the search failed (e.g. off-heap memory couldn't be allocated). Cancelling
+    // the future cancels the token, so the search stops too.
+    public static CompletableFuture<SolveReport> solveAsync(SolverConfig config, int[][] initial_state_,
+                                                            CancellationToken cancellation_token) {
+        // the caller may change its array while the solve waits for a thread
+        int[][] values = new int[initial_state_.length][];
+        for (int i = 0; i < values.length; i++)
+            values[i] = initial_state_[i].clone();
 
-        setGoalStateFromInitialState(initial_state_);
+        CompletableFuture<SolveReport> future = CompletableFuture.supplyAsync(
+                () -> solve(config, values, cancellation_token), async_executor);
+        future.whenComplete((report, error) -> {
+            if (future.isCancelled())
+                cancellation_token.cancel();
+        });
+        return future;
+    }
+
+    // Solves the board in the calling thread. Everything the solve changes is local to the call
+    // (its search object, limits, metrics and report), the config can't change, and the shared parts
+    // (SolutionCache, pattern databases and other heuristic tables) are thread-safe, so any number
+    // of solves can run at the same time.
+    public static SolveReport solve(SolverConfig config, int[][] initial_state_, CancellationToken cancellation_token) {
 
         long start_time = System.currentTimeMillis();
 
-        // nodes is ordered starting with the most likely to result in solution (after expanding them)
-        // PriorityQueue automatically sorts Nodes when inserted, the same queue is used for
-        // uniform cost search and A* with different heuristics, so how does it know which Node should be first?
-        // It knows it thanks to the fact that "Node" class implements "Comparable" interface and overrides
-        // "compareTo" method which determines order of nodes in the PriorityQueue. It does that by adding
-        // depth of a node to heuristic value (in case of uniform cost search the heuristic value is 0)
-        PriorityQueue<Node> nodes = new PriorityQueue<Node>();
-        //List<String> path = new ArrayList<>();
-
-        visited_states.clear();
-        nodes_expanded = 0;
-
-        // create first node with initial state
-        Node node = new Node(null, 0, new State(initial_state_));
-
-        // avoid visiting initial node
-        visited_states.add(node.state);
-
-        while (!node.state.equals(goal_state)) {
-            // get list of possible nodes/states and
-            // - add them to the "front-line" nodes
-            // - add their states to previously visited states
-            expand(node).forEach(n -> { nodes.add(n); visited_states.add(n.state); });
-
-            // get the node that is the most promising (from PriorityQueue)
-            //      - in case of uniform case search it's the lowest depth node
-            //      - in case of A* it's the lowest value of combined depth + chosen heuristics
-            node = nodes.poll();
+        Algorithm algorithm = config.getAlgorithm();
+        List<Heuristic> heuristics = config.getHeuristics();
+        SolutionCache solution_cache = config.getSolutionCache();
+        SearchMetrics metrics = new SearchMetrics(config.getSearchListener(), config.getProgressIntervalMs(), start_time);
+
+        // Exactly half of all boards can't reach the goal state, searching them would visit
+        // all reachable states before giving up, so they're rejected before the search starts.
+        if (!isSolvable(initial_state_)) {
+            long completion_time = System.currentTimeMillis() - start_time;
+            if (config.getPrintStatistics())
+                System.out.printf("Puzzle can't be solved (checked in %dms).\n", completion_time);
+            SearchStatistics statistics = metrics.reportFinished(algorithm, SolveResult.UNSOLVABLE);
+            return new SolveReport(SolveResult.UNSOLVABLE, new ArrayList<>(), 0, 0, completion_time, statistics);
         }
 
-        // backtrack from the node that was found having goal state
-        // all the way back to the first node (having initial state)
-        solution_states.clear();
-        while (node.parent != null) {
-            //path.add(0, node.state.toString());
-            //path.add(0, Integer.toString(node.state.getValueThatMoved()));
-            solution_states.add(0, node.state);
-            node = node.parent;
+        State goal_state = goalStateFor(initial_state_);
+        HeuristicEvaluator heuristic_evaluator = new HeuristicEvaluator(goal_state, heuristics);
+        State initial_state = new State(initial_state_);
+        SearchLimits limits = new SearchLimits(config.getBudget(), cancellation_token, start_time);
+
+        List<State> found_states;
+        long nodes_expanded = 0;
+        long nodes_unexpanded = 0;
+        if (solution_cache != null && (found_states = solution_cache.getSolution(initial_state, algorithm, heuristics)) != null) {
+            // the same board was solved before with the same settings
+            nodes_expanded = 0;
+            nodes_unexpanded = 0;
+        } else if (algorithm == Algorithm.IDA_STAR) {
+            IdaStarSearch search = new IdaStarSearch(initial_state, goal_state, heuristic_evaluator, limits, metrics,
+                    solution_cache);
+            found_states = search.run();
+            nodes_expanded = search.getNodesExpanded();
+            nodes_unexpanded = 0;
+        } else if (algorithm == Algorithm.PARALLEL_IDA_STAR) {
+            ParallelIdaStarSearch search = new ParallelIdaStarSearch(initial_state, goal_state, heuristic_evaluator,
+                    limits, metrics, solution_cache, config.getThreads());
+            found_states = search.run();
+            nodes_expanded = search.getNodesExpanded();
+            nodes_unexpanded = 0;
+        } else if (algorithm == Algorithm.BIDIRECTIONAL) {
+            BidirectionalSearch search = new BidirectionalSearch(initial_state, goal_state, heuristics, limits, metrics);
+            found_states = search.run();
+            nodes_expanded = search.getNodesExpanded();
+            nodes_unexpanded = search.getNodesUnexpanded();
+        } else if (algorithm == Algorithm.HDA_STAR) {
+            HdaStarSearch search = new HdaStarSearch(initial_state, goal_state, heuristic_evaluator, limits, metrics,
+                    solution_cache, config.getThreads());
+            found_states = search.run();
+            nodes_expanded = search.getNodesExpanded();
+            nodes_unexpanded = search.getNodesUnexpanded();
+        } else if (algorithm == Algorithm.ARA_STAR) {
+            AraStarSearch search = new AraStarSearch(initial_state, goal_state, heuristic_evaluator, limits, metrics,
+                    config.getSearchListener(), config.getWeight(), config.getStorage(), config.getStorageDirectory());
+            try {
+                found_states = search.run();
+                nodes_expanded = search.getNodesExpanded();
+                nodes_unexpanded = search.getNodesUnexpanded();
+            } finally {
+                search.close();
+            }
+        } else {
+            // weighted A* is A* with the heuristic multiplied by the weight
+            int weight_scaled = algorithm == Algorithm.WEIGHTED_A_STAR ? scaledWeight(config.getWeight()) : PRIORITY_SCALE;
+            BestFirstSearch search = new BestFirstSearch(initial_state, goal_state, heuristic_evaluator, limits, metrics,
+                    solution_cache, weight_scaled, config.getStorage(), config.getStorageDirectory());
+            try {
+                found_states = search.run();
+                nodes_expanded = search.getNodesExpanded();
+                nodes_unexpanded = search.getNodesUnexpanded();
+            } finally {
+                search.close();
+            }
         }
-        solution_states.add(0, node.state);
-
-        completion_time = (int)(System.currentTimeMillis() - start_time);
-        System.out.printf("Solution took %dms.\n", completion_time);
-        System.out.printf("%d Moves\n", solution_states.size()-1);
-        System.out.printf("%d Nodes expanded\n", nodes_expanded);
-        System.out.printf("%d Nodes unexpanded\n", nodes.size());
-        return true;
-    }
-
-    List<Node> expand(Node node) {
-        // generates and returns all possible new nodes based
-        // on all possible movements, it uses "visited_states"
-        // set to prevent creating Nodes that were previously seen
-        List<Node> new_nodes = new ArrayList<>();
-
-        // "Set<State>visited_states" is supplied to prevent "going around in circles"
-        // Nodes with states already visited are not created
-        node.state.possibleNewStates(visited_states).forEach(new_state-> {
-            new_nodes.add(new Node(node, node.depth + 1, new_state));
-            visited_states.add(new_state);
-        });
 
-        for (Node n : new_nodes)
-            n.setHeuristics(goal_state, heuristics);
+        long completion_time = System.currentTimeMillis() - start_time;
+
+        if (found_states == null) {
+            // search was stopped by limits, or it ran out of nodes to expand (goal state is not reachable)
+            SolveResult result = limits.getStopReason() != null ? limits.getStopReason() : SolveResult.UNSOLVABLE;
+            SearchStatistics statistics = metrics.reportFinished(algorithm, result);
+            if (config.getPrintStatistics()) {
+                System.out.printf("No solution found after %dms (%s).\n", completion_time, result);
+                System.out.printf("%d Nodes expanded\n", nodes_expanded);
+            }
+            return new SolveReport(result, new ArrayList<>(), nodes_expanded, nodes_unexpanded, completion_time, statistics);
+        }
 
-        nodes_expanded++;
-        return new_nodes;
+        SearchStatistics statistics = metrics.reportFinished(algorithm, SolveResult.SOLVED);
+        // solutions of weighted and anytime searches depend on the weight and budget, they're not kept
+        if (solution_cache != null && algorithm != Algorithm.WEIGHTED_A_STAR && algorithm != Algorithm.ARA_STAR)
+            solution_cache.putSolution(algorithm, heuristics, found_states);
+        if (config.getPrintStatistics()) {
+            System.out.printf("Solution took %dms.\n", completion_time);
+            System.out.printf("%d Moves\n", found_states.size()-1);
+            System.out.printf("%d Nodes expanded\n", nodes_expanded);
+            System.out.printf("%d Nodes unexpanded\n", nodes_unexpanded);
+        }
+        return new SolveReport(SolveResult.SOLVED, found_states, nodes_expanded, nodes_unexpanded, completion_time, statistics);
     }
 
-    public void setGoalStateFromInitialState(int[][] initial_state_values) {
-        // It allows the user/developer to change
-        // goal state after creation of EightPuzzle class.
+    public static boolean isSolvable(int[][] initial_state_values) {
+        // Every move swaps the empty space with a neighboring value, so it changes
+        // the parity of the permutation of fields (a single swap) and the parity of
+        // manhattan distance of the empty space from its goal position (moves by 1).
+        // Both parities are equal in the goal state, so they have to be equal in every
+        // state that can reach it. Permutation parity is calculated in O(n) by counting
+        // cycles of the permutation (parity = (n - number of cycles) % 2).
+        int rows = initial_state_values.length;
+        int cols = initial_state_values[0].length;
+        int size = rows * cols;
+        if (rows > State.MAX_SIZE || cols > State.MAX_SIZE)
+            return false;
+        BoardGeometry geometry = BoardGeometry.of(rows, cols);
+
+        // goal position of the value at each field (each value must appear exactly once)
+        int[] goal_index_at = new int[size];
+        boolean[] value_seen = new boolean[size];
+        int blank_index = -1;
+        for (int index = 0; index < size; index++) {
+            int value = initial_state_values[index / cols][index % cols];
+            if (value < 0 || value >= size || value_seen[value])
+                return false;
+            value_seen[value] = true;
+            goal_index_at[index] = geometry.goal_index_of_value[value];
+            if (value == 0)
+                blank_index = index;
+        }
+
+        // On a single row or column values can't pass each other, so the parities are not enough there,
+        // the goal can be reached only when the values are already in the goal order.
+        if (rows == 1 || cols == 1) {
+            int previous_value = 0;
+            for (int index = 0; index < size; index++) {
+                int value = initial_state_values[index / cols][index % cols];
+                if (value == 0)
+                    continue;
+                if (value < previous_value)
+                    return false;
+                previous_value = value;
+            }
+            return true;
+        }
+
+        boolean[] visited = new boolean[size];
+        int cycles = 0;
+        for (int index = 0; index < size; index++) {
+            if (visited[index])
+                continue;
+            cycles++;
+            for (int i = index; !visited[i]; i = goal_index_at[i])
+                visited[i] = true;
+        }
+
+        int permutation_parity = (size - cycles) % 2;
+        int blank_distance_parity = geometry.distance[blank_index][geometry.goal_index_of_value[0]] % 2;
+        return permutation_parity == blank_distance_parity;
+    }
+
+    static int scaledWeight(double weight) {
+        return (int)Math.round(Math.max(1, weight) * PRIORITY_SCALE);
+    }
+
+    // goal state of boards with the shape of "initial_state_values"
+    // (values in order, blank field in the bottom right corner)
+    static State goalStateFor(int[][] initial_state_values) {
         int[][] goal_state_values = new int[initial_state_values.length][initial_state_values[0].length];
 
         int num = 1;
@@ -128,18 +362,32 @@ public class EightPuzzle {
         }
 
         goal_state_values[initial_state_values.length - 1][initial_state_values[0].length - 1] = 0;
-        goal_state = new State(goal_state_values);
+        return new State(goal_state_values);
     }
 
+    // results of the last solve(int[][]) of this object (see SolveReport.java)
     public List<State> getSolutionStates() {
-        return solution_states;
+        return last_report.getSolutionStates();
+    }
+
+    public long getExpandedNodesCount() {
+        return last_report.getExpandedNodesCount();
     }
 
-    public int getExpandedNodesCount() {
-        return nodes_expanded;
+    public long getUnexpandedNodesCount() {
+        return last_report.getUnexpandedNodesCount();
     }
 
     public long getCompletionTime() {
-        return completion_time;
+        return last_report.getCompletionTime();
+    }
+
+    // statistics of the last solve (see SearchStatistics.java)
+    public SearchStatistics getStatistics() {
+        return last_report.getStatistics();
+    }
+
+    public SolveResult getResult() {
+        return last_report.getResult();
     }
 }
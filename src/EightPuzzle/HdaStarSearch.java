@@ -0,0 +1,321 @@
+package EightPuzzle;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Hash distributed A* (HDA*), parallel A* for a single puzzle
+//
+// Every state has an owner - one of the worker threads, chosen by the hash of the packed state.
+// Only the owner keeps the state in its open list and in its map of reached states, so workers
+// don't share any search structures and don't need locks. When a worker generates a child owned
+// by another worker, the child node is put into an outgoing batch for that worker, and full batches
+// are sent through the owner's lock-free inbox (ConcurrentLinkedQueue). Hashing spreads states evenly,
+// so all workers have similar amount of work.
+//
+// Workers don't expand nodes in the global f order, so:
+//      - a state can be reached by a shorter path after it was expanded, it's expanded again
+//        (reached map keeps the best depth of each state, worse nodes are dropped)
+//      - the first goal found is not necessarily optimal, it's an "incumbent" solution,
+//        nodes that can't lead to a shorter solution (f >= incumbent length) are dropped
+// With admissible heuristics the incumbent is optimal when no other nodes are left anywhere.
+// A state with a distance known from previous solves (see SolutionCache.java) isn't expanded,
+// it's an incumbent of length depth + known distance (the rest of the path is taken from the table).
+//
+// Termination is detected with a single counter of nodes that exist (in open lists, in outgoing
+// batches or in inboxes). A node is counted before it's sent and uncounted after all of its
+// children were counted, so the counter can't drop to 0 while any work is left.
+class HdaStarSearch {
+    // number of nodes sent to another worker at once
+    private static final int BATCH_SIZE = 64;
+    // outgoing batches are sent after this many expansions even if they're not full,
+    // otherwise idle workers could wait for nodes stuck in a busy worker's buffer
+    private static final int FLUSH_INTERVAL = 256;
+    // limits are shared by all workers, they're checked every few expansions
+    private static final int LIMIT_CHECK_INTERVAL = 32;
+
+    private final State initial_state;
+    private final State goal_state;
+    private final HeuristicEvaluator evaluator;
+    private final SearchLimits limits;
+    private final SearchMetrics metrics;
+    // known distances of SolutionCache, may be null
+    private final SolutionCache.Distances known_distances;
+    private final Worker[] workers;
+
+    // nodes that exist anywhere (termination detection)
+    private final AtomicLong work = new AtomicLong();
+    private final AtomicLong nodes_expanded = new AtomicLong();
+    private final AtomicLong nodes_stored = new AtomicLong();
+    private volatile boolean stopped = false;
+    // exception of a worker (or interruption of the waiting thread), the search is stopped and it's rethrown by run
+    private Throwable failure;
+
+    // incumbent solution
+    private volatile int best_length = Integer.MAX_VALUE;
+    private Node best_goal_node;
+
+    HdaStarSearch(State initial_state_, State goal_state_, HeuristicEvaluator evaluator_, SearchLimits limits_,
+                  SearchMetrics metrics_, SolutionCache solution_cache, int threads) {
+        initial_state = initial_state_;
+        goal_state = goal_state_;
+        evaluator = evaluator_;
+        limits = limits_;
+        metrics = metrics_;
+        known_distances = solution_cache == null
+                ? null : solution_cache.getDistances(initial_state.getRowSize(), initial_state.getColSize());
+        workers = new Worker[Math.max(1, threads)];
+        for (int i = 0; i < workers.length; i++)
+            workers[i] = new Worker(i);
+    }
+
+    // returns states leading from initial to goal state, or null if goal can't be reached
+    // (or the search was stopped by limits), throws what stopped a worker if one failed
+    List<State> run() {
+        Node root = new Node(null, 0, initial_state);
+        root.setHeuristics(evaluator, null);
+        work.incrementAndGet();
+        workers[ownerOf(root.state)].inbox.add(List.of(root));
+
+        Thread[] threads = new Thread[workers.length];
+        for (int i = 0; i < workers.length; i++) {
+            threads[i] = new Thread(workers[i], "HDA* worker " + i);
+            threads[i].start();
+        }
+        // this thread only waits for workers and reports the sum of their counters
+        // (read while workers run, so progress statistics are approximate)
+        for (Thread thread : threads) {
+            while (thread.isAlive()) {
+                try {
+                    thread.join(Math.min(metrics.getProgressIntervalMs(), 1000));
+                } catch (InterruptedException e) {
+                    // workers stop as soon as they see "stopped", the same thread is joined again
+                    // (the interrupt status was cleared, rethrowFailure sets it again)
+                    fail(e);
+                    continue;
+                }
+                sumMetrics();
+                metrics.sample();
+            }
+        }
+        sumMetrics();
+
+        // An incumbent is proven optimal only when all workers ran out of nodes, never return it after a failure
+        // (and a failed search didn't prove that the goal can't be reached either).
+        if (failure != null)
+            rethrowFailure();
+        if (limits.getStopReason() != null || best_goal_node == null)
+            return null;
+
+        List<State> solution_states = new ArrayList<>();
+        for (Node node = best_goal_node; node != null; node = node.parent)
+            solution_states.add(0, node.state);
+        // (the incumbent node has the goal state or a state with a known path to it)
+        if (known_distances != null)
+            solution_states.addAll(known_distances.pathToGoal(best_goal_node.state));
+        return solution_states;
+    }
+
+    private int ownerOf(State state) {
+        // high bits of the mixed hash, local HashMaps of workers use State.hashCode
+        long h = state.packedLow() * 0x9E3779B97F4A7C15L ^ state.packedHigh();
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return (int)((h >>> 32) % workers.length);
+    }
+
+    private void sumMetrics() {
+        metrics.clearCounters();
+        for (Worker worker : workers)
+            metrics.add(worker.metrics);
+    }
+
+    // "remaining" is the known number of moves from the node's state to the goal state
+    private synchronized void foundGoal(Node node, int remaining) {
+        if (node.depth + remaining < best_length) {
+            best_goal_node = node;
+            best_length = node.depth + remaining;
+        }
+    }
+
+    private synchronized void fail(Throwable e) {
+        if (failure == null)
+            failure = e;
+        stopped = true;
+    }
+
+    private synchronized void rethrowFailure() {
+        if (failure instanceof RuntimeException)
+            throw (RuntimeException)failure;
+        if (failure instanceof Error)
+            throw (Error)failure;
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("HDA* search was interrupted.", failure);
+    }
+
+    private boolean limitsExceeded() {
+        synchronized (limits) {
+            if (limits.exceeded(nodes_expanded.get(), nodes_stored.get() + work.get()))
+                stopped = true;
+        }
+        return stopped;
+    }
+
+    long getNodesExpanded() {
+        return nodes_expanded.get();
+    }
+
+    long getNodesUnexpanded() {
+        // after the search finished (work counter includes nodes that were not expanded)
+        return work.get();
+    }
+
+    // a single worker thread with its own part of the search space
+    private class Worker implements Runnable {
+        final int id;
+        final Queue<List<Node>> inbox = new ConcurrentLinkedQueue<>();
+        final SearchMetrics metrics = new SearchMetrics(System.currentTimeMillis());
+        // context of the expanded state (see HeuristicEvaluator.Context)
+        final HeuristicEvaluator.Context context = evaluator.newContext();
+        // children of the expanded state are generated into this buffer (see State.childrenInto),
+        // only the ones that become nodes are copied, because nodes are passed to other workers
+        final State[] children = State.newChildBuffer(initial_state);
+
+        // open list and best node (lowest depth) of every state owned by this worker
+        BucketQueue<Node> open = new BucketQueue<>();
+        final Map<State, Node> reached = new HashMap<>();
+
+        // nodes waiting to be sent to each of the other workers
+        final List<List<Node>> outgoing = new ArrayList<>();
+        int expanded_since_flush = 0;
+        int expanded_since_check = 0;
+
+        Worker(int id_) {
+            id = id_;
+            for (int i = 0; i < workers.length; i++)
+                outgoing.add(new ArrayList<>(BATCH_SIZE));
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!stopped) {
+                    receive();
+                    Node node = open.poll();
+                    if (node == null) {
+                        // nothing to expand, send everything that's waiting and check if any work is left
+                        flushAll();
+                        if (work.get() == 0)
+                            break;
+                        Thread.onSpinWait();
+                        continue;
+                    }
+                    process(node);
+
+                    if (++expanded_since_flush >= FLUSH_INTERVAL)
+                        flushAll();
+                    if (++expanded_since_check >= LIMIT_CHECK_INTERVAL) {
+                        expanded_since_check = 0;
+                        limitsExceeded();
+                    }
+                }
+            } catch (RuntimeException | Error e) {
+                fail(e);
+            }
+        }
+
+        private void receive() {
+            List<Node> batch;
+            while ((batch = inbox.poll()) != null)
+                for (Node node : batch)
+                    addOwned(node);
+        }
+
+        private void addOwned(Node node) {
+            Node previous = reached.get(node.state);
+            if (node.depth + node.heuristic >= best_length || (previous != null && previous.depth <= node.depth)) {
+                if (previous != null)
+                    metrics.duplicates_rejected++;
+                work.decrementAndGet();
+                return;
+            }
+            if (previous == null)
+                nodes_stored.incrementAndGet();
+            reached.put(node.state, node);
+            open.add(node, node.depth + node.heuristic, node.depth);
+        }
+
+        private void process(Node node) {
+            if (node.depth + node.heuristic >= best_length) {
+                // open list returns the lowest f first, so no other node of this worker can improve the incumbent
+                work.addAndGet(-1 - open.size());
+                open = new BucketQueue<>();
+                return;
+            }
+            // skip nodes whose state was reached by a shorter path after they were added
+            if (reached.get(node.state) != node) {
+                metrics.duplicates_rejected++;
+                work.decrementAndGet();
+                return;
+            }
+            if (node.state.equals(goal_state)) {
+                foundGoal(node, 0);
+                work.decrementAndGet();
+                return;
+            }
+            int known_distance = known_distances == null ? -1 : known_distances.distanceOf(node.state);
+            if (known_distance >= 0) {
+                foundGoal(node, known_distance);
+                work.decrementAndGet();
+                return;
+            }
+
+            nodes_expanded.incrementAndGet();
+            metrics.expanded(open.size(), reached.size(), node.depth + node.heuristic);
+            evaluator.loadContext(context, node.state);
+            // (the move that undoes the last move, back to the parent, isn't generated)
+            int children_count = node.state.childrenInto(children);
+            for (int i = 0; i < children_count; i++) {
+                Node new_node = new Node(node, node.depth + 1, new State(children[i]));
+                metrics.setHeuristics(new_node, evaluator, context);
+                metrics.nodes_generated++;
+                if (new_node.depth + new_node.heuristic >= best_length)
+                    continue;
+                send(new_node);
+            }
+            work.decrementAndGet();
+        }
+
+        private void send(Node node) {
+            work.incrementAndGet();
+            int owner = ownerOf(node.state);
+            if (owner == id) {
+                addOwned(node);
+                return;
+            }
+            List<Node> batch = outgoing.get(owner);
+            batch.add(node);
+            if (batch.size() >= BATCH_SIZE)
+                flush(owner);
+        }
+
+        private void flush(int owner) {
+            List<Node> batch = outgoing.get(owner);
+            if (batch.isEmpty())
+                return;
+            workers[owner].inbox.add(batch);
+            outgoing.set(owner, new ArrayList<>(BATCH_SIZE));
+        }
+
+        private void flushAll() {
+            expanded_since_flush = 0;
+            for (int owner = 0; owner < workers.length; owner++)
+                flush(owner);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package EightPuzzle;
+
+import java.util.Arrays;
+
+import static EightPuzzle.State.Direction;
+
+// NodeArena with records in parallel primitive arrays (see NodeArena.java).
+// Arrays grow by doubling, so long searches allocate a few big arrays instead of millions of small objects.
+class HeapNodeArena extends NodeArena {
+    private static final int INITIAL_CAPACITY = 1 << 12;
+
+    private int[] parent = new int[INITIAL_CAPACITY];
+    private int[] depth = new int[INITIAL_CAPACITY];
+    private int[] heuristic = new int[INITIAL_CAPACITY];
+    private byte[] last_move = new byte[INITIAL_CAPACITY];
+    private byte[] blank_index = new byte[INITIAL_CAPACITY];
+    private long[] packed_lo = new long[INITIAL_CAPACITY];
+    private long[] packed_hi = new long[INITIAL_CAPACITY];
+    private int size = 0;
+
+    @Override
+    int add(int parent_, int depth_, int heuristic_, State state) {
+        if (size == parent.length)
+            grow();
+        int node = size++;
+        parent[node] = parent_;
+        depth[node] = depth_;
+        heuristic[node] = heuristic_;
+        last_move[node] = (byte)state.getLastMove().ordinal();
+        blank_index[node] = (byte)state.getBlankIndex();
+        packed_lo[node] = state.packedLow();
+        packed_hi[node] = state.packedHigh();
+        return node;
+    }
+
+    private void grow() {
+        int capacity = parent.length * 2;
+        parent = Arrays.copyOf(parent, capacity);
+        depth = Arrays.copyOf(depth, capacity);
+        heuristic = Arrays.copyOf(heuristic, capacity);
+        last_move = Arrays.copyOf(last_move, capacity);
+        blank_index = Arrays.copyOf(blank_index, capacity);
+        packed_lo = Arrays.copyOf(packed_lo, capacity);
+        packed_hi = Arrays.copyOf(packed_hi, capacity);
+    }
+
+    @Override
+    void clear() {
+        size = 0;
+    }
+
+    // size of the arrays (4 + 4 + 4 + 1 + 1 + 8 + 8 bytes for each node)
+    long retainedBytes() {
+        return (long)parent.length * 30;
+    }
+
+    @Override
+    int size() {
+        return size;
+    }
+
+    @Override
+    int parentOf(int node) {
+        return parent[node];
+    }
+
+    @Override
+    int depthOf(int node) {
+        return depth[node];
+    }
+
+    @Override
+    int heuristicOf(int node) {
+        return heuristic[node];
+    }
+
+    @Override
+    long packedLowOf(int node) {
+        return packed_lo[node];
+    }
+
+    @Override
+    long packedHighOf(int node) {
+        return packed_hi[node];
+    }
+
+    @Override
+    Direction lastMoveOf(int node) {
+        return DIRECTIONS[last_move[node]];
+    }
+
+    @Override
+    void loadState(int node, State state) {
+        state.load(packed_lo[node], packed_hi[node], blank_index[node], DIRECTIONS[last_move[node]]);
+    }
+}
@@ -0,0 +1,76 @@
+package EightPuzzle;
+
+import java.util.Arrays;
+
+// StateSet with its table in two arrays of longs (see StateSet.java)
+class HeapStateSet extends StateSet {
+    private long[] keys_lo;
+    private long[] keys_hi;
+
+    HeapStateSet() {
+        this(MIN_CAPACITY);
+    }
+
+    HeapStateSet(int expected_size) {
+        allocate(tableSizeFor(expected_size));
+    }
+
+    @Override
+    void allocate(int capacity) {
+        super.allocate(capacity);
+        keys_lo = new long[capacity];
+        keys_hi = new long[capacity];
+    }
+
+    @Override
+    boolean insert(long lo, long hi) {
+        int slot = slotFor(lo, hi, mask);
+        while (keys_lo[slot] != 0) {
+            if (keys_lo[slot] == lo && keys_hi[slot] == hi)
+                return false;
+            slot = (slot + 1) & mask;
+        }
+        keys_lo[slot] = lo;
+        keys_hi[slot] = hi;
+        return true;
+    }
+
+    @Override
+    boolean find(long lo, long hi) {
+        int slot = slotFor(lo, hi, mask);
+        while (keys_lo[slot] != 0) {
+            if (keys_lo[slot] == lo && keys_hi[slot] == hi)
+                return true;
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    @Override
+    void rehash(int new_capacity) {
+        long[] old_lo = keys_lo;
+        long[] old_hi = keys_hi;
+        allocate(new_capacity);
+
+        for (int i = 0; i < old_lo.length; i++) {
+            if (old_lo[i] == 0)
+                continue;
+            int slot = slotFor(old_lo[i], old_hi[i], mask);
+            while (keys_lo[slot] != 0)
+                slot = (slot + 1) & mask;
+            keys_lo[slot] = old_lo[i];
+            keys_hi[slot] = old_hi[i];
+        }
+    }
+
+    // Empties the set without shrinking its table (sets reused by SearchMemory). Only the low words
+    // have to be cleared, they mark free slots and high words are always written together with them.
+    void reset() {
+        Arrays.fill(keys_lo, 0);
+        emptied();
+    }
+
+    long retainedBytes() {
+        return (long)keys_lo.length * 16;
+    }
+}
@@ -0,0 +1,264 @@
+package EightPuzzle;
+
+import java.util.List;
+
+import static EightPuzzle.EightPuzzle.*;
+import static EightPuzzle.EightPuzzle.Heuristic.*;
+
+// Calculates the heuristic value of states for a single search (selected heuristics + goal state).
+//
+// The heuristic of the initial node is calculated from scratch ("evaluate"), but every other
+// node differs from its parent by a single move, so its heuristic is the parent's value updated
+// by the change caused by that move ("evaluateChild"). One move changes only 2 fields
+// (moved value and empty space), so the update costs the same no matter how big the board is.
+//
+// Table based heuristics look up values derived from the whole board (e.g. table index of each
+// pattern database group). These are kept in a Context of the parent state and updated by the
+// move too, so searches keep a context of the state they expand: depth-first searches move it
+// along with their board, best-first searches load it once for each expanded node.
+class HeuristicEvaluator {
+    private final BoardGeometry geometry;
+
+    // goal position of each value and goal value of each position
+    private final int[] goal_index_of_value;
+    private final int[] goal_value_at;
+
+    // "types.contains(...)" is checked once here instead of for every field of every node
+    private final boolean use_manhattan_distance;
+    private final boolean use_mismatch_count;
+    private final boolean use_direct_reverse_penalty;
+
+    // table based heuristics are built for the goal state of EightPuzzle, they're null if not used
+    private final PatternDatabase pattern_database;
+    private final LinearConflict linear_conflict;
+    private final WalkingDistance walking_distance;
+
+    HeuristicEvaluator(State goal_state, List<Heuristic> types) {
+        geometry = BoardGeometry.of(goal_state.getRowSize(), goal_state.getColSize());
+
+        // goal state of EightPuzzle is always the same for a given shape, so cached tables are used,
+        // any other goal gets its own tables
+        boolean default_goal = goal_state.equals(new State(geometry.goal_value_at, geometry.rows));
+        if (default_goal) {
+            goal_index_of_value = geometry.goal_index_of_value;
+            goal_value_at = geometry.goal_value_at;
+        } else {
+            goal_index_of_value = new int[geometry.size];
+            goal_value_at = new int[geometry.size];
+            for (int i = 0; i < geometry.size; i++) {
+                goal_value_at[i] = goal_state.getValueAt(i);
+                goal_index_of_value[goal_value_at[i]] = i;
+            }
+        }
+
+        // Linear conflict is a penalty on top of manhattan distance, the penalty alone would be a weak heuristic,
+        // so LINEAR_CONFLICT includes manhattan distance (counted once when both are selected)
+        use_manhattan_distance = types.contains(MANHATTAN_DISTANCE) || types.contains(LINEAR_CONFLICT);
+        use_mismatch_count = types.contains(MISMATCH_COUNT);
+        use_direct_reverse_penalty = types.contains(DIRECT_REVERSE_PENALTY);
+
+        // (their tables are only valid for the default goal state, other goals don't use them)
+        pattern_database = types.contains(PATTERN_DATABASE) && default_goal ? PatternDatabase.of(geometry) : null;
+        linear_conflict = types.contains(LINEAR_CONFLICT) && default_goal ? LinearConflict.of(geometry) : null;
+        walking_distance = types.contains(WALKING_DISTANCE) && default_goal ? WalkingDistance.of(geometry) : null;
+    }
+
+    // values of a single state used by table based heuristics (see Context)
+    Context newContext() {
+        return new Context(pattern_database != null ? new int[pattern_database.groupCount()] : null,
+                walking_distance != null ? new long[2] : null);
+    }
+
+    // calculates the context of "state" from scratch (a pass over the board, only when table based heuristics are used)
+    void loadContext(Context context, State state) {
+        if (pattern_database != null)
+            pattern_database.loadIndices(state, context.pattern_index);
+        if (walking_distance != null)
+            walking_distance.loadCodes(state, context.walking_codes);
+    }
+
+    // "context" of the state before the last move of "moved" becomes the context of "moved"
+    void moveContext(Context context, State moved) {
+        if (pattern_database != null)
+            pattern_database.moveIndices(context.pattern_index, moved);
+        if (walking_distance != null)
+            walking_distance.moveCodes(context.walking_codes, moved);
+    }
+
+    int evaluate(State state) {
+        // full calculation, used for the initial state
+        int heuristic = 0;
+
+        for (int index = 0; index < geometry.size; index++) {
+            int value = state.getValueAt(index);
+
+            if (use_manhattan_distance) {
+                // Manhattan distance is how many moves a value is from reaching
+                // its goal position (assuming that nothing is blocking it).
+                // In this scenario, added heuristic is a total sum of manhattan
+                // distances of each value to their corresponding goal position.
+                // For example
+                //       [5,2,3] - 5 is 2 moves away from it's goal position
+                //       [4,1,6] - 1 is 2 moves away from it's goal position
+                //       [7,8,0]   So the total heuristic value of this state would be 4
+                //                 (sum of all distances)
+                //
+                // The empty space is not counted, it's not a value that needs to be moved
+                // (counting it would overestimate the number of moves needed, so A* could
+                // return a longer solution than the optimal one).
+                if (value != 0)
+                    heuristic += geometry.distance[goal_index_of_value[value]][index];
+            }
+
+            if (use_mismatch_count) {
+                // Added heuristic = how many values don't match their goal values.
+                // Using it was suggested on slide 18 of the following lecture slides
+                // found online: http://www.sci.brooklyn.cuny.edu/~chipp/cis32/lectures/Lecture6.pdf
+                // (empty space is not counted for the same reason as in manhattan distance)
+                heuristic += value == goal_value_at[index] || value == 0 ? 0 : 1;
+            }
+
+            if (use_direct_reverse_penalty) {
+                // Direct reverse penalty idea is from:
+                // http://web.mit.edu/6.034/wwwbob/EightPuzzle.pdf
+                //
+                // It is justified in the paper from link above in the following way:
+                //       "Additional improvements are made in informedness by adding a penalty
+                //       for directly reversed tiles. This is due to the fact that reversed
+                //       tiles are much more difficult to deal with because one must “go around” the other."
+                //
+                // It's worth to notice that "directness" means not only being positioned before the previous
+                // goal number, but also means that both numbers must be occupying on their corresponding
+                // goal positions. For example
+                //       [2,1,3] - penalty is given (1 is in place of 2, 2 is in place of 1)
+                //       [4,5,6]
+                //       [7,8,0]
+                //
+                //       [4,2,3] - penalty is given (1 is in place of 4, 4 is in place of 1)
+                //       [1,5,6]
+                //       [7,8,0]
+                //
+                //       [1,2,3]
+                //       [4,0,8]
+                //       [7,6,5] - penalty is NOT given despite 6 being before 5 because they're not
+                //                 on their corresponding goal positions. That is reasonable because
+                //                 this scenario doesn't require 6 and 5 to "go around" themselves,
+                //                 and the puzzle can be solved in few steps (0,8,6,5 have to be
+                //                 rotated 180 degrees).
+                heuristic += isDirectlyReversed(state, index) ? 1 : 0;
+            }
+        }
+
+        if (pattern_database != null) {
+            // Sum of additive disjoint pattern databases, see PatternDatabase.java
+            heuristic += pattern_database.evaluate(state);
+        }
+
+        if (linear_conflict != null) {
+            // Penalty for values that have to pass each other in their goal row/column
+            // (added to manhattan distance), see LinearConflict.java
+            heuristic += linear_conflict.evaluate(state);
+        }
+
+        if (walking_distance != null) {
+            // Moves needed when only rows/columns of values are considered, see WalkingDistance.java
+            heuristic += walking_distance.evaluate(state);
+        }
+        return heuristic;
+    }
+
+    int evaluateChild(int parent_heuristic, Context parent_context, State child) {
+        // "child" is the parent state after a single move: value "moved" went from field "from"
+        // (where the empty space is now) into field "to" (where the empty space was).
+        // Parent state itself is not needed, it's the child with these 2 fields swapped back
+        // (and "parent_context" of table based heuristics), so searches that apply moves in place
+        // on a single board can use this method too.
+        int moved = child.getValueThatMoved();
+        int from = child.getBlankIndex();
+        int to = child.getPreviousBlankIndex();
+
+        int heuristic = parent_heuristic;
+
+        if (use_manhattan_distance) {
+            // only the moved value changed its distance to goal position
+            int[] moved_goal_distance = geometry.distance[goal_index_of_value[moved]];
+            heuristic += moved_goal_distance[to] - moved_goal_distance[from];
+        }
+
+        if (use_mismatch_count) {
+            heuristic += (moved != goal_value_at[to] ? 1 : 0) - (moved != goal_value_at[from] ? 1 : 0);
+        }
+
+        if (use_direct_reverse_penalty) {
+            // reversal of a field depends only on itself and its neighbors,
+            // so only fields around the 2 changed fields have to be checked again
+            heuristic += directlyReversedAround(child, from, to, -1, -1)
+                       - directlyReversedAround(child, from, to, from, to);
+        }
+
+        if (pattern_database != null)
+            heuristic = pattern_database.evaluateChild(heuristic, parent_context.pattern_index, child);
+        if (linear_conflict != null)
+            heuristic = linear_conflict.evaluateChild(heuristic, child);
+        if (walking_distance != null)
+            heuristic = walking_distance.evaluateChild(heuristic, parent_context.walking_codes, child);
+        return heuristic;
+    }
+
+    // Values of a single state that table based heuristics would otherwise have to calculate from
+    // the whole board for each child (see loadContext, moveContext).
+    static final class Context {
+        // table index of each pattern database group (null if the pattern database is not used)
+        final int[] pattern_index;
+        // walking distance codes of rows and columns (null if walking distance is not used)
+        final long[] walking_codes;
+
+        private Context(int[] pattern_index_, long[] walking_codes_) {
+            pattern_index = pattern_index_;
+            walking_codes = walking_codes_;
+        }
+
+        Context copy() {
+            return new Context(pattern_index != null ? pattern_index.clone() : null,
+                    walking_codes != null ? walking_codes.clone() : null);
+        }
+    }
+
+    private int directlyReversedAround(State state, int a, int b, int swap_a, int swap_b) {
+        // counts reversed fields among "a", "b" and their neighbors (each field counted once),
+        // values of fields "swap_a" and "swap_b" are read as if they were swapped
+        int count = isDirectlyReversed(state, a, swap_a, swap_b) ? 1 : 0;
+        for (int n : geometry.neighbors[a])
+            count += isDirectlyReversed(state, n, swap_a, swap_b) ? 1 : 0;
+
+        if (geometry.distance[a][b] > 1)
+            count += isDirectlyReversed(state, b, swap_a, swap_b) ? 1 : 0;
+        for (int n : geometry.neighbors[b])
+            if (geometry.distance[a][n] > 1)
+                count += isDirectlyReversed(state, n, swap_a, swap_b) ? 1 : 0;
+        return count;
+    }
+
+    static int valueAt(State state, int index, int swap_a, int swap_b) {
+        if (index == swap_a) return state.getValueAt(swap_b);
+        if (index == swap_b) return state.getValueAt(swap_a);
+        return state.getValueAt(index);
+    }
+
+    private boolean isDirectlyReversed(State state, int index) {
+        return isDirectlyReversed(state, index, -1, -1);
+    }
+
+    private boolean isDirectlyReversed(State state, int index, int swap_a, int swap_b) {
+        // same rule as State.isDirectlyReversed but using precomputed neighbors and goal values
+        int goal = goal_value_at[index];
+        int actual = valueAt(state, index, swap_a, swap_b);
+        if (goal == 0 || actual == 0)
+            return false;
+
+        for (int n : geometry.neighbors[index])
+            if (actual == goal_value_at[n] && valueAt(state, n, swap_a, swap_b) == goal)
+                return true;
+        return false;
+    }
+}
@@ -0,0 +1,140 @@
+package EightPuzzle;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static EightPuzzle.State.Direction;
+
+// Iterative Deepening A* (IDA*)
+//
+// Instead of keeping every generated node in a priority queue and every seen state
+// in a visited set (like A* in EightPuzzle.solve), IDA* repeats depth-first searches
+// limited by f = depth + heuristic. Each iteration raises the limit to the smallest f that
+// exceeded the previous one. Only the current path is stored, so the memory used depends
+// on solution depth and not on the number of generated nodes.
+//
+// Moves are applied and undone in place on a single board (together with the board's
+// context of table based heuristics, see HeuristicEvaluator.Context), and the move that
+// would undo the previous one is never tried ("parent pruning").
+//
+// States with a distance known from previous solves (see SolutionCache.java) end the path: their
+// distance is exact, so when it fits under the bound the rest of the path is taken from the table,
+// and when it doesn't it's the f that exceeded the bound.
+class IdaStarSearch {
+    private static final int FOUND = -1;
+    private static final int STOPPED = -2;
+
+    private final State board;
+    private final HeuristicEvaluator.Context context;
+    private final State initial_state;
+    private final State goal_state;
+    private final HeuristicEvaluator evaluator;
+    private final SearchLimits limits;
+    private final SearchMetrics metrics;
+    // known distances of SolutionCache, may be null
+    private final SolutionCache.Distances known_distances;
+
+    private int bound;
+    private long nodes_expanded = 0;
+
+    // moves of the current path (it only grows up to the depth of the solution)
+    private final List<Direction> path = new ArrayList<>();
+
+    IdaStarSearch(State initial_state_, State goal_state_, HeuristicEvaluator evaluator_, SearchLimits limits_,
+                  SearchMetrics metrics_, SolutionCache solution_cache) {
+        initial_state = new State(initial_state_);
+        board = new State(initial_state_);
+        goal_state = goal_state_;
+        evaluator = evaluator_;
+        limits = limits_;
+        metrics = metrics_;
+        known_distances = solution_cache == null
+                ? null : solution_cache.getDistances(initial_state.getRowSize(), initial_state.getColSize());
+        context = evaluator.newContext();
+        evaluator.loadContext(context, board);
+    }
+
+    // returns states leading from initial to goal state, or null if goal can't be reached
+    // (or the search was stopped by limits)
+    List<State> run() {
+        int initial_heuristic = evaluator.evaluate(board);
+        bound = initial_heuristic;
+
+        while (true) {
+            int result = search(0, initial_heuristic, Direction.NONE);
+            if (result == FOUND)
+                return solutionStates();
+            if (result == Integer.MAX_VALUE || result == STOPPED)
+                return null;
+            // next iteration is limited by the smallest f value that exceeded the current limit
+            bound = result;
+        }
+    }
+
+    private int search(int depth, int heuristic, Direction last_move) {
+        int f = depth + heuristic;
+        if (f > bound)
+            return f;
+        if (board.equals(goal_state))
+            return FOUND;
+        if (known_distances != null) {
+            // No path shorter than the bound exists (previous iteration would have found it), so a known
+            // path that fits under the bound is a shortest one.
+            int known_distance = known_distances.distanceOf(board);
+            if (known_distance >= 0)
+                return depth + known_distance > bound ? depth + known_distance : FOUND;
+        }
+
+        // only the current path is stored
+        if (limits.exceeded(nodes_expanded, path.size()))
+            return STOPPED;
+
+        nodes_expanded++;
+        metrics.expanded(path.size(), 0, bound);
+        int min_exceeding = Integer.MAX_VALUE;
+
+        for (Direction dir : board.possibleMoves()) {
+            // don't undo the previous move
+            if (dir == State.oppositeMove(last_move))
+                continue;
+
+            board.move(dir);
+            path.add(dir);
+
+            metrics.nodes_generated++;
+            int child_heuristic = metrics.evaluateChild(evaluator, heuristic, context, board);
+            evaluator.moveContext(context, board);
+            int result = search(depth + 1, child_heuristic, dir);
+            if (result == FOUND || result == STOPPED)
+                return result;
+
+            // undo the move
+            board.move(State.oppositeMove(dir));
+            evaluator.moveContext(context, board);
+            path.remove(path.size() - 1);
+
+            min_exceeding = Math.min(min_exceeding, result);
+        }
+        return min_exceeding;
+    }
+
+    private List<State> solutionStates() {
+        // replays stored moves from the initial state
+        List<State> states = new ArrayList<>(path.size() + 1);
+        State state = new State(initial_state);
+        states.add(state);
+        for (Direction dir : path) {
+            state = new State(state);
+            state.move(dir);
+            states.add(state);
+        }
+        // (the path ends at the goal state or at a state with a known path to it)
+        if (known_distances != null)
+            states.addAll(known_distances.pathToGoal(state));
+        return states;
+    }
+
+    long getNodesExpanded() {
+        return nodes_expanded;
+    }
+}
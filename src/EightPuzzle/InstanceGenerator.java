@@ -0,0 +1,144 @@
+package EightPuzzle;
+
+import java.util.Random;
+
+// Random solvable boards of any shape (workloads of benchmarks, see PuzzleGenerator.java and MacroBenchmark.java).
+//
+//      randomWalk - moves the empty space from the goal state "moves" times in random directions (never straight
+//                   back), the board is at most "moves" moves from the goal, so the length controls difficulty
+//      randomPermutation - every solvable board of the shape has the same probability (uniform shuffle,
+//                          the parity is fixed by swapping two values when the board can't reach the goal,
+//                          on a single row or column only the position of the empty space is random)
+//
+// Boards are generated as plain arrays, so shapes that State doesn't support (e.g. 8x8) can be generated too.
+// The same seed of "random" always gives the same boards.
+public class InstanceGenerator {
+    // row and column offsets of the 4 moves of the empty space
+    private static final int[][] OFFSETS = { {0, 1}, {0, -1}, {1, 0}, {-1, 0} };
+
+    public static int[][] randomWalk(int rows, int cols, int moves, Random random) {
+        int[][] values = goalValues(rows, cols);
+        int blank_row = rows - 1, blank_col = cols - 1;
+        // direction of the last move as row/col offsets (0, 0 before the first one)
+        int last_dr = 0, last_dc = 0;
+        int[] dr = new int[4], dc = new int[4];
+
+        for (int move = 0; move < moves; move++) {
+            int count = 0;
+            for (int[] offset : OFFSETS) {
+                int row = blank_row + offset[0], col = blank_col + offset[1];
+                if (row < 0 || row >= rows || col < 0 || col >= cols)
+                    continue;
+                // the move that undoes the last one (unless it's the only move, e.g. at the end of a 1xN board)
+                if (offset[0] == -last_dr && offset[1] == -last_dc && (last_dr != 0 || last_dc != 0))
+                    continue;
+                dr[count] = offset[0];
+                dc[count] = offset[1];
+                count++;
+            }
+            if (count == 0) {
+                dr[0] = -last_dr;
+                dc[0] = -last_dc;
+                count = 1;
+                if (dr[0] == 0 && dc[0] == 0)
+                    break;  // 1x1 board
+            }
+
+            int chosen = random.nextInt(count);
+            int row = blank_row + dr[chosen], col = blank_col + dc[chosen];
+            values[blank_row][blank_col] = values[row][col];
+            values[row][col] = 0;
+            blank_row = row;
+            blank_col = col;
+            last_dr = dr[chosen];
+            last_dc = dc[chosen];
+        }
+        return values;
+    }
+
+    public static int[][] randomPermutation(int rows, int cols, Random random) {
+        // On a single row or column values can't pass each other, so only boards with values in the goal order
+        // can reach the goal (the parity test below doesn't see that), and they differ only by the position
+        // of the empty space.
+        if (rows == 1 || cols == 1)
+            return lineValues(rows, cols, random.nextInt(rows * cols));
+
+        int size = rows * cols;
+        int[] fields = new int[size];
+        for (int i = 0; i < size; i++)
+            fields[i] = i;
+        // Fisher-Yates shuffle
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int value = fields[i];
+            fields[i] = fields[j];
+            fields[j] = value;
+        }
+
+        // Swapping two values (not the empty space) changes the parity of the permutation and nothing else,
+        // so it turns each board that can't reach the goal into one that can (see EightPuzzle.isSolvable).
+        if (!hasSolvableParity(fields, rows, cols)) {
+            int first = fields[0] != 0 ? 0 : 1;
+            int second = fields[first + 1] != 0 ? first + 1 : first + 2;
+            int value = fields[first];
+            fields[first] = fields[second];
+            fields[second] = value;
+        }
+
+        int[][] values = new int[rows][cols];
+        for (int i = 0; i < size; i++)
+            values[i / cols][i % cols] = fields[i];
+        return values;
+    }
+
+    // the same format as lines of input.txt, e.g. "(2,3)[5 4 3 2 1 0]"
+    public static String toLine(int[][] values) {
+        StringBuilder sb = new StringBuilder();
+        sb.append('(').append(values.length).append(',').append(values[0].length).append(")[");
+        for (int i = 0; i < values.length; i++)
+            for (int j = 0; j < values[0].length; j++)
+                sb.append(i + j == 0 ? "" : " ").append(values[i][j]);
+        return sb.append(']').toString();
+    }
+
+    // board of a single row or column, values in the goal order with the empty space at "blank_index"
+    private static int[][] lineValues(int rows, int cols, int blank_index) {
+        int[][] values = new int[rows][cols];
+        int value = 1;
+        for (int i = 0; i < rows * cols; i++)
+            values[i / cols][i % cols] = i == blank_index ? 0 : value++;
+        return values;
+    }
+
+    private static int[][] goalValues(int rows, int cols) {
+        int[][] values = new int[rows][cols];
+        for (int i = 0; i < rows * cols - 1; i++)
+            values[i / cols][i % cols] = i + 1;
+        return values;
+    }
+
+    // The same test as EightPuzzle.isSolvable (parity of the permutation equals parity of the distance
+    // of the empty space from its goal position), without limits of board size.
+    // Boards with fewer than 3 fields can always reach the goal (there aren't two values to swap).
+    private static boolean hasSolvableParity(int[] fields, int rows, int cols) {
+        int size = fields.length;
+        if (size < 3)
+            return true;
+        boolean[] visited = new boolean[size];
+        int cycles = 0;
+        int blank_index = 0;
+        for (int index = 0; index < size; index++) {
+            if (fields[index] == 0)
+                blank_index = index;
+            if (visited[index])
+                continue;
+            cycles++;
+            // goal position of value v is v - 1 (the empty space goes to the last field)
+            for (int i = index; !visited[i]; i = fields[i] == 0 ? size - 1 : fields[i] - 1)
+                visited[i] = true;
+        }
+        int permutation_parity = (size - cycles) % 2;
+        int blank_distance = (rows - 1 - blank_index / cols) + (cols - 1 - blank_index % cols);
+        return permutation_parity == blank_distance % 2;
+    }
+}
@@ -0,0 +1,122 @@
+package EightPuzzle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// BucketQueue of int handles (see BucketQueue.java and NodeArena.java), the same order of items
+// (lowest f, then deepest, then last added) without boxing or objects for each item.
+class IntBucketQueue {
+    // buckets.get(f).get(depth) - items with that f and depth
+    private final List<List<IntList>> buckets = new ArrayList<>();
+    // highest depth that may be non-empty for each f
+    private int[] max_depth = new int[0];
+
+    // lowest f that may be non-empty
+    private int min_f = Integer.MAX_VALUE;
+    private int size = 0;
+
+    void add(int item, int f, int depth) {
+        while (buckets.size() <= f) {
+            buckets.add(new ArrayList<>());
+            max_depth = Arrays.copyOf(max_depth, buckets.size());
+            max_depth[buckets.size() - 1] = -1;
+        }
+        List<IntList> f_bucket = buckets.get(f);
+        while (f_bucket.size() <= depth)
+            f_bucket.add(new IntList());
+
+        f_bucket.get(depth).add(item);
+        if (depth > max_depth[f])
+            max_depth[f] = depth;
+        if (f < min_f)
+            min_f = f;
+        size++;
+    }
+
+    // returns item with the lowest f (deepest one among them), the queue must not be empty
+    int poll() {
+        while (true) {
+            List<IntList> f_bucket = buckets.get(min_f);
+            int depth = max_depth[min_f];
+            while (depth >= 0 && f_bucket.get(depth).isEmpty())
+                depth--;
+            max_depth[min_f] = depth;
+
+            if (depth >= 0) {
+                size--;
+                return f_bucket.get(depth).removeLast();
+            }
+            min_f++;
+        }
+    }
+
+    // lowest f of items in the queue (Integer.MAX_VALUE if empty)
+    int minF() {
+        if (size == 0)
+            return Integer.MAX_VALUE;
+        while (true) {
+            List<IntList> f_bucket = buckets.get(min_f);
+            int depth = max_depth[min_f];
+            while (depth >= 0 && f_bucket.get(depth).isEmpty())
+                depth--;
+            max_depth[min_f] = depth;
+            if (depth >= 0)
+                return min_f;
+            min_f++;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        buckets.clear();
+        max_depth = new int[0];
+        min_f = Integer.MAX_VALUE;
+        size = 0;
+    }
+
+    // Empties the queue without releasing its buckets (queues reused by SearchMemory),
+    // the next search adds items to arrays that already grew.
+    void reset() {
+        for (List<IntList> f_bucket : buckets)
+            for (IntList list : f_bucket)
+                list.size = 0;
+        Arrays.fill(max_depth, -1);
+        min_f = Integer.MAX_VALUE;
+        size = 0;
+    }
+
+    long retainedBytes() {
+        long bytes = 0;
+        for (List<IntList> f_bucket : buckets)
+            for (IntList list : f_bucket)
+                bytes += (long)list.items.length * 4;
+        return bytes;
+    }
+
+    private static class IntList {
+        private int[] items = new int[16];
+        private int size = 0;
+
+        void add(int item) {
+            if (size == items.length)
+                items = Arrays.copyOf(items, size * 2);
+            items[size++] = item;
+        }
+
+        int removeLast() {
+            return items[--size];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+    }
+}
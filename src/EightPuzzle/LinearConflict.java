@@ -0,0 +1,118 @@
+package EightPuzzle;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Linear conflict heuristic (Hansson, Mayer, Yung).
+//
+// Two values are in linear conflict if both are in their goal row (or column), but in
+// reversed order, e.g. [2,1,3] in the first row of the goal [1,2,3]. Manhattan distance
+// ignores that one of them must leave the row to let the other one pass, which costs
+// at least 2 additional moves. For each row the penalty is 2 * (number of values in their
+// goal row - the longest sequence of them that is already in the right order), the same
+// applies to columns. The penalty is added on top of manhattan distance (LINEAR_CONFLICT includes
+// manhattan distance, see HeuristicEvaluator).
+//
+// A row is described by a code made of goal columns of its values (0 for values that don't
+// belong to that row), the penalty of every possible code is precomputed for each board shape,
+// so evaluation is one table lookup per row and column.
+class LinearConflict {
+    private static final Map<BoardGeometry, LinearConflict> cache = new ConcurrentHashMap<>();
+
+    private final BoardGeometry geometry;
+
+    // penalty of every row code (base cols+1) and column code (base rows+1)
+    private final byte[] row_penalty;
+    private final byte[] col_penalty;
+
+    static LinearConflict of(BoardGeometry geometry) {
+        return cache.computeIfAbsent(geometry, LinearConflict::new);
+    }
+
+    private LinearConflict(BoardGeometry geometry_) {
+        geometry = geometry_;
+        row_penalty = buildPenaltyTable(geometry.cols);
+        col_penalty = buildPenaltyTable(geometry.rows);
+    }
+
+    private static byte[] buildPenaltyTable(int line_length) {
+        int base = line_length + 1;
+        int table_size = (int)Math.pow(base, line_length);
+        byte[] table = new byte[table_size];
+        int[] digits = new int[line_length];
+
+        for (int code = 0; code < table_size; code++) {
+            int rest = code;
+            for (int i = line_length - 1; i >= 0; i--) {
+                digits[i] = rest % base;
+                rest /= base;
+            }
+
+            // longest increasing sequence of goal positions (values with digit 0 don't belong to the line)
+            int[] longest_ending_at = new int[line_length];
+            int in_line = 0, longest = 0;
+            for (int i = 0; i < line_length; i++) {
+                if (digits[i] == 0)
+                    continue;
+                in_line++;
+                longest_ending_at[i] = 1;
+                for (int j = 0; j < i; j++)
+                    if (digits[j] != 0 && digits[j] < digits[i])
+                        longest_ending_at[i] = Math.max(longest_ending_at[i], longest_ending_at[j] + 1);
+                longest = Math.max(longest, longest_ending_at[i]);
+            }
+            table[code] = (byte)(2 * (in_line - longest));
+        }
+        return table;
+    }
+
+    int evaluate(State state) {
+        int penalty = 0;
+        for (int row = 0; row < geometry.rows; row++)
+            penalty += row_penalty[rowCode(state, row, -1, -1)];
+        for (int col = 0; col < geometry.cols; col++)
+            penalty += col_penalty[colCode(state, col, -1, -1)];
+        return penalty;
+    }
+
+    int evaluateChild(int parent_heuristic, State child) {
+        // only the rows and columns of the 2 changed fields can have a different penalty,
+        // parent state is read as the child with these 2 fields swapped back
+        int from = child.getBlankIndex();
+        int to = child.getPreviousBlankIndex();
+        int heuristic = parent_heuristic;
+
+        int from_row = geometry.row_of[from], to_row = geometry.row_of[to];
+        int from_col = geometry.col_of[from], to_col = geometry.col_of[to];
+
+        heuristic += row_penalty[rowCode(child, from_row, -1, -1)] - row_penalty[rowCode(child, from_row, from, to)];
+        heuristic += col_penalty[colCode(child, from_col, -1, -1)] - col_penalty[colCode(child, from_col, from, to)];
+        if (to_row != from_row)
+            heuristic += row_penalty[rowCode(child, to_row, -1, -1)] - row_penalty[rowCode(child, to_row, from, to)];
+        if (to_col != from_col)
+            heuristic += col_penalty[colCode(child, to_col, -1, -1)] - col_penalty[colCode(child, to_col, from, to)];
+        return heuristic;
+    }
+
+    private int rowCode(State state, int row, int swap_a, int swap_b) {
+        int code = 0;
+        for (int col = 0; col < geometry.cols; col++) {
+            int value = HeuristicEvaluator.valueAt(state, row * geometry.cols + col, swap_a, swap_b);
+            int goal_index = geometry.goal_index_of_value[value];
+            boolean in_goal_row = value != 0 && geometry.row_of[goal_index] == row;
+            code = code * (geometry.cols + 1) + (in_goal_row ? geometry.col_of[goal_index] + 1 : 0);
+        }
+        return code;
+    }
+
+    private int colCode(State state, int col, int swap_a, int swap_b) {
+        int code = 0;
+        for (int row = 0; row < geometry.rows; row++) {
+            int value = HeuristicEvaluator.valueAt(state, row * geometry.cols + col, swap_a, swap_b);
+            int goal_index = geometry.goal_index_of_value[value];
+            boolean in_goal_col = value != 0 && geometry.col_of[goal_index] == col;
+            code = code * (geometry.rows + 1) + (in_goal_col ? geometry.row_of[goal_index] + 1 : 0);
+        }
+        return code;
+    }
+}
@@ -0,0 +1,76 @@
+package EightPuzzle;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static EightPuzzle.EightPuzzle.StorageMode;
+import static EightPuzzle.State.Direction;
+
+// Nodes of A* (BestFirstSearch.java) stored as primitive records.
+//
+// A node is an int handle instead of a Node object with its own State object. Each node keeps its parent,
+// depth, heuristic, last move, blank index and the two packed words of its state (30 bytes, padded to 32
+// in off-heap records), while a Node with a State takes over 100 bytes in objects plus a reference in the
+// open list, and every one of them has to be traced by the garbage collector.
+//
+// Records are kept in parallel arrays on the heap (HeapNodeArena.java) or in off-heap memory
+// (OffHeapNodeArena.java). States are read into a reusable State object (loadState), and the solution
+// path is rebuilt by replaying moves of nodes from the initial state (pathTo).
+abstract class NodeArena {
+    static final int NO_PARENT = -1;
+    // (Direction.values() creates a new array on every call)
+    static final Direction[] DIRECTIONS = Direction.values();
+
+    static NodeArena create(StorageMode storage, Path directory) {
+        switch (storage) {
+            case OFF_HEAP:    return new OffHeapNodeArena(OffHeapMemory.direct());
+            case MAPPED_FILE: return new OffHeapNodeArena(OffHeapMemory.mappedFile(directory));
+            default:          return new HeapNodeArena();
+        }
+    }
+
+    // returns handle of the new node
+    abstract int add(int parent_, int depth_, int heuristic_, State state);
+
+    abstract void clear();
+
+    abstract int size();
+
+    abstract int parentOf(int node);
+
+    abstract int depthOf(int node);
+
+    abstract int heuristicOf(int node);
+
+    abstract long packedLowOf(int node);
+
+    abstract long packedHighOf(int node);
+
+    abstract Direction lastMoveOf(int node);
+
+    // sets "state" (of the same shape) to the state of the node
+    abstract void loadState(int node, State state);
+
+    // releases off-heap memory of the arena, it can't be used after that
+    void close() {
+    }
+
+    // states from "initial_state" (state of the first node) to the state of "node"
+    List<State> pathTo(int node, State initial_state) {
+        int moves = depthOf(node);
+        Direction[] directions = new Direction[moves];
+        for (int i = moves - 1; i >= 0; i--, node = parentOf(node))
+            directions[i] = lastMoveOf(node);
+
+        List<State> states = new ArrayList<>(moves + 1);
+        State state = new State(initial_state);
+        states.add(state);
+        for (Direction dir : directions) {
+            state = new State(state);
+            state.move(dir);
+            states.add(state);
+        }
+        return states;
+    }
+}
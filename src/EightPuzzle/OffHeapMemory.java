@@ -0,0 +1,162 @@
+package EightPuzzle;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Memory outside of the Java heap, used by OffHeapNodeArena and OffHeapStateSet
+// (StorageMode OFF_HEAP and MAPPED_FILE, see EightPuzzle.java).
+//
+// It's a sequence of ByteBuffer chunks addressed by a long offset, so it can hold more than 2GB (the limit
+// of a single ByteBuffer). Chunks are added when more memory is needed and existing ones are never copied
+// (except the first one while it's smaller than CHUNK_SIZE, so small searches don't take a whole chunk).
+// Records must not cross chunk boundaries, so their size has to be a power of 2 (at most CHUNK_SIZE).
+//
+//      - direct memory: chunks are direct ByteBuffers. The garbage collector doesn't scan or move their
+//        contents, but their total size is limited by -XX:MaxDirectMemorySize (equal to -Xmx by default).
+//      - mapped file: chunks are regions of a temporary file mapped into memory. The operating system keeps
+//        used pages in RAM and writes the others to the disk, so the size is limited only by free disk space.
+//        The file is deleted when the memory is closed.
+//      - file: the same as mapped file, but the file is given and it's kept after close, e.g. distance
+//        tables of DistanceTableBuilder that are read by later runs (read-only files can be opened too).
+//
+// Java 14 can't release a direct or mapped buffer explicitly, its memory is returned when the garbage
+// collector finds the buffer unreachable (after close, the buffers are not referenced anymore).
+class OffHeapMemory {
+    private static final int CHUNK_SHIFT = 26;
+    static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int MIN_FIRST_CHUNK_SIZE = 1 << 16;
+
+    // null for direct memory
+    private final FileChannel file;
+    private final FileChannel.MapMode map_mode;
+    private ByteBuffer[] chunks = new ByteBuffer[0];
+    private long capacity = 0;
+
+    private OffHeapMemory(FileChannel file_, FileChannel.MapMode map_mode_) {
+        file = file_;
+        map_mode = map_mode_;
+    }
+
+    static OffHeapMemory direct() {
+        return new OffHeapMemory(null, null);
+    }
+
+    static OffHeapMemory mappedFile(Path directory) {
+        try {
+            Path path = Files.createTempFile(directory, "search", ".bin");
+            return new OffHeapMemory(FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                    StandardOpenOption.DELETE_ON_CLOSE), FileChannel.MapMode.READ_WRITE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static OffHeapMemory openFile(Path path, boolean writable) throws IOException {
+        if (!writable)
+            return new OffHeapMemory(FileChannel.open(path, StandardOpenOption.READ), FileChannel.MapMode.READ_ONLY);
+        return new OffHeapMemory(FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE), FileChannel.MapMode.READ_WRITE);
+    }
+
+    long capacity() {
+        return capacity;
+    }
+
+    // makes sure that offsets lower than "bytes" can be used, new memory is filled with zeros
+    void ensureCapacity(long bytes) {
+        if (bytes <= capacity)
+            return;
+
+        int chunk_count = (int)((bytes + CHUNK_MASK) >>> CHUNK_SHIFT);
+        if (chunk_count == 1) {
+            // the first chunk grows by doubling until it's full size
+            int size = Math.max(MIN_FIRST_CHUNK_SIZE, chunks.length == 0 ? 0 : chunks[0].capacity());
+            while (size < bytes)
+                size <<= 1;
+            replaceFirstChunk(size);
+            return;
+        }
+
+        if (chunks.length > 0 && chunks[0].capacity() < CHUNK_SIZE)
+            replaceFirstChunk(CHUNK_SIZE);
+        int old_count = chunks.length;
+        chunks = Arrays.copyOf(chunks, chunk_count);
+        for (int i = old_count; i < chunk_count; i++)
+            chunks[i] = allocate((long)i << CHUNK_SHIFT, CHUNK_SIZE);
+        capacity = (long)chunk_count << CHUNK_SHIFT;
+    }
+
+    private void replaceFirstChunk(int size) {
+        ByteBuffer chunk = allocate(0, size);
+        // a mapped file keeps its contents, the new mapping already sees them
+        if (chunks.length > 0 && file == null)
+            chunk.duplicate().put(chunks[0].duplicate());
+        if (chunks.length == 0)
+            chunks = new ByteBuffer[1];
+        chunks[0] = chunk;
+        capacity = Math.max(capacity, size);
+    }
+
+    private ByteBuffer allocate(long position, int size) {
+        ByteBuffer chunk;
+        if (file == null) {
+            chunk = ByteBuffer.allocateDirect(size);
+        } else {
+            try {
+                // mapping beyond the end of the file extends it (with zeros), read-only mappings can't do that
+                if (map_mode == FileChannel.MapMode.READ_ONLY)
+                    size = (int)Math.min(size, file.size() - position);
+                chunk = file.map(map_mode, position, size);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        // the same byte order as longs and ints in registers, so they're read without swapping bytes
+        return chunk.order(ByteOrder.nativeOrder());
+    }
+
+    // drops all chunks (and deletes the temporary mapped file), the memory can't be used after that
+    void close() {
+        chunks = new ByteBuffer[0];
+        capacity = 0;
+        if (file != null) {
+            try {
+                file.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    long getLong(long offset) {
+        return chunks[(int)(offset >>> CHUNK_SHIFT)].getLong((int)offset & CHUNK_MASK);
+    }
+
+    void putLong(long offset, long value) {
+        chunks[(int)(offset >>> CHUNK_SHIFT)].putLong((int)offset & CHUNK_MASK, value);
+    }
+
+    int getInt(long offset) {
+        return chunks[(int)(offset >>> CHUNK_SHIFT)].getInt((int)offset & CHUNK_MASK);
+    }
+
+    void putInt(long offset, int value) {
+        chunks[(int)(offset >>> CHUNK_SHIFT)].putInt((int)offset & CHUNK_MASK, value);
+    }
+
+    byte getByte(long offset) {
+        return chunks[(int)(offset >>> CHUNK_SHIFT)].get((int)offset & CHUNK_MASK);
+    }
+
+    void putByte(long offset, byte value) {
+        chunks[(int)(offset >>> CHUNK_SHIFT)].put((int)offset & CHUNK_MASK, value);
+    }
+}
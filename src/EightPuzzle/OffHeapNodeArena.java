@@ -0,0 +1,92 @@
+package EightPuzzle;
+
+import static EightPuzzle.State.Direction;
+
+// NodeArena with records in OffHeapMemory (direct buffers or a mapped file).
+//
+// Each node is a 32 byte record, so records never cross chunk boundaries of the memory:
+//      0   packed low word of the state
+//      8   packed high word of the state
+//      16  parent
+//      20  depth
+//      24  heuristic
+//      28  blank index
+//      29  last move
+// Memory grows chunk by chunk, records that were already added are never copied.
+class OffHeapNodeArena extends NodeArena {
+    private static final int RECORD_SHIFT = 5;
+
+    private final OffHeapMemory memory;
+    private int size = 0;
+
+    OffHeapNodeArena(OffHeapMemory memory_) {
+        memory = memory_;
+    }
+
+    @Override
+    int add(int parent_, int depth_, int heuristic_, State state) {
+        long offset = (long)size << RECORD_SHIFT;
+        memory.ensureCapacity(offset + (1 << RECORD_SHIFT));
+        memory.putLong(offset, state.packedLow());
+        memory.putLong(offset + 8, state.packedHigh());
+        memory.putInt(offset + 16, parent_);
+        memory.putInt(offset + 20, depth_);
+        memory.putInt(offset + 24, heuristic_);
+        memory.putByte(offset + 28, (byte)state.getBlankIndex());
+        memory.putByte(offset + 29, (byte)state.getLastMove().ordinal());
+        return size++;
+    }
+
+    @Override
+    void clear() {
+        // memory is kept for the next nodes
+        size = 0;
+    }
+
+    @Override
+    int size() {
+        return size;
+    }
+
+    @Override
+    int parentOf(int node) {
+        return memory.getInt(((long)node << RECORD_SHIFT) + 16);
+    }
+
+    @Override
+    int depthOf(int node) {
+        return memory.getInt(((long)node << RECORD_SHIFT) + 20);
+    }
+
+    @Override
+    int heuristicOf(int node) {
+        return memory.getInt(((long)node << RECORD_SHIFT) + 24);
+    }
+
+    @Override
+    long packedLowOf(int node) {
+        return memory.getLong((long)node << RECORD_SHIFT);
+    }
+
+    @Override
+    long packedHighOf(int node) {
+        return memory.getLong(((long)node << RECORD_SHIFT) + 8);
+    }
+
+    @Override
+    Direction lastMoveOf(int node) {
+        return DIRECTIONS[memory.getByte(((long)node << RECORD_SHIFT) + 29)];
+    }
+
+    @Override
+    void loadState(int node, State state) {
+        long offset = (long)node << RECORD_SHIFT;
+        state.load(memory.getLong(offset), memory.getLong(offset + 8), memory.getByte(offset + 28),
+                DIRECTIONS[memory.getByte(offset + 29)]);
+    }
+
+    @Override
+    void close() {
+        memory.close();
+    }
+}
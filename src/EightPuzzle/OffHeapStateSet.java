@@ -0,0 +1,83 @@
+package EightPuzzle;
+
+import java.util.function.Supplier;
+
+// StateSet with its table in OffHeapMemory (direct buffers or a mapped file).
+//
+// Each slot takes 16 bytes (low word, high word), so slots never cross chunk boundaries of
+// the memory. A new memory is created for each table size, the old one is closed after
+// its states were moved (new memory is filled with zeros, so all its slots are free).
+class OffHeapStateSet extends StateSet {
+    private static final int SLOT_BYTES = 16;
+
+    private final Supplier<OffHeapMemory> memory_source;
+    private OffHeapMemory keys;
+
+    OffHeapStateSet(Supplier<OffHeapMemory> memory_source_) {
+        memory_source = memory_source_;
+        allocate(MIN_CAPACITY);
+    }
+
+    @Override
+    void allocate(int capacity) {
+        if (keys != null)
+            keys.close();
+        super.allocate(capacity);
+        keys = newTable(capacity);
+    }
+
+    private OffHeapMemory newTable(int capacity) {
+        OffHeapMemory table = memory_source.get();
+        table.ensureCapacity((long)capacity * SLOT_BYTES);
+        return table;
+    }
+
+    @Override
+    boolean insert(long lo, long hi) {
+        long table_mask = (long)(mask + 1) * SLOT_BYTES - 1;
+        long offset = (long)slotFor(lo, hi, mask) * SLOT_BYTES;
+        long slot_lo;
+        while ((slot_lo = keys.getLong(offset)) != 0) {
+            if (slot_lo == lo && keys.getLong(offset + 8) == hi)
+                return false;
+            offset = (offset + SLOT_BYTES) & table_mask;
+        }
+        keys.putLong(offset, lo);
+        keys.putLong(offset + 8, hi);
+        return true;
+    }
+
+    @Override
+    boolean find(long lo, long hi) {
+        long table_mask = (long)(mask + 1) * SLOT_BYTES - 1;
+        long offset = (long)slotFor(lo, hi, mask) * SLOT_BYTES;
+        long slot_lo;
+        while ((slot_lo = keys.getLong(offset)) != 0) {
+            if (slot_lo == lo && keys.getLong(offset + 8) == hi)
+                return true;
+            offset = (offset + SLOT_BYTES) & table_mask;
+        }
+        return false;
+    }
+
+    @Override
+    void rehash(int new_capacity) {
+        OffHeapMemory old_keys = keys;
+        long old_bytes = (long)(mask + 1) * SLOT_BYTES;
+        keys = null;
+        allocate(new_capacity);
+
+        for (long old_offset = 0; old_offset < old_bytes; old_offset += SLOT_BYTES) {
+            long lo = old_keys.getLong(old_offset);
+            if (lo == 0)
+                continue;
+            insert(lo, old_keys.getLong(old_offset + 8));
+        }
+        old_keys.close();
+    }
+
+    @Override
+    void close() {
+        keys.close();
+    }
+}
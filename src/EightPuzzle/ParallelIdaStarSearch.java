@@ -0,0 +1,350 @@
+package EightPuzzle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static EightPuzzle.State.Direction;
+
+// Parallel Iterative Deepening A* on a ForkJoinPool
+//
+// The same iterations as IdaStarSearch (depth-first searches limited by f = depth + heuristic),
+// but the tree of each iteration is divided into subtrees that are searched by different threads.
+// A subtree task searches depth-first on its own copy of the board and splits a node into tasks
+// for its children only when other threads could take them - when its own queue has few tasks
+// (ForkJoinTask.getSurplusQueuedTaskCount) and the node has enough f-slack left under the bound
+// to be worth a task. Idle threads steal the oldest tasks of busy ones, which are the nodes closest
+// to the root (the largest subtrees), so uneven subtrees are balanced without guessing their sizes.
+//
+// Tasks of an iteration share:
+//      - the next bound, the smallest f that exceeded the current one (atomic minimum)
+//      - "stopped", set when any task finds the goal or limits are exceeded, all other tasks
+//        return as soon as they see it. The first goal found is the shortest one: no solution is
+//        shorter than the bound (the previous iteration would have found it), and the goal was
+//        reached within the bound.
+// Each task stores only its board (with its context of table based heuristics) and the moves
+// leading to it, and tasks are created only while queues are nearly empty, so memory still grows
+// with the depth of the solution (and the number of threads), not with the number of generated nodes.
+//
+// States with a distance known from previous solves (see SolutionCache.java) end the path the same
+// way as in IdaStarSearch.
+class ParallelIdaStarSearch {
+    // limits are shared by all tasks, they're checked every few expansions
+    private static final int LIMIT_CHECK_INTERVAL = 32;
+    // a node is split into tasks only when its task has fewer queued tasks than this
+    private static final int MAX_SURPLUS_TASKS = 2;
+    // ... and when its subtree goes at least this many moves deeper (smaller subtrees are
+    // cheaper to search than to hand over to another thread)
+    private static final int MIN_SPLIT_SLACK = 6;
+
+    private final State initial_state;
+    private final State goal_state;
+    private final HeuristicEvaluator evaluator;
+    private final SearchLimits limits;
+    private final SearchMetrics metrics;
+    private final int threads;
+    // known distances of SolutionCache, may be null
+    private final SolutionCache.Distances known_distances;
+
+    // worker threads of the pool, each one with its own metrics (summed by the thread that waits for the search)
+    private final List<Worker> workers = new ArrayList<>();
+
+    // limit of the current iteration, changed only between iterations
+    private int bound;
+    private final AtomicInteger next_bound = new AtomicInteger();
+    private final AtomicLong nodes_expanded = new AtomicLong();
+    private volatile boolean stopped = false;
+    // exception of a task (or interruption of the waiting thread), the search is stopped and it's rethrown by run
+    private Throwable failure;
+
+    // moves from the initial to the goal state, set by the first task that reaches the goal
+    private Direction[] solution;
+
+    ParallelIdaStarSearch(State initial_state_, State goal_state_, HeuristicEvaluator evaluator_, SearchLimits limits_,
+                          SearchMetrics metrics_, SolutionCache solution_cache, int threads_) {
+        initial_state = new State(initial_state_);
+        goal_state = goal_state_;
+        evaluator = evaluator_;
+        limits = limits_;
+        metrics = metrics_;
+        threads = Math.max(1, threads_);
+        known_distances = solution_cache == null
+                ? null : solution_cache.getDistances(initial_state.getRowSize(), initial_state.getColSize());
+    }
+
+    // returns states leading from initial to goal state, or null if goal can't be reached
+    // (or the search was stopped by limits), throws what stopped a task if one failed
+    List<State> run() {
+        ForkJoinPool pool = new ForkJoinPool(threads, pool_ -> {
+            synchronized (workers) {
+                Worker worker = new Worker(pool_);
+                worker.setName("Parallel IDA* worker " + workers.size());
+                workers.add(worker);
+                return worker;
+            }
+        }, null, false);
+
+        try {
+            int initial_heuristic = evaluator.evaluate(initial_state);
+            bound = initial_heuristic;
+
+            while (true) {
+                next_bound.set(Integer.MAX_VALUE);
+                // the path array is long enough for every node within the bound (and its last move)
+                HeuristicEvaluator.Context context = evaluator.newContext();
+                evaluator.loadContext(context, initial_state);
+                Subtree root = new Subtree(new State(initial_state), context, new Direction[bound + 1], 0,
+                        initial_heuristic, Direction.NONE);
+                runIteration(pool, root);
+
+                // a failed iteration proves nothing (and a solution found before the failure is still
+                // optimal, but the failure shouldn't be hidden)
+                if (failure != null)
+                    rethrowFailure();
+                if (solution != null)
+                    return solutionStates();
+                if (stopped || next_bound.get() == Integer.MAX_VALUE)
+                    return null;
+                // next iteration is limited by the smallest f value that exceeded the current limit
+                bound = next_bound.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void runIteration(ForkJoinPool pool, Subtree root) {
+        // The root task is started from a task of the pool (not waited for with get/join by this thread),
+        // so all subtrees are searched by workers of the pool and every task can use its thread's metrics.
+        CountDownLatch done = new CountDownLatch(1);
+        pool.execute(() -> {
+            try {
+                root.invoke();
+            } catch (RuntimeException | Error e) {
+                fail(e);
+            } finally {
+                done.countDown();
+            }
+        });
+
+        // this thread only waits for the iteration and reports the sum of the workers' counters
+        // (read while workers run, so progress statistics are approximate)
+        try {
+            while (!done.await(Math.min(metrics.getProgressIntervalMs(), 1000), TimeUnit.MILLISECONDS)) {
+                sumMetrics();
+                metrics.sample();
+            }
+        } catch (InterruptedException e) {
+            fail(e);
+            // tasks return as soon as they see "stopped"
+            try {
+                done.await();
+            } catch (InterruptedException e2) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        sumMetrics();
+    }
+
+    private void sumMetrics() {
+        metrics.clearCounters();
+        synchronized (workers) {
+            for (Worker worker : workers)
+                metrics.add(worker.metrics);
+        }
+    }
+
+    private synchronized void foundGoal(Direction[] path, int depth) {
+        if (solution == null)
+            solution = Arrays.copyOf(path, depth);
+        stopped = true;
+    }
+
+    private synchronized void fail(Throwable e) {
+        if (failure == null)
+            failure = e;
+        stopped = true;
+    }
+
+    private synchronized void rethrowFailure() {
+        if (failure instanceof RuntimeException)
+            throw (RuntimeException)failure;
+        if (failure instanceof Error)
+            throw (Error)failure;
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Parallel IDA* search was interrupted.", failure);
+    }
+
+    private boolean limitsExceeded(int path_length) {
+        synchronized (limits) {
+            // only the paths of tasks are stored
+            if (limits.exceeded(nodes_expanded.get(), path_length))
+                stopped = true;
+        }
+        return stopped;
+    }
+
+    private List<State> solutionStates() {
+        // replays stored moves from the initial state
+        List<State> states = new ArrayList<>(solution.length + 1);
+        State state = new State(initial_state);
+        states.add(state);
+        for (Direction dir : solution) {
+            state = new State(state);
+            state.move(dir);
+            states.add(state);
+        }
+        // (the path ends at the goal state or at a state with a known path to it)
+        if (known_distances != null)
+            states.addAll(known_distances.pathToGoal(state));
+        return states;
+    }
+
+    long getNodesExpanded() {
+        return nodes_expanded.get();
+    }
+
+    private static class Worker extends ForkJoinWorkerThread {
+        final SearchMetrics metrics = new SearchMetrics(System.currentTimeMillis());
+
+        Worker(ForkJoinPool pool) {
+            super(pool);
+        }
+    }
+
+    // depth-first search of the subtree under "board", on a board of its own
+    private class Subtree extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final State board;
+        // context of "board" (see HeuristicEvaluator.Context), moved along with it
+        private final HeuristicEvaluator.Context context;
+        // moves from the initial state to "board" (the first "depth" of them), then moves of the current path
+        private final Direction[] path;
+        private final int depth;
+        private final int heuristic;
+        private final Direction last_move;
+
+        private SearchMetrics metrics;
+        private int expanded_since_check = 0;
+        // smallest f that exceeded the bound in this task's part of the subtree
+        // (split children report their own)
+        private int min_exceeding = Integer.MAX_VALUE;
+
+        Subtree(State board_, HeuristicEvaluator.Context context_, Direction[] path_, int depth_, int heuristic_,
+                Direction last_move_) {
+            board = board_;
+            context = context_;
+            path = path_;
+            depth = depth_;
+            heuristic = heuristic_;
+            last_move = last_move_;
+        }
+
+        @Override
+        protected void compute() {
+            metrics = ((Worker)Thread.currentThread()).metrics;
+            try {
+                search(depth, heuristic, last_move);
+            } catch (RuntimeException | Error e) {
+                // other tasks stop right away, the exception reaches the root task through joins
+                fail(e);
+                throw e;
+            }
+            nodes_expanded.addAndGet(expanded_since_check);
+            next_bound.accumulateAndGet(min_exceeding, Math::min);
+        }
+
+        // returns true when the search has to stop (goal found by any task, or limits exceeded)
+        private boolean search(int depth, int heuristic, Direction last_move) {
+            int f = depth + heuristic;
+            if (f > bound) {
+                min_exceeding = Math.min(min_exceeding, f);
+                return false;
+            }
+            if (board.equals(goal_state)) {
+                foundGoal(path, depth);
+                return true;
+            }
+            if (known_distances != null) {
+                // a known path that fits under the bound is a shortest one (see IdaStarSearch)
+                int known_distance = known_distances.distanceOf(board);
+                if (known_distance >= 0) {
+                    if (depth + known_distance <= bound) {
+                        foundGoal(path, depth);
+                        return true;
+                    }
+                    min_exceeding = Math.min(min_exceeding, depth + known_distance);
+                    return false;
+                }
+            }
+            if (stopped)
+                return true;
+            if (++expanded_since_check >= LIMIT_CHECK_INTERVAL) {
+                nodes_expanded.addAndGet(expanded_since_check);
+                expanded_since_check = 0;
+                if (limitsExceeded(depth))
+                    return true;
+            }
+
+            metrics.expanded(depth, 0, bound);
+
+            if (bound - f >= MIN_SPLIT_SLACK && getSurplusQueuedTaskCount() < MAX_SURPLUS_TASKS)
+                return split(depth, heuristic, last_move);
+
+            for (Direction dir : board.possibleMoves()) {
+                // don't undo the previous move
+                if (dir == State.oppositeMove(last_move))
+                    continue;
+
+                board.move(dir);
+                path[depth] = dir;
+
+                metrics.nodes_generated++;
+                int child_heuristic = metrics.evaluateChild(evaluator, heuristic, context, board);
+                evaluator.moveContext(context, board);
+                if (search(depth + 1, child_heuristic, dir))
+                    return true;
+
+                // undo the move
+                board.move(State.oppositeMove(dir));
+                evaluator.moveContext(context, board);
+            }
+            return false;
+        }
+
+        // children of the node become tasks (the first one is searched by this thread, the others
+        // wait in its queue until another thread steals them or this thread gets to them)
+        private boolean split(int depth, int heuristic, Direction last_move) {
+            List<Subtree> children = new ArrayList<>(4);
+            for (Direction dir : board.possibleMoves()) {
+                if (dir == State.oppositeMove(last_move))
+                    continue;
+
+                State child = new State(board);
+                child.move(dir);
+                metrics.nodes_generated++;
+                int child_heuristic = metrics.evaluateChild(evaluator, heuristic, context, child);
+                if (depth + 1 + child_heuristic > bound) {
+                    // not worth a task
+                    min_exceeding = Math.min(min_exceeding, depth + 1 + child_heuristic);
+                    continue;
+                }
+                HeuristicEvaluator.Context child_context = context.copy();
+                evaluator.moveContext(child_context, child);
+                Direction[] child_path = Arrays.copyOf(path, path.length);
+                child_path[depth] = dir;
+                children.add(new Subtree(child, child_context, child_path, depth + 1, child_heuristic, dir));
+            }
+            invokeAll(children);
+            return stopped;
+        }
+    }
+}
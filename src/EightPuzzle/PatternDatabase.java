@@ -0,0 +1,348 @@
+package EightPuzzle;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Additive disjoint pattern database heuristic.
+//
+// Values 1..size-1 are split into disjoint groups (patterns). For each group a table
+// stores, for every placement of the group's values on the board, the minimal number
+// of moves of THESE values needed to put all of them at their goal positions (other values
+// are treated as indistinguishable, moving them costs nothing). Since each move moves
+// exactly one value, which belongs to at most one group, the sum of all group tables
+// never overestimates the real number of moves (it's admissible), while being much
+// closer to it than manhattan distance (it accounts for values blocking each other).
+//
+// Tables are built by backward breadth-first search from the goal state (one per group)
+// and saved to "pattern_databases/<rows>x<cols>.pdb". Later runs map that file into memory
+// (memory-mapped I/O) instead of rebuilding the tables.
+class PatternDatabase {
+    private static final int FILE_MAGIC = 0x50444231; // "PDB1"
+    private static final Path DIRECTORY = Paths.get("pattern_databases");
+
+    // Search of a single group visits (size ^ (group size + 1)) states (positions of the
+    // group's values + position of the empty space), this limits memory used while building.
+    private static final long MAX_SEARCH_STATES = 1 << 24;
+    private static final int MAX_GROUP_SIZE = 6;
+    private static final int UNKNOWN = 0xFF;
+
+    private static final Map<BoardGeometry, PatternDatabase> cache = new ConcurrentHashMap<>();
+
+    private final BoardGeometry geometry;
+
+    // group_of_value[v] - which group value v belongs to (-1 for the empty space)
+    // weight_of_value[v] - multiplier of v's position in the table index of its group
+    private final int[] group_of_value;
+    private final int[] weight_of_value;
+    private final int[][] groups;
+
+    // all tables, one after another, table of group g starts at table_offsets[g]
+    private final ByteBuffer tables;
+    private final int[] table_offsets;
+
+    static PatternDatabase of(BoardGeometry geometry) {
+        return cache.computeIfAbsent(geometry, PatternDatabase::loadOrBuild);
+    }
+
+    private PatternDatabase(BoardGeometry geometry_, int[][] groups_, ByteBuffer tables_) {
+        geometry = geometry_;
+        groups = groups_;
+        tables = tables_;
+
+        group_of_value = new int[geometry.size];
+        weight_of_value = new int[geometry.size];
+        table_offsets = new int[groups.length];
+        Arrays.fill(group_of_value, -1);
+
+        int offset = 0;
+        for (int g = 0; g < groups.length; g++) {
+            int weight = 1;
+            for (int i = groups[g].length - 1; i >= 0; i--) {
+                group_of_value[groups[g][i]] = g;
+                weight_of_value[groups[g][i]] = weight;
+                weight *= geometry.size;
+            }
+            table_offsets[g] = offset;
+            offset += weight;
+        }
+    }
+
+    int groupCount() {
+        return groups.length;
+    }
+
+    int evaluate(State state) {
+        // the heuristic is a sum of one lookup per group
+        int[] group_index = new int[groups.length];
+        loadIndices(state, group_index);
+
+        int heuristic = 0;
+        for (int g = 0; g < groups.length; g++)
+            heuristic += tables.get(table_offsets[g] + group_index[g]) & 0xFF;
+        return heuristic;
+    }
+
+    // table index of each group, built from positions of its values in a single pass over the board
+    void loadIndices(State state, int[] group_index) {
+        Arrays.fill(group_index, 0);
+        for (int index = 0; index < geometry.size; index++) {
+            int value = state.getValueAt(index);
+            if (value != 0)
+                group_index[group_of_value[value]] += index * weight_of_value[value];
+        }
+    }
+
+    // indices of the state before the last move of "moved" become indices of "moved"
+    void moveIndices(int[] group_index, State moved) {
+        int value = moved.getValueThatMoved();
+        group_index[group_of_value[value]] += (moved.getPreviousBlankIndex() - moved.getBlankIndex()) * weight_of_value[value];
+    }
+
+    int evaluateChild(int parent_heuristic, int[] parent_index, State child) {
+        // only the group of the moved value changed, its index differs from the parent's
+        // by the change of the moved value's position (from the field of the empty space
+        // to the field where the empty space was)
+        int moved = child.getValueThatMoved();
+        int g = group_of_value[moved];
+        int child_index = parent_index[g] + (child.getPreviousBlankIndex() - child.getBlankIndex()) * weight_of_value[moved];
+
+        return parent_heuristic
+                + (tables.get(table_offsets[g] + child_index) & 0xFF)
+                - (tables.get(table_offsets[g] + parent_index[g]) & 0xFF);
+    }
+
+    private static int[][] chooseGroups(BoardGeometry geometry) {
+        // biggest groups that keep the search of each group within MAX_SEARCH_STATES,
+        // values are split evenly in goal order (so each group covers neighboring fields)
+        int group_size = 1;
+        while (group_size < MAX_GROUP_SIZE && Math.pow(geometry.size, group_size + 2) <= MAX_SEARCH_STATES)
+            group_size++;
+
+        int values = geometry.size - 1;
+        int group_count = (values + group_size - 1) / group_size;
+        int[][] groups = new int[group_count][];
+        int value = 1;
+        for (int g = 0; g < group_count; g++) {
+            groups[g] = new int[values / group_count + (g < values % group_count ? 1 : 0)];
+            for (int i = 0; i < groups[g].length; i++)
+                groups[g][i] = value++;
+        }
+        return groups;
+    }
+
+    private static Path fileFor(BoardGeometry geometry) {
+        return DIRECTORY.resolve(geometry.rows + "x" + geometry.cols + ".pdb");
+    }
+
+    private static PatternDatabase loadOrBuild(BoardGeometry geometry) {
+        int[][] groups = chooseGroups(geometry);
+        Path file = fileFor(geometry);
+
+        // (this runs inside solves of any program using the library, so nothing is printed,
+        // a file that can't be read or written only means that the tables are built again)
+        if (Files.exists(file)) {
+            try {
+                PatternDatabase pdb = load(geometry, groups, file);
+                if (pdb != null)
+                    return pdb;
+            } catch (IOException e) {
+                // rebuilt below, like a file that doesn't match
+            }
+        }
+
+        PatternDatabase pdb = build(geometry, groups);
+        try {
+            save(pdb, file);
+            // use the mapped file from now on, so the heap copy can be collected
+            PatternDatabase mapped = load(geometry, groups, file);
+            if (mapped != null)
+                return mapped;
+        } catch (IOException e) {
+            // database still works from memory, it just won't be reused by the next run
+        }
+        return pdb;
+    }
+
+    private static PatternDatabase load(BoardGeometry geometry, int[][] groups, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.BIG_ENDIAN);
+
+            // header: magic, rows, cols, number of groups, then each group (length + values)
+            if (buffer.remaining() < 16 || buffer.getInt() != FILE_MAGIC
+                    || buffer.getInt() != geometry.rows || buffer.getInt() != geometry.cols
+                    || buffer.getInt() != groups.length)
+                return null;
+            long tables_size = 0;
+            for (int[] group : groups) {
+                // (a truncated file ends anywhere, even inside the group headers)
+                if (buffer.remaining() < 4 * (1 + group.length) || buffer.getInt() != group.length)
+                    return null;
+                for (int value : group)
+                    if (buffer.getInt() != value)
+                        return null;
+                tables_size += (long)Math.pow(geometry.size, group.length);
+            }
+            if (buffer.remaining() != tables_size)
+                return null;
+
+            // mapping stays valid after the channel is closed
+            return new PatternDatabase(geometry, groups, buffer.slice());
+        }
+    }
+
+    private static void save(PatternDatabase pdb, Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        int header_size = 16;
+        for (int[] group : pdb.groups)
+            header_size += 4 + 4 * group.length;
+
+        ByteBuffer header = ByteBuffer.allocate(header_size).order(ByteOrder.BIG_ENDIAN);
+        header.putInt(FILE_MAGIC).putInt(pdb.geometry.rows).putInt(pdb.geometry.cols).putInt(pdb.groups.length);
+        for (int[] group : pdb.groups) {
+            header.putInt(group.length);
+            for (int value : group)
+                header.putInt(value);
+        }
+        header.flip();
+
+        // written to a temporary file first, so other runs never map a half-written file
+        Path temp_file = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try (FileChannel channel = FileChannel.open(temp_file, StandardOpenOption.WRITE)) {
+            while (header.hasRemaining())
+                channel.write(header);
+            ByteBuffer tables = pdb.tables.duplicate();
+            tables.rewind();
+            while (tables.hasRemaining())
+                channel.write(tables);
+        }
+        Files.move(temp_file, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static PatternDatabase build(BoardGeometry geometry, int[][] groups) {
+        long tables_size = 0;
+        for (int[] group : groups)
+            tables_size += (long)Math.pow(geometry.size, group.length);
+
+        ByteBuffer tables = ByteBuffer.allocate((int)tables_size);
+        for (int[] group : groups)
+            tables.put(buildGroupTable(geometry, group));
+        tables.rewind();
+        return new PatternDatabase(geometry, groups, tables);
+    }
+
+    private static byte[] buildGroupTable(BoardGeometry geometry, int[] group) {
+        // Breadth-first search backwards from the goal over states made of positions of the group's
+        // values and the position of the empty space (index = positions in base "size", empty space last).
+        // Moving the empty space into a field of a value from the group costs 1 move, moving it
+        // into any other field costs 0 (other values are not counted), so states are processed
+        // level by level: states reachable at no extra cost are added to the current level,
+        // others are queued for the next one.
+        int size = geometry.size;
+        int k = group.length;
+        int table_size = (int)Math.pow(size, k);
+        int state_count = table_size * size;
+
+        byte[] table = new byte[table_size];
+        Arrays.fill(table, (byte)UNKNOWN);
+        byte[] distance = new byte[state_count];
+        Arrays.fill(distance, (byte)UNKNOWN);
+        BitSet queued = new BitSet(state_count);
+
+        int goal = 0;
+        for (int value : group)
+            goal = goal * size + geometry.goal_index_of_value[value];
+        goal = goal * size + geometry.goal_index_of_value[0];
+
+        IntQueue current = new IntQueue();
+        IntQueue next = new IntQueue();
+        next.add(goal);
+        queued.set(goal);
+
+        int[] positions = new int[k];
+        for (int level = 0; !next.isEmpty(); level++) {
+            IntQueue seeds = next;
+            next = current;
+            next.clear();
+            current = seeds;
+
+            // states queued by the previous level that weren't reached at a lower cost meanwhile
+            int seed_count = current.size();
+            for (int i = 0; i < seed_count; i++) {
+                int state = current.get(i);
+                if ((distance[state] & 0xFF) == UNKNOWN)
+                    distance[state] = (byte)level;
+                else
+                    current.set(i, -1);
+            }
+
+            for (int i = 0; i < current.size(); i++) {
+                int state = current.get(i);
+                if (state < 0)
+                    continue;
+
+                int pattern_index = state / size;
+                int blank = state % size;
+                if ((table[pattern_index] & 0xFF) == UNKNOWN)
+                    table[pattern_index] = (byte)level;
+
+                int rest = pattern_index;
+                for (int t = k - 1; t >= 0; t--) {
+                    positions[t] = rest % size;
+                    rest /= size;
+                }
+
+                for (int neighbor : geometry.neighbors[blank]) {
+                    int moved = -1;
+                    for (int t = 0; t < k; t++)
+                        if (positions[t] == neighbor)
+                            moved = t;
+
+                    if (moved < 0) {
+                        // empty space swaps with a value outside of the group - no cost
+                        int new_state = pattern_index * size + neighbor;
+                        if ((distance[new_state] & 0xFF) == UNKNOWN) {
+                            distance[new_state] = (byte)level;
+                            current.add(new_state);
+                        }
+                    } else {
+                        // value from the group moves into the empty space
+                        int weight = (int)Math.pow(size, k - 1 - moved);
+                        int new_state = (pattern_index + (blank - neighbor) * weight) * size + neighbor;
+                        if ((distance[new_state] & 0xFF) == UNKNOWN && !queued.get(new_state)) {
+                            queued.set(new_state);
+                            next.add(new_state);
+                        }
+                    }
+                }
+            }
+        }
+        return table;
+    }
+
+    // growable array of ints used as BFS queue (avoids boxing of millions of states)
+    private static class IntQueue {
+        private int[] items = new int[1024];
+        private int size = 0;
+
+        void add(int item) {
+            if (size == items.length)
+                items = Arrays.copyOf(items, size * 2);
+            items[size++] = item;
+        }
+
+        int get(int i) { return items[i]; }
+        void set(int i, int item) { items[i] = item; }
+        int size() { return size; }
+        boolean isEmpty() { return size == 0; }
+        void clear() { size = 0; }
+    }
+}
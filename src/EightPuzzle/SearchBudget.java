@@ -0,0 +1,36 @@
+package EightPuzzle;
+
+// Limits of a single solve. When any of them is reached the search stops
+// and EightPuzzle.solve returns SolveResult.BUDGET_EXCEEDED.
+public class SearchBudget {
+    public static final long UNLIMITED = Long.MAX_VALUE;
+
+    // how many nodes can be expanded
+    final long max_expanded_nodes;
+    // how long the search can take (milliseconds)
+    final long max_time_ms;
+    // how many nodes/states can be kept in memory at once (open list + visited states)
+    final long max_stored_nodes;
+
+    public SearchBudget(long max_expanded_nodes_, long max_time_ms_, long max_stored_nodes_) {
+        max_expanded_nodes = max_expanded_nodes_;
+        max_time_ms = max_time_ms_;
+        max_stored_nodes = max_stored_nodes_;
+    }
+
+    public static SearchBudget unlimited() {
+        return new SearchBudget(UNLIMITED, UNLIMITED, UNLIMITED);
+    }
+
+    public long getMaxExpandedNodes() {
+        return max_expanded_nodes;
+    }
+
+    public long getMaxTimeMs() {
+        return max_time_ms;
+    }
+
+    public long getMaxStoredNodes() {
+        return max_stored_nodes;
+    }
+}
@@ -0,0 +1,48 @@
+package EightPuzzle;
+
+import jdk.jfr.*;
+
+// Java Flight Recorder events of searches, they're recorded only when JFR is running, e.g.
+//      java -XX:StartFlightRecording=filename=solve.jfr ...
+// and can be viewed in JDK Mission Control (or "jfr print --events EightPuzzle.* solve.jfr").
+class SearchEvents {
+    @Name("EightPuzzle.SearchProgress")
+    @Label("Search Progress")
+    @Category("EightPuzzle")
+    @Description("Sampled statistics of a running solve")
+    @StackTrace(false)
+    static class Progress extends Event {
+        @Label("Elapsed") @Timespan(Timespan.MILLISECONDS) long elapsed;
+        @Label("Nodes Generated") long nodes_generated;
+        @Label("Nodes Expanded") long nodes_expanded;
+        @Label("Open List Size") long open_size;
+        @Label("Closed Set Size") long closed_size;
+        @Label("Duplicates Rejected") long duplicates_rejected;
+        @Label("Heuristic Time") @Timespan(Timespan.MILLISECONDS) long heuristic_time;
+        @Label("Peak Heap") @DataAmount long peak_heap;
+        @Label("F Bound") int f_bound;
+    }
+
+    @Name("EightPuzzle.SearchFinished")
+    @Label("Search Finished")
+    @Category("EightPuzzle")
+    @Description("Statistics of a finished solve")
+    @StackTrace(false)
+    static class Finished extends Progress {
+        @Label("Algorithm") String algorithm;
+        @Label("Result") String result;
+    }
+
+    static void commit(Progress event, SearchStatistics statistics) {
+        event.elapsed = statistics.getElapsedMs();
+        event.nodes_generated = statistics.getNodesGenerated();
+        event.nodes_expanded = statistics.getNodesExpanded();
+        event.open_size = statistics.getOpenSize();
+        event.closed_size = statistics.getClosedSize();
+        event.duplicates_rejected = statistics.getDuplicatesRejected();
+        event.heuristic_time = statistics.getHeuristicTimeMs();
+        event.peak_heap = statistics.getPeakHeapBytes();
+        event.f_bound = statistics.getFBound();
+        event.commit();
+    }
+}
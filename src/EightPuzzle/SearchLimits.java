@@ -0,0 +1,42 @@
+package EightPuzzle;
+
+import static EightPuzzle.EightPuzzle.SolveResult;
+
+// Checks budget and cancellation of a single solve, searches call "exceeded"
+// for every expanded node and stop when it returns true.
+class SearchLimits {
+    // reading the clock for every node would be slower than expanding it
+    private static final int TIME_CHECK_INTERVAL = 1024;
+
+    private final SearchBudget budget;
+    private final CancellationToken cancellation_token;
+    private final long start_time;
+
+    private int checks = 0;
+    private SolveResult stop_reason = null;
+
+    SearchLimits(SearchBudget budget_, CancellationToken cancellation_token_, long start_time_) {
+        budget = budget_;
+        cancellation_token = cancellation_token_;
+        start_time = start_time_;
+    }
+
+    boolean exceeded(long expanded_nodes, long stored_nodes) {
+        if (stop_reason != null)
+            return true;
+
+        if (cancellation_token.isCancelled())
+            stop_reason = SolveResult.CANCELLED;
+        else if (expanded_nodes > budget.max_expanded_nodes || stored_nodes > budget.max_stored_nodes)
+            stop_reason = SolveResult.BUDGET_EXCEEDED;
+        else if (++checks % TIME_CHECK_INTERVAL == 0 && System.currentTimeMillis() - start_time > budget.max_time_ms)
+            stop_reason = SolveResult.BUDGET_EXCEEDED;
+
+        return stop_reason != null;
+    }
+
+    // null if the search wasn't stopped by limits
+    SolveResult getStopReason() {
+        return stop_reason;
+    }
+}
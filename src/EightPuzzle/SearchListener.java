@@ -0,0 +1,22 @@
+package EightPuzzle;
+
+import java.util.List;
+
+// Receives statistics of a running solve (see EightPuzzle.setSearchListener).
+//
+// Methods are called from the thread that runs the solve, so they should return quickly
+// (GUI should pass the statistics to its own thread, e.g. with SwingUtilities.invokeLater).
+public interface SearchListener {
+    // called repeatedly while the search runs (at most once per progress interval)
+    void onProgress(SearchStatistics statistics);
+
+    // called by anytime searches (ARA_STAR) every time they find a shorter solution,
+    // "weight" - the solution is at most this many times longer than the shortest one
+    default void onSolutionImproved(List<State> solution_states, double weight) {
+    }
+
+    // called once after the search finished (solved or not)
+    default void onFinished(SearchStatistics statistics) {
+        onProgress(statistics);
+    }
+}
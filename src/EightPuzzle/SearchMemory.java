@@ -0,0 +1,101 @@
+package EightPuzzle;
+
+import java.nio.file.Path;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static EightPuzzle.EightPuzzle.StorageMode;
+
+// Node arena, set of visited (closed) states and open list of a single search (A*, weighted A*
+// and ARA*, see BestFirstSearch.java and AraStarSearch.java).
+//
+// Heap structures are reused. When a search finishes they're emptied and kept in a pool shared by all
+// solves of the JVM, and the next search (of any thread) takes them from there. Their arrays stay at the
+// size they grew to, so many solves in a row (or at the same time, each one takes its own structures)
+// don't allocate, zero and collect the same big arrays again and again. The pool keeps at most
+// MAX_POOLED_BYTES, structures that don't fit are left to the garbage collector.
+//
+// Off-heap structures are not pooled, they're closed when the search finishes (their memory is released
+// right away, see OffHeapMemory.java).
+final class SearchMemory {
+    private static final long MAX_POOLED_BYTES = Runtime.getRuntime().maxMemory() / 8;
+
+    // (last released structures are taken first, their arrays are the most likely to be in cache)
+    private static final Deque<HeapNodeArena> pooled_arenas = new ConcurrentLinkedDeque<>();
+    private static final Deque<HeapStateSet> pooled_sets = new ConcurrentLinkedDeque<>();
+    private static final Deque<IntBucketQueue> pooled_queues = new ConcurrentLinkedDeque<>();
+    private static final AtomicLong pooled_bytes = new AtomicLong();
+
+    final NodeArena arena;
+    final StateSet visited;
+    final IntBucketQueue open;
+
+    private SearchMemory(NodeArena arena_, StateSet visited_, IntBucketQueue open_) {
+        arena = arena_;
+        visited = visited_;
+        open = open_;
+    }
+
+    static SearchMemory acquire(StorageMode storage, Path directory) {
+        IntBucketQueue open = pooled_queues.pollFirst();
+        if (open != null)
+            pooled_bytes.addAndGet(-open.retainedBytes());
+        else
+            open = new IntBucketQueue();
+
+        if (storage != StorageMode.HEAP)
+            return new SearchMemory(NodeArena.create(storage, directory), StateSet.create(storage, directory), open);
+
+        HeapNodeArena arena = pooled_arenas.pollFirst();
+        if (arena != null)
+            pooled_bytes.addAndGet(-arena.retainedBytes());
+        else
+            arena = new HeapNodeArena();
+
+        HeapStateSet visited = pooled_sets.pollFirst();
+        if (visited != null)
+            pooled_bytes.addAndGet(-visited.retainedBytes());
+        else
+            visited = new HeapStateSet();
+
+        return new SearchMemory(arena, visited, open);
+    }
+
+    // the structures can't be used after that
+    void release() {
+        open.reset();
+        if (reserve(open.retainedBytes()))
+            pooled_queues.addFirst(open);
+
+        if (arena instanceof HeapNodeArena) {
+            HeapNodeArena heap_arena = (HeapNodeArena)arena;
+            heap_arena.clear();
+            if (reserve(heap_arena.retainedBytes()))
+                pooled_arenas.addFirst(heap_arena);
+        } else {
+            arena.close();
+        }
+
+        if (visited instanceof HeapStateSet) {
+            HeapStateSet heap_set = (HeapStateSet)visited;
+            // (a set that won't be pooled isn't cleared, it would be a waste of time)
+            if (reserve(heap_set.retainedBytes())) {
+                heap_set.reset();
+                pooled_sets.addFirst(heap_set);
+            }
+        } else {
+            visited.close();
+        }
+    }
+
+    private static boolean reserve(long bytes) {
+        while (true) {
+            long pooled = pooled_bytes.get();
+            if (pooled + bytes > MAX_POOLED_BYTES)
+                return false;
+            if (pooled_bytes.compareAndSet(pooled, pooled + bytes))
+                return true;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package EightPuzzle;
+
+// Counters of a single solve, updated by searches while they run.
+//
+// Searches call "expanded" for every expanded node. The clock is read only every few calls,
+// and when the progress interval passed, statistics are sent to SearchListener and recorded
+// as JFR event. Counters are plain fields, so a single object is used by a single thread
+// (HdaStarSearch and ParallelIdaStarSearch keep one per worker thread and report their sum, see "add").
+class SearchMetrics {
+    // reading the clock (and used heap) for every node would be slower than expanding it
+    private static final int CLOCK_CHECK_INTERVAL = 1024;
+    // only 1 of every 64 heuristic evaluations is timed, the time is multiplied by 64
+    private static final int HEURISTIC_SAMPLE_MASK = 63;
+
+    private final SearchListener listener;
+    private final long progress_interval_ms;
+    private final long start_time;
+    private long next_progress_time;
+    private int checks = 0;
+
+    long nodes_generated = 0;
+    long nodes_expanded = 0;
+    long duplicates_rejected = 0;
+    long open_size = 0;
+    long closed_size = 0;
+    int f_bound = 0;
+    private long heuristic_evaluations = 0;
+    private long heuristic_time_ns = 0;
+    private long peak_heap_bytes = 0;
+
+    // listener may be null (counters are still kept for EightPuzzle.getStatistics)
+    SearchMetrics(SearchListener listener_, long progress_interval_ms_, long start_time_) {
+        listener = listener_;
+        progress_interval_ms = progress_interval_ms_;
+        start_time = start_time_;
+        next_progress_time = start_time + progress_interval_ms;
+    }
+
+    // counters only, progress is never reported (used by worker threads of parallel searches)
+    SearchMetrics(long start_time_) {
+        listener = null;
+        progress_interval_ms = Long.MAX_VALUE;
+        start_time = start_time_;
+        next_progress_time = Long.MAX_VALUE;
+    }
+
+    long getProgressIntervalMs() {
+        return progress_interval_ms;
+    }
+
+    void expanded(long open_size_, long closed_size_, int f_bound_) {
+        nodes_expanded++;
+        open_size = open_size_;
+        closed_size = closed_size_;
+        f_bound = f_bound_;
+        if (++checks % CLOCK_CHECK_INTERVAL == 0)
+            sample();
+    }
+
+    void sample() {
+        updatePeakHeap();
+        long now = System.currentTimeMillis();
+        if (now >= next_progress_time) {
+            next_progress_time = now + progress_interval_ms;
+            reportProgress();
+        }
+    }
+
+    void reportProgress() {
+        SearchStatistics statistics = snapshot();
+        SearchEvents.commit(new SearchEvents.Progress(), statistics);
+        if (listener != null)
+            listener.onProgress(statistics);
+    }
+
+    SearchStatistics reportFinished(EightPuzzle.Algorithm algorithm, EightPuzzle.SolveResult result) {
+        updatePeakHeap();
+        SearchStatistics statistics = snapshot();
+        SearchEvents.Finished event = new SearchEvents.Finished();
+        event.algorithm = algorithm.toString();
+        event.result = result.toString();
+        SearchEvents.commit(event, statistics);
+        if (listener != null)
+            listener.onFinished(statistics);
+        return statistics;
+    }
+
+    void setHeuristics(Node node, HeuristicEvaluator evaluator, HeuristicEvaluator.Context parent_context) {
+        if ((++heuristic_evaluations & HEURISTIC_SAMPLE_MASK) != 0) {
+            node.setHeuristics(evaluator, parent_context);
+            return;
+        }
+        long start = System.nanoTime();
+        node.setHeuristics(evaluator, parent_context);
+        heuristic_time_ns += (System.nanoTime() - start) * (HEURISTIC_SAMPLE_MASK + 1);
+    }
+
+    int evaluateChild(HeuristicEvaluator evaluator, int parent_heuristic, HeuristicEvaluator.Context parent_context,
+                      State child) {
+        if ((++heuristic_evaluations & HEURISTIC_SAMPLE_MASK) != 0)
+            return evaluator.evaluateChild(parent_heuristic, parent_context, child);
+        long start = System.nanoTime();
+        int heuristic = evaluator.evaluateChild(parent_heuristic, parent_context, child);
+        heuristic_time_ns += (System.nanoTime() - start) * (HEURISTIC_SAMPLE_MASK + 1);
+        return heuristic;
+    }
+
+    void clearCounters() {
+        nodes_generated = 0;
+        nodes_expanded = 0;
+        duplicates_rejected = 0;
+        open_size = 0;
+        closed_size = 0;
+        f_bound = 0;
+        heuristic_time_ns = 0;
+    }
+
+    // adds counters of "other" (sizes are summed, f-bound is the lowest one)
+    void add(SearchMetrics other) {
+        nodes_generated += other.nodes_generated;
+        nodes_expanded += other.nodes_expanded;
+        duplicates_rejected += other.duplicates_rejected;
+        open_size += other.open_size;
+        closed_size += other.closed_size;
+        f_bound = f_bound == 0 ? other.f_bound : Math.min(f_bound, other.f_bound);
+        heuristic_time_ns += other.heuristic_time_ns;
+        peak_heap_bytes = Math.max(peak_heap_bytes, other.peak_heap_bytes);
+    }
+
+    private void updatePeakHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        peak_heap_bytes = Math.max(peak_heap_bytes, runtime.totalMemory() - runtime.freeMemory());
+    }
+
+    SearchStatistics snapshot() {
+        return new SearchStatistics(System.currentTimeMillis() - start_time, nodes_generated, nodes_expanded,
+                open_size, closed_size, duplicates_rejected, heuristic_time_ns, peak_heap_bytes, f_bound);
+    }
+}
@@ -0,0 +1,86 @@
+package EightPuzzle;
+
+// Snapshot of counters of a single solve (see SearchMetrics.java)
+public class SearchStatistics {
+    private final long elapsed_ms;
+    private final long nodes_generated;
+    private final long nodes_expanded;
+    private final long open_size;
+    private final long closed_size;
+    private final long duplicates_rejected;
+    private final long heuristic_time_ns;
+    private final long peak_heap_bytes;
+    private final int f_bound;
+
+    SearchStatistics(long elapsed_ms_, long nodes_generated_, long nodes_expanded_, long open_size_, long closed_size_,
+                     long duplicates_rejected_, long heuristic_time_ns_, long peak_heap_bytes_, int f_bound_) {
+        elapsed_ms = elapsed_ms_;
+        nodes_generated = nodes_generated_;
+        nodes_expanded = nodes_expanded_;
+        open_size = open_size_;
+        closed_size = closed_size_;
+        duplicates_rejected = duplicates_rejected_;
+        heuristic_time_ns = heuristic_time_ns_;
+        peak_heap_bytes = peak_heap_bytes_;
+        f_bound = f_bound_;
+    }
+
+    public long getElapsedMs() {
+        return elapsed_ms;
+    }
+
+    public long getNodesGenerated() {
+        return nodes_generated;
+    }
+
+    public long getNodesExpanded() {
+        return nodes_expanded;
+    }
+
+    public long getGeneratedPerSecond() {
+        return elapsed_ms == 0 ? 0 : nodes_generated * 1000 / elapsed_ms;
+    }
+
+    public long getExpandedPerSecond() {
+        return elapsed_ms == 0 ? 0 : nodes_expanded * 1000 / elapsed_ms;
+    }
+
+    // nodes waiting to be expanded (for IDA* it's the length of the current path)
+    public long getOpenSize() {
+        return open_size;
+    }
+
+    // states that were already expanded (IDA* doesn't keep them)
+    public long getClosedSize() {
+        return closed_size;
+    }
+
+    // generated/taken nodes dropped because their state was already reached by a path that's not longer
+    public long getDuplicatesRejected() {
+        return duplicates_rejected;
+    }
+
+    // estimated from a sample of evaluations (timing each of them would take longer than evaluating)
+    public long getHeuristicTimeMs() {
+        return heuristic_time_ns / 1_000_000;
+    }
+
+    // highest used heap memory seen while the search was running (of the whole program)
+    public long getPeakHeapBytes() {
+        return peak_heap_bytes;
+    }
+
+    // lowest f (depth + heuristic) that's currently searched, no solution can be shorter
+    // (for IDA* it's the limit of the current iteration)
+    public int getFBound() {
+        return f_bound;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%dms, %d expanded (%d/s), %d generated (%d/s), open %d, closed %d, "
+                        + "%d duplicates, heuristics %dms, peak heap %dMB, f-bound %d",
+                elapsed_ms, nodes_expanded, getExpandedPerSecond(), nodes_generated, getGeneratedPerSecond(),
+                open_size, closed_size, duplicates_rejected, getHeuristicTimeMs(), peak_heap_bytes >> 20, f_bound);
+    }
+}
@@ -0,0 +1,384 @@
+package EightPuzzle;
+
+import java.io.*;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+import static EightPuzzle.EightPuzzle.*;
+import static EightPuzzle.State.Direction;
+
+// Remembers solutions of previous solves, so solving the same board again doesn't repeat the search.
+//
+// Solutions are kept for the whole solve configuration: packed initial state, board shape, algorithm
+// and the set of selected heuristics (different heuristics can lead to different solutions). Only
+// moves are stored (1 byte per move), states are replayed from the initial state when it's found.
+// The number of kept solutions is limited, the least recently used one is removed first.
+//
+// Every state on a solution path is also recorded with its distance to the goal and the next move
+// of that path. The goal state of EightPuzzle is the same for all boards of a shape, so later searches
+// (of any initial state) that reach one of these states can finish the path from the table
+// (see BestFirstSearch.java, IdaStarSearch.java, ParallelIdaStarSearch.java and HdaStarSearch.java). Distances are recorded only from solutions that are known
+// to be the shortest ones (see isOptimal), up to a limited number of states.
+//
+// A single cache can be shared by many EightPuzzle objects solving at the same time.
+// The cache can be saved to a file and loaded on the next run of the program.
+public class SolutionCache {
+    private static final int FILE_MAGIC = 0x534F4C31; // "SOL1"
+    // (Direction.values() creates a new array on every call)
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final int max_solutions;
+    private final int max_distances;
+
+    // LinkedHashMap in access order - the first entry is the least recently used one
+    private final LinkedHashMap<Key, byte[]> solutions;
+
+    // distance tables of each board shape (rows * 8 + cols), new distances are added to them in place,
+    // searches read them without locking (see Distances)
+    private final Map<Integer, Distances> distances = new HashMap<>();
+    private int distances_count = 0;
+
+    public SolutionCache(int max_solutions_, int max_distances_) {
+        max_solutions = max_solutions_;
+        max_distances = max_distances_;
+        solutions = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, byte[]> eldest) {
+                return size() > max_solutions;
+            }
+        };
+    }
+
+    // returns solution states or null if the configuration wasn't solved before
+    synchronized List<State> getSolution(State initial_state, Algorithm algorithm, List<Heuristic> heuristics) {
+        byte[] moves = solutions.get(new Key(initial_state, algorithm, heuristics));
+        if (moves == null)
+            return null;
+
+        List<State> states = new ArrayList<>(moves.length + 1);
+        State state = new State(initial_state);
+        states.add(state);
+        for (byte move : moves) {
+            // moves are checked when they're loaded, this only guards against a move that doesn't fit
+            // the board (State.move would end the program), such solution is dropped and solved again
+            if (!isMove(move) || !state.canMove(DIRECTIONS[move])) {
+                solutions.remove(new Key(initial_state, algorithm, heuristics));
+                return null;
+            }
+            state = new State(state);
+            state.move(DIRECTIONS[move]);
+            states.add(state);
+        }
+        return states;
+    }
+
+    synchronized void putSolution(Algorithm algorithm, List<Heuristic> heuristics, List<State> solution_states) {
+        byte[] moves = new byte[solution_states.size() - 1];
+        for (int i = 1; i < solution_states.size(); i++)
+            moves[i - 1] = (byte)solution_states.get(i - 1).directionTo(solution_states.get(i)).ordinal();
+        solutions.put(new Key(solution_states.get(0), algorithm, heuristics), moves);
+
+        if (isOptimal(heuristics))
+            addDistances(solution_states);
+    }
+
+    private void addDistances(List<State> solution_states) {
+        // (an empty table isn't created, searches don't look up states of shapes without distances)
+        if (solution_states.size() < 2 || distances_count >= max_distances)
+            return;
+        Distances table = distances.computeIfAbsent(shapeOf(solution_states.get(0)), shape -> new Distances());
+
+        int last = solution_states.size() - 1;
+        for (int i = 0; i < last && distances_count < max_distances; i++) {
+            State state = solution_states.get(i);
+            Direction next_move = state.directionTo(solution_states.get(i + 1));
+            if (table.put(state.packedLow(), state.packedHigh(), last - i, next_move))
+                distances_count++;
+        }
+    }
+
+    // distances of a single board shape, null if none were recorded
+    synchronized Distances getDistances(int rows, int cols) {
+        return distances.get(rows * 8 + cols);
+    }
+
+    static boolean isOptimal(List<Heuristic> heuristics) {
+        // Every algorithm (except weighted ones, their solutions are not kept) returns the shortest
+        // solution when its heuristic never overestimates the number of moves left. Each heuristic
+        // alone doesn't, and neither does manhattan distance + direct reverse penalty (a reversed pair
+        // costs at least 2 moves more than manhattan distance says, 1 is added for each of the 2 fields).
+        // LINEAR_CONFLICT already includes manhattan distance (it's counted once when both are selected),
+        // so manhattan distance + linear conflict is the same heuristic as linear conflict alone.
+        // Other sums of heuristics can count the same moves twice.
+        Set<Heuristic> set = EnumSet.noneOf(Heuristic.class);
+        set.addAll(heuristics);
+        if (set.contains(Heuristic.LINEAR_CONFLICT))
+            set.remove(Heuristic.MANHATTAN_DISTANCE);
+        return set.size() <= 1 || set.equals(EnumSet.of(Heuristic.MANHATTAN_DISTANCE, Heuristic.DIRECT_REVERSE_PENALTY));
+    }
+
+    private static int shapeOf(State state) {
+        return state.getRowSize() * 8 + state.getColSize();
+    }
+
+    public synchronized int size() {
+        return solutions.size();
+    }
+
+    public synchronized void save(Path path) throws IOException {
+        // written to a temporary file first, so a failed save (or a crash) never leaves a half-written cache
+        Path directory = path.toAbsolutePath().getParent();
+        Path temp_file = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp_file)))) {
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(solutions.size());
+            for (Map.Entry<Key, byte[]> entry : solutions.entrySet()) {
+                Key key = entry.getKey();
+                out.writeLong(key.lo);
+                out.writeLong(key.hi);
+                out.writeInt(key.configuration);
+                out.writeInt(entry.getValue().length);
+                out.write(entry.getValue());
+            }
+
+            out.writeInt(distances.size());
+            for (Map.Entry<Integer, Distances> entry : distances.entrySet()) {
+                Distances.Table table = entry.getValue().table;
+                out.writeInt(entry.getKey());
+                out.writeInt(entry.getValue().size);
+                for (int slot = 0; slot < table.keys_lo.length; slot++) {
+                    if (table.distanceAt(slot) == 0)
+                        continue;
+                    out.writeLong(table.keys_lo[slot]);
+                    out.writeLong(table.keys_hi[slot]);
+                    out.writeByte(table.distance[slot]);
+                    out.writeByte(table.next_move[slot]);
+                }
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temp_file);
+            throw e;
+        }
+        Files.move(temp_file, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // The file is read into separate maps first, they're added to the cache only when the whole file
+    // was read, so a truncated or corrupted file throws IOException and leaves the cache unchanged.
+    public synchronized void load(Path path) throws IOException {
+        LinkedHashMap<Key, byte[]> loaded_solutions = new LinkedHashMap<>();
+        Map<Integer, Distances> loaded_distances = new HashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != FILE_MAGIC)
+                throw new IOException("Not a solution cache file: " + path);
+
+            int count = readCount(in, path);
+            for (int i = 0; i < count; i++) {
+                long lo = in.readLong();
+                long hi = in.readLong();
+                int configuration = in.readInt();
+                byte[] moves = new byte[readCount(in, path)];
+                in.readFully(moves);
+                for (byte move : moves)
+                    checkMove(move, path);
+                loaded_solutions.put(new Key(lo, hi, configuration), moves);
+            }
+
+            // (no more distances are read than the cache can still take)
+            int loaded_count = 0;
+            int shapes = readCount(in, path);
+            for (int i = 0; i < shapes; i++) {
+                int shape = in.readInt();
+                int size = readCount(in, path);
+                Distances table = loaded_distances.computeIfAbsent(shape, shape_ -> new Distances());
+                for (int j = 0; j < size; j++) {
+                    long lo = in.readLong();
+                    long hi = in.readLong();
+                    int distance = in.readUnsignedByte();
+                    byte next_move = in.readByte();
+                    // distance 0 marks an empty slot of the table, recorded states are at least 1 move away
+                    if (distance == 0)
+                        throw new IOException("Invalid distance in solution cache file: " + path);
+                    checkMove(next_move, path);
+                    if (distances_count + loaded_count < max_distances && table.put(lo, hi, distance, DIRECTIONS[next_move]))
+                        loaded_count++;
+                }
+                if (table.size == 0)
+                    loaded_distances.remove(shape);
+            }
+        }
+
+        solutions.putAll(loaded_solutions);
+        for (Map.Entry<Integer, Distances> entry : loaded_distances.entrySet()) {
+            Distances.Table loaded = entry.getValue().table;
+            Distances table = distances.computeIfAbsent(entry.getKey(), shape -> new Distances());
+            for (int slot = 0; slot < loaded.keys_lo.length && distances_count < max_distances; slot++) {
+                int distance = loaded.distanceAt(slot);
+                if (distance != 0 && table.put(loaded.keys_lo[slot], loaded.keys_hi[slot], distance, DIRECTIONS[loaded.next_move[slot]]))
+                    distances_count++;
+            }
+            if (table.size == 0)
+                distances.remove(entry.getKey());
+        }
+    }
+
+    private static int readCount(DataInputStream in, Path path) throws IOException {
+        int count = in.readInt();
+        if (count < 0)
+            throw new IOException("Invalid count in solution cache file: " + path);
+        return count;
+    }
+
+    private static void checkMove(byte move, Path path) throws IOException {
+        if (!isMove(move))
+            throw new IOException("Invalid move in solution cache file: " + path);
+    }
+
+    // NONE is not a move, every stored move is one of the 4 directions
+    private static boolean isMove(byte move) {
+        return move > Direction.NONE.ordinal() && move < DIRECTIONS.length;
+    }
+
+    // solve configuration, shape/algorithm/heuristics are packed into a single int
+    private static class Key {
+        final long lo;
+        final long hi;
+        final int configuration;
+
+        Key(State state, Algorithm algorithm, List<Heuristic> heuristics) {
+            int heuristic_bits = 0;
+            for (Heuristic heuristic : heuristics)
+                heuristic_bits |= 1 << heuristic.ordinal();
+            lo = state.packedLow();
+            hi = state.packedHigh();
+            configuration = (shapeOf(state) << 24) | (algorithm.ordinal() << 16) | heuristic_bits;
+        }
+
+        Key(long lo_, long hi_, int configuration_) {
+            lo = lo_;
+            hi = hi_;
+            configuration = configuration_;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key))
+                return false;
+            Key other = (Key)o;
+            return lo == other.lo && hi == other.hi && configuration == other.configuration;
+        }
+
+        @Override
+        public int hashCode() {
+            long h = lo * 0x9E3779B97F4A7C15L ^ hi ^ configuration;
+            return (int)(h ^ (h >>> 32));
+        }
+    }
+
+    // Distances to the goal state of a single board shape (open addressing like StateSet).
+    // Distance 0 marks an empty slot, the goal state itself doesn't have to be recorded.
+    //
+    // States are added in place by the cache (under its lock), while searches read the table without
+    // locking. The distance of an entry is written last (release) and read first (acquire), so a search
+    // that sees a distance also sees the key and the next move written before it. When the table has to
+    // grow, the entries are copied into larger arrays, which are published through the volatile "table"
+    // (a search that still holds the old arrays sees the entries that were in them). So adding a solution
+    // costs only its own states, copying is amortized by doubling the capacity.
+    static class Distances {
+        private static final VarHandle DISTANCE = MethodHandles.arrayElementVarHandle(byte[].class);
+
+        private volatile Table table = new Table(16);
+        private int size = 0;
+
+        private static class Table {
+            final long[] keys_lo;
+            final long[] keys_hi;
+            final byte[] distance;
+            final byte[] next_move;
+            final int mask;
+
+            Table(int capacity) {
+                keys_lo = new long[capacity];
+                keys_hi = new long[capacity];
+                distance = new byte[capacity];
+                next_move = new byte[capacity];
+                mask = capacity - 1;
+            }
+
+            int slotOf(long lo, long hi) {
+                long h = lo * 0x9E3779B97F4A7C15L ^ hi;
+                h ^= h >>> 33;
+                h *= 0xFF51AFD7ED558CCDL;
+                h ^= h >>> 33;
+                int slot = (int)h & mask;
+                while (distanceAt(slot) != 0 && (keys_lo[slot] != lo || keys_hi[slot] != hi))
+                    slot = (slot + 1) & mask;
+                return slot;
+            }
+
+            int distanceAt(int slot) {
+                return (byte)DISTANCE.getAcquire(distance, slot) & 0xFF;
+            }
+
+            void set(int slot, long lo, long hi, int distance_, int next_move_) {
+                keys_lo[slot] = lo;
+                keys_hi[slot] = hi;
+                next_move[slot] = (byte)next_move_;
+                DISTANCE.setRelease(distance, slot, (byte)distance_);
+            }
+        }
+
+        // returns true if the state wasn't recorded before (called only by the cache, under its lock)
+        private boolean put(long lo, long hi, int distance_, Direction next_move_) {
+            Table current = table;
+            if ((size + 1) > current.keys_lo.length * 0.6)
+                current = grow(current);
+            int slot = current.slotOf(lo, hi);
+            boolean added = current.distanceAt(slot) == 0;
+            if (added || current.distanceAt(slot) > distance_)
+                current.set(slot, lo, hi, distance_, next_move_.ordinal());
+            if (added)
+                size++;
+            return added;
+        }
+
+        private Table grow(Table old_table) {
+            Table new_table = new Table(old_table.keys_lo.length * 2);
+            for (int slot = 0; slot < old_table.keys_lo.length; slot++) {
+                int distance_ = old_table.distanceAt(slot);
+                if (distance_ != 0) {
+                    long lo = old_table.keys_lo[slot];
+                    long hi = old_table.keys_hi[slot];
+                    new_table.set(new_table.slotOf(lo, hi), lo, hi, distance_, old_table.next_move[slot]);
+                }
+            }
+            table = new_table;
+            return new_table;
+        }
+
+        // distance of the state to the goal state, or -1 if it's not recorded
+        int distanceOf(State state) {
+            Table current = table;
+            int distance_ = current.distanceAt(current.slotOf(state.packedLow(), state.packedHigh()));
+            return distance_ == 0 ? -1 : distance_;
+        }
+
+        // states that follow "state" on its recorded path to the goal (without "state" itself)
+        List<State> pathToGoal(State state) {
+            Table current = table;
+            List<State> states = new ArrayList<>();
+            while (true) {
+                int slot = current.slotOf(state.packedLow(), state.packedHigh());
+                if (current.distanceAt(slot) == 0)
+                    break;
+                state = new State(state);
+                state.move(DIRECTIONS[current.next_move[slot]]);
+                states.add(state);
+            }
+            return states;
+        }
+    }
+}
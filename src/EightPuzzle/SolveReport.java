@@ -0,0 +1,58 @@
+package EightPuzzle;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Result of a single solve with its performance counters (returned by EightPuzzle.solve(SolverConfig, ...)
+// and solveAsync). Every solve creates its own report, so solves running at the same time never see
+// each other's results.
+public final class SolveReport {
+    private final EightPuzzle.SolveResult result;
+    // from the initial state to the goal state, empty unless the result is SOLVED
+    private final List<State> solution_states;
+    // long, parallel searches of large boards can expand more than 2^31 nodes
+    private final long nodes_expanded;
+    private final long nodes_unexpanded;
+    private final long completion_time;
+    private final SearchStatistics statistics;
+
+    SolveReport(EightPuzzle.SolveResult result_, List<State> solution_states_, long nodes_expanded_,
+                long nodes_unexpanded_, long completion_time_, SearchStatistics statistics_) {
+        result = result_;
+        solution_states = Collections.unmodifiableList(solution_states_);
+        nodes_expanded = nodes_expanded_;
+        nodes_unexpanded = nodes_unexpanded_;
+        completion_time = completion_time_;
+        statistics = statistics_;
+    }
+
+    // report of EightPuzzle objects that didn't solve anything yet
+    static SolveReport empty() {
+        return new SolveReport(null, new ArrayList<>(), 0, 0, 0, null);
+    }
+
+    public EightPuzzle.SolveResult getResult() {
+        return result;
+    }
+
+    public List<State> getSolutionStates() {
+        return solution_states;
+    }
+
+    public long getExpandedNodesCount() {
+        return nodes_expanded;
+    }
+
+    public long getUnexpandedNodesCount() {
+        return nodes_unexpanded;
+    }
+
+    public long getCompletionTime() {
+        return completion_time;
+    }
+
+    public SearchStatistics getStatistics() {
+        return statistics;
+    }
+}
@@ -0,0 +1,150 @@
+package EightPuzzle;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static EightPuzzle.EightPuzzle.Algorithm;
+import static EightPuzzle.EightPuzzle.Heuristic;
+import static EightPuzzle.EightPuzzle.StorageMode;
+
+// Settings of solves (see EightPuzzle setters for the meaning of each one).
+//
+// A config can't be changed, "with" methods return a changed copy. Every solve reads its settings
+// from a single config, so a config can be shared by any number of solves running at the same time,
+// and changing settings (e.g. in the GUI) never affects solves that already started.
+public final class SolverConfig {
+    private final Algorithm algorithm;
+    private final List<Heuristic> heuristics;
+    private final SearchBudget budget;
+    private final double weight;
+    private final StorageMode storage;
+    private final Path storage_directory;
+    private final int threads;
+    // may be null (solutions are not kept)
+    private final SolutionCache solution_cache;
+    // may be null (progress is not reported)
+    private final SearchListener search_listener;
+    private final long progress_interval_ms;
+    private final boolean print_statistics;
+
+    private SolverConfig(Algorithm algorithm_, List<Heuristic> heuristics_, SearchBudget budget_, double weight_,
+                         StorageMode storage_, Path storage_directory_, int threads_, SolutionCache solution_cache_,
+                         SearchListener search_listener_, long progress_interval_ms_, boolean print_statistics_) {
+        algorithm = algorithm_;
+        // (copied, so changes of the caller's list don't change the config)
+        heuristics = Collections.unmodifiableList(new ArrayList<>(heuristics_));
+        budget = budget_;
+        weight = weight_;
+        storage = storage_;
+        storage_directory = storage_directory_;
+        threads = threads_;
+        solution_cache = solution_cache_;
+        search_listener = search_listener_;
+        progress_interval_ms = progress_interval_ms_;
+        print_statistics = print_statistics_;
+    }
+
+    // A* without heuristics (uniform cost search), unlimited budget, nodes on the heap
+    public static SolverConfig defaults() {
+        return new SolverConfig(Algorithm.A_STAR, new ArrayList<>(), SearchBudget.unlimited(), 2.0,
+                StorageMode.HEAP, Paths.get(System.getProperty("java.io.tmpdir")),
+                Runtime.getRuntime().availableProcessors(), null, null, 250, true);
+    }
+
+    public SolverConfig withAlgorithm(Algorithm algorithm_) {
+        return new SolverConfig(algorithm_, heuristics, budget, weight, storage, storage_directory, threads,
+                solution_cache, search_listener, progress_interval_ms, print_statistics);
+    }
+
+    public SolverConfig withHeuristics(List<Heuristic> heuristics_) {
+        return new SolverConfig(algorithm, heuristics_, budget, weight, storage, storage_directory, threads,
+                solution_cache, search_listener, progress_interval_ms, print_statistics);
+    }
+
+    public SolverConfig withBudget(SearchBudget budget_) {
+        return new SolverConfig(algorithm, heuristics, budget_, weight, storage, storage_directory, threads,
+                solution_cache, search_listener, progress_interval_ms, print_statistics);
+    }
+
+    public SolverConfig withWeight(double weight_) {
+        return new SolverConfig(algorithm, heuristics, budget, weight_, storage, storage_directory, threads,
+                solution_cache, search_listener, progress_interval_ms, print_statistics);
+    }
+
+    public SolverConfig withStorage(StorageMode storage_) {
+        return new SolverConfig(algorithm, heuristics, budget, weight, storage_, storage_directory, threads,
+                solution_cache, search_listener, progress_interval_ms, print_statistics);
+    }
+
+    public SolverConfig withStorageDirectory(Path storage_directory_) {
+        return new SolverConfig(algorithm, heuristics, budget, weight, storage, storage_directory_, threads,
+                solution_cache, search_listener, progress_interval_ms, print_statistics);
+    }
+
+    public SolverConfig withThreads(int threads_) {
+        return new SolverConfig(algorithm, heuristics, budget, weight, storage, storage_directory, threads_,
+                solution_cache, search_listener, progress_interval_ms, print_statistics);
+    }
+
+    public SolverConfig withSolutionCache(SolutionCache solution_cache_) {
+        return new SolverConfig(algorithm, heuristics, budget, weight, storage, storage_directory, threads,
+                solution_cache_, search_listener, progress_interval_ms, print_statistics);
+    }
+
+    public SolverConfig withSearchListener(SearchListener search_listener_, long progress_interval_ms_) {
+        return new SolverConfig(algorithm, heuristics, budget, weight, storage, storage_directory, threads,
+                solution_cache, search_listener_, progress_interval_ms_, print_statistics);
+    }
+
+    public SolverConfig withPrintStatistics(boolean print_statistics_) {
+        return new SolverConfig(algorithm, heuristics, budget, weight, storage, storage_directory, threads,
+                solution_cache, search_listener, progress_interval_ms, print_statistics_);
+    }
+
+    public Algorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public List<Heuristic> getHeuristics() {
+        return heuristics;
+    }
+
+    public SearchBudget getBudget() {
+        return budget;
+    }
+
+    public double getWeight() {
+        return weight;
+    }
+
+    public StorageMode getStorage() {
+        return storage;
+    }
+
+    public Path getStorageDirectory() {
+        return storage_directory;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public SolutionCache getSolutionCache() {
+        return solution_cache;
+    }
+
+    public SearchListener getSearchListener() {
+        return search_listener;
+    }
+
+    public long getProgressIntervalMs() {
+        return progress_interval_ms;
+    }
+
+    public boolean getPrintStatistics() {
+        return print_statistics;
+    }
+}
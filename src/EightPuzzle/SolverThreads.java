@@ -0,0 +1,26 @@
+package EightPuzzle;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Executors that run every task on its own thread (solves of EightPuzzle.solveAsync, connections of SolverServer).
+//
+// Virtual threads are used when the JVM has them (Java 21+, found by reflection because the project
+// targets Java 14), otherwise a cached pool of daemon threads. Tasks may block (on sockets, on limits
+// of concurrent searches) without holding up other tasks either way, virtual threads only make idle
+// ones cheaper.
+public class SolverThreads {
+    public static ExecutorService newPerTaskExecutor(String thread_name) {
+        try {
+            return (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            // JVM without virtual threads
+        }
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, thread_name);
+            // setting as daemon will terminate the thread when the program exits
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -1,17 +1,29 @@
 package EightPuzzle;
 
-import java.awt.*;
-import java.awt.geom.Line2D;
 import java.util.*;
 import java.util.List;
 
-import static java.lang.Integer.max;
 import static java.lang.System.exit;
 
 public class State {
-    static private int MAX_SIZE = 5;
+    static final int MAX_SIZE = 5;
+
+    /*  Values of the puzzle fields are bit-packed into two longs instead of
+        being kept in int[rows][cols] array. Field at index (row * col_size + col)
+        occupies "cell_bits" bits starting at bit (index * cell_bits):
+            - boards up to 16 fields use 4 bits per field, so they fit in packed_lo only
+            - bigger boards (up to MAX_SIZE x MAX_SIZE = 25 fields) use 5 bits per field,
+              one field straddles both longs (bits 60-64)
+        Thanks to that copying a state is copying two longs, and equals/hashCode
+        compare/mix two words instead of walking through 2D arrays. */
+    private long packed_lo;
+    private long packed_hi;
+    private int cell_bits;
+    private int cell_mask;
+
+    // index of the empty space (0), kept up to date by "move" so it doesn't have to be searched for
+    private int blank_index;
 
-    private int[][] values;
     private Direction last_move = Direction.NONE;
 
     /*  The challenge week instruction specified that the final output should
@@ -22,31 +34,67 @@ public class State {
 
     private int row_size;
     private int col_size;
+    // move tables of the shape, shared by all states of the same shape (see BoardGeometry.java)
+    private BoardGeometry geometry;
 
-    private enum Direction {
+    public enum Direction {
         NONE, RIGHT, LEFT, UP, DOWN
     }
 
+    // opposite of each Direction (by ordinal)
+    private static final Direction[] OPPOSITE = {
+            null, Direction.LEFT, Direction.RIGHT, Direction.DOWN, Direction.UP
+    };
+
     State(int[] arr, int n_of_rows) {
-        row_size = n_of_rows;
-        col_size = arr.length/n_of_rows;
-        for (int row = 0; row < row_size; row++)
-            for (int col = 0; col < col_size; col++)
-                values[row][col] = arr[col_size * row + col];
+        setShape(n_of_rows, arr.length/n_of_rows);
+        for (int i = 0; i < arr.length; i++)
+            setValueAt(i, arr[i]);
     }
 
     State(int[][] arr) {
-        row_size = arr.length;
-        col_size = arr[0].length;
+        setShape(arr.length, arr[0].length);
         setValues(arr);
     }
 
     // copy constructor
     State(State other) {
+        copyFrom(other);
+    }
+
+    // sets this state to "other" without creating a new object (see childrenInto)
+    void copyFrom(State other) {
         row_size = other.row_size;
         col_size = other.col_size;
-        setValues(other.values);
+        cell_bits = other.cell_bits;
+        cell_mask = other.cell_mask;
+        geometry = other.geometry;
+        packed_lo = other.packed_lo;
+        packed_hi = other.packed_hi;
+        blank_index = other.blank_index;
         last_move = other.last_move;
+        value_that_moved = other.value_that_moved;
+    }
+
+    // sets the state to packed values of another state of the same shape (see NodeArena.java)
+    void load(long packed_lo_, long packed_hi_, int blank_index_, Direction last_move_) {
+        packed_lo = packed_lo_;
+        packed_hi = packed_hi_;
+        blank_index = blank_index_;
+        last_move = last_move_;
+        value_that_moved = last_move == Direction.NONE ? 0 : getValueAt(getPreviousBlankIndex());
+    }
+
+    private void setShape(int rows, int cols) {
+        if (rows < 1 || cols < 1 || rows > MAX_SIZE || cols > MAX_SIZE)
+            throw new IllegalArgumentException(
+                    String.format("Puzzle of size %dx%d is not supported (max %dx%d).", rows, cols, MAX_SIZE, MAX_SIZE));
+        row_size = rows;
+        col_size = cols;
+        // 4 bits are enough for values 0-15, bigger boards need 5 bits (values 0-24)
+        cell_bits = rows * cols <= 16 ? 4 : 5;
+        cell_mask = (1 << cell_bits) - 1;
+        geometry = BoardGeometry.of(rows, cols);
     }
 
     public int getValueThatMoved() {
@@ -61,24 +109,81 @@ public class State {
         return col_size;
     }
 
-    public void setRowSize(int size) {
-        this.row_size = size;
+    private void setValues(int arr[][]) {
+        packed_lo = 0;
+        packed_hi = 0;
+        for (int row = 0; row < row_size; row++)
+            for (int col = 0; col < col_size; col++)
+                setValueAt(row * col_size + col, arr[row][col]);
     }
 
-    public void setColSize(int size) {
-        this.col_size = size;
+    private void setValueAt(int index, int value) {
+        if (value < 0 || value > cell_mask)
+            throw new IllegalArgumentException(String.format("Value %d doesn't fit %dx%d puzzle.", value, row_size, col_size));
+        // clear the field first, then xor-in the new value
+        xorValueAt(index, getValueAt(index));
+        xorValueAt(index, value);
+        if (value == 0)
+            blank_index = index;
     }
 
-    private void setValues(int arr[][]) {
-        if (values == null)
-            values = new int[row_size][col_size];
+    int getValueAt(int index) {
+        int shift = index * cell_bits;
+        if (shift + cell_bits <= 64)
+            return (int)(packed_lo >>> shift) & cell_mask;
+        if (shift >= 64)
+            return (int)(packed_hi >>> (shift - 64)) & cell_mask;
+        // field straddling both longs
+        return (int)((packed_lo >>> shift) | (packed_hi << (64 - shift))) & cell_mask;
+    }
 
-        for (int row = 0; row < row_size; row++)
-            for (int col = 0; col < col_size; col++)
-                values[row][col] = arr[row][col];
+    private void xorValueAt(int index, long value) {
+        // xor is used for both setting (field holds 0) and clearing (field holds the same value)
+        int shift = index * cell_bits;
+        if (shift >= 64) {
+            packed_hi ^= value << (shift - 64);
+            return;
+        }
+        packed_lo ^= value << shift;
+        if (shift + cell_bits > 64)
+            packed_hi ^= value >>> (64 - shift);
+    }
+
+    int getBlankIndex() {
+        return blank_index;
+    }
+
+    int getPreviousBlankIndex() {
+        // position of the empty space before the last move
+        // (it's where the value that moved is now)
+        switch(last_move) {
+            case RIGHT: return blank_index + 1;
+            case LEFT:  return blank_index - 1;
+            case UP:    return blank_index - col_size;
+            case DOWN:  return blank_index + col_size;
+        }
+        return blank_index;
+    }
+
+    // packed words are used as keys of StateSet
+    long packedLow() {
+        return packed_lo;
+    }
+
+    long packedHigh() {
+        return packed_hi;
+    }
+
+    public int getValue(int row, int col) {
+        return getValueAt(row * col_size + col);
     }
 
     public int[][] getValues() {
+        // unpacks values into a new array (it's not used in the hot path of the search)
+        int[][] values = new int[row_size][col_size];
+        for (int row = 0; row < row_size; row++)
+            for (int col = 0; col < col_size; col++)
+                values[row][col] = getValue(row, col);
         return values;
     }
 
@@ -87,80 +192,86 @@ public class State {
     public void move(Direction dir) {
         last_move = dir;
         // moves and returns resulting state
-        int[] coords = valueCoordinates(0);
-        int empty_space_row = coords[0];
-        int empty_space_col = coords[1];
-
-        int h_offset = 0;
-        int v_offset = 0;
-        switch(dir) {
-            case RIGHT: h_offset =  1; break;
-            case LEFT:  h_offset = -1; break;
-            case UP:    v_offset = -1; break;
-            case DOWN:  v_offset =  1; break;
-            default:
-                System.out.printf("Invalid direction %d supplied to doMove() method.\n", dir);
-                exit(-1);
+        // (the field that moves into the empty space is taken from the move table of the shape)
+        int source_index = geometry.move_source[blank_index][dir.ordinal()];
+        if (source_index < 0) {
+            System.out.printf("Invalid direction %s supplied to move() method.\n", dir);
+            exit(-1);
+            return;
         }
-        // put moved value into empty space
-        value_that_moved = values[empty_space_row - v_offset][empty_space_col - h_offset];
-        values[empty_space_row][empty_space_col] = value_that_moved;
-
-        // put empty space at previous position of value
-        values[empty_space_row - v_offset][empty_space_col - h_offset] = 0;
+        // put moved value into empty space and put empty space at previous position of value
+        // (empty space holds 0, so xor-ing the value into both fields swaps them)
+        value_that_moved = getValueAt(source_index);
+        xorValueAt(blank_index, value_that_moved);
+        xorValueAt(source_index, value_that_moved);
+        blank_index = source_index;
     }
 
-    private Direction oppositeMove(Direction dir) {
-        switch(dir) {
-            case DOWN:  return Direction.UP;
-            case UP:    return Direction.DOWN;
-            case LEFT:  return Direction.RIGHT;
-            case RIGHT: return Direction.LEFT;
-        }
-        return null;
+    static Direction oppositeMove(Direction dir) {
+        return OPPOSITE[dir.ordinal()];
     }
 
-    private Set<Direction> possibleMoveDirections() {
-        Set<Direction> dirs = new HashSet<>();
-        // position of empty space
-        int[] empty_pos = valueCoordinates(0);
-
-        // if empty space is not rightmost, allow moving left
-        if (empty_pos[1] != col_size - 1)
-            dirs.add(Direction.LEFT);
+    Direction directionTo(State next) {
+        // direction of the move that turns this state into "next" (next must be a neighboring state),
+        // the value that moves is the one at the position of the empty space in "next"
+        int source_index = next.blank_index;
+        if (source_index == blank_index - 1)        return Direction.RIGHT;
+        if (source_index == blank_index + 1)        return Direction.LEFT;
+        if (source_index == blank_index + col_size) return Direction.UP;
+        if (source_index == blank_index - col_size) return Direction.DOWN;
+        return Direction.NONE;
+    }
 
-        // if empty space is not leftmost, allow moving right
-        if (empty_pos[1] != 0)
-            dirs.add(Direction.RIGHT);
+    boolean canMove(Direction dir) {
+        return geometry.move_source[blank_index][dir.ordinal()] >= 0;
+    }
 
-        // if empty space is not down, allow moving upwards
-        if (empty_pos[0] != row_size - 1)
-            dirs.add(Direction.UP);
+    // possible moves of the empty space (including the one that undoes the last move), the array is
+    // shared by all states of the shape with the same position of the empty space, it must not be modified
+    Direction[] possibleMoves() {
+        return geometry.moves[blank_index];
+    }
 
-        // if empty space is not up, allow moving downwards
-        if (empty_pos[0] != 0)
-            dirs.add(Direction.DOWN);
+    // buffer for childrenInto
+    static State[] newChildBuffer(State state) {
+        State[] buffer = new State[4];
+        for (int i = 0; i < buffer.length; i++)
+            buffer[i] = new State(state);
+        return buffer;
+    }
 
-        // (the initial node state has last_move equal to Direction.NONE, so )
-        if (last_move != Direction.NONE) {
-            // don't allow moving back
-            // This is prevented by keeping "visited_states" set
-            // but this dirs.remove is just for the sake of efficiency
-            // (so additional useless State won't be created and destroyed)
-            dirs.remove(oppositeMove(last_move));
+    // Sets states of "buffer" (objects of the same shape, at least 4) to children of this state,
+    // except the one that undoes the last move, and returns their number. Searches keep a single
+    // buffer, so generating children doesn't create any objects.
+    int childrenInto(State[] buffer) {
+        int count = 0;
+        Direction back = OPPOSITE[last_move.ordinal()];
+        for (Direction dir : geometry.moves[blank_index]) {
+            if (dir == back)
+                continue;
+            State child = buffer[count++];
+            child.copyFrom(this);
+            child.move(dir);
         }
-        return dirs;
+        return count;
     }
 
-    public Set<State> possibleNewStates(Set<State> visited_states) {
-        // excluded states will be supplied to avoid repeatedly
+    public List<State> possibleNewStates(StateSet visited_states) {
+        // visited states are supplied to avoid repeatedly
         // expanding previously expanded nodes
-        Set<State> possible_states = new HashSet<State>();
-
-        for (Direction dir : possibleMoveDirections()) {
-            State new_state = new State(values);
+        List<State> possible_states = new ArrayList<>(4);
+
+        // (the initial node state has last_move equal to Direction.NONE, so all moves are possible)
+        // Moving back is prevented by keeping "visited_states" set,
+        // but it's skipped here just for the sake of efficiency
+        // (so additional useless State won't be created and destroyed)
+        Direction back = OPPOSITE[last_move.ordinal()];
+        for (Direction dir : geometry.moves[blank_index]) {
+            if (dir == back)
+                continue;
+            // copying packed state is just copying two longs
+            State new_state = new State(this);
             new_state.move(dir);
-            // Set<State>.contains calls "equals" method of this class
             if (!visited_states.contains(new_state))
                 possible_states.add(new_state);
         }
@@ -172,41 +283,29 @@ public class State {
         // can be useful for :
         //      - calculating manhattan distance (getting value position within the goal state)
         //      - determining possible moves (getting empty space position)
+        if (value_to_find == 0)
+            return new int[] {blank_index / col_size, blank_index % col_size};
 
-        for (int row = 0; row < row_size; row++)
-            for (int col = 0; col < col_size; col++)
-                if (values[row][col] == value_to_find)
-                    return new int[] {row, col};
+        for (int index = 0; index < row_size * col_size; index++)
+            if (getValueAt(index) == value_to_find)
+                return new int[] {index / col_size, index % col_size};
         return null;
     }
 
-    public List<Integer> neighborValues(int row, int col) {
-        // useful for calculating direct reverse penalty
-        List<Integer> neighbor_values = new ArrayList<>();
-        if (row != 0)
-            neighbor_values.add(values[row - 1][col]);
-        if (row != row_size - 1)
-            neighbor_values.add(values[row + 1][col]);
-        if (col != 0)
-            neighbor_values.add(values[row][col - 1]);
-        if (col != col_size - 1)
-            neighbor_values.add(values[row][col + 1]);
-        return neighbor_values;
-    }
-
     public boolean isDirectlyReversed(int row, int col, State goal_state) {
         // Based on the heuristic from:
         // http://web.mit.edu/6.034/wwwbob/EightPuzzle.pdf
         // See Node.java file (setHeuristics method) comments for more information
 
-        int goal = goal_state.values[row][col];
-        int actual = values[row][col];
-
-        List<Integer> neighbor_goal = goal_state.neighborValues(row, col);
-        List<Integer> neighbor_actual = neighborValues(row, col);
+        int index = row * col_size + col;
+        int goal = goal_state.getValueAt(index);
+        int actual = getValueAt(index);
+        if (goal == 0 || actual == 0)
+            return false;
 
-        for (int i = 0; i < neighbor_actual.size(); i++)
-            if (actual == neighbor_goal.get(i) && neighbor_actual.get(i) == goal && goal != 0 && actual != 0)
+        // neighboring fields come from the geometry table (no lists of boxed values)
+        for (int neighbor : geometry.neighbors[index])
+            if (actual == goal_state.getValueAt(neighbor) && getValueAt(neighbor) == goal)
                 return true;
 
         return false;
@@ -234,12 +333,15 @@ public class State {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         State state = (State) o;
-        return Arrays.deepEquals(values, state.values);
+        return packed_lo == state.packed_lo && packed_hi == state.packed_hi
+                && row_size == state.row_size && col_size == state.col_size;
     }
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(values);
+        // mixing the two words is enough, the shape is the same for all states of a single search
+        long h = packed_lo * 0x9E3779B97F4A7C15L ^ packed_hi;
+        return (int)(h ^ (h >>> 32));
     }
 
     /* // it was useful for development, but not needed for the program
@@ -256,129 +358,4 @@ public class State {
         }
         return "compiler";
     }*/
-
-    public void drawAt(Graphics g, int x, int y, int size) {
-        int separating_dist = (int)(size * 0.05);
-        int max_dimension = max(col_size,row_size);
-        int field_size = (size - separating_dist * (max_dimension-1)) / max_dimension;
-
-        // draw background
-        //g.setColor(new Color(51,153,255));
-        //g.fillRect(x,y,size,size * row_size/col_size);
-
-        g.setColor(Color.green);
-
-        int arrow_x1 = 0, arrow_x2 = 0, arrow_y1 = 0, arrow_y2 = 0;
-
-        for (int row = 0; row < row_size; row++) {
-            for (int col = 0; col < col_size; col++) {
-
-                // draw single field rect background
-                int field_y = y + row * (field_size + separating_dist);
-                int field_x = x + col * (field_size + separating_dist);
-                //g.drawRect(field_x, field_y, field_size, field_size);
-                g.setColor(Color.lightGray);
-                g.fillRect(field_x, field_y, field_size, field_size);
-
-                g.setColor(Color.black);
-
-                int field_center_y = (int) (field_y + field_size * 0.5);
-                int field_center_x = (int) (field_x + field_size * 0.5);
-
-
-                String val = Integer.toString(values[row][col]);
-                FontMetrics fm = g.getFontMetrics();
-                int half_label_width = (int)(fm.getStringBounds(val, g).getWidth()*0.5);
-                int half_label_height = (int)(fm.getStringBounds(val, g).getHeight()*0.5);
-
-                if (val.equals("0")) {
-                    // keep reference to current color
-                    Color preserved_color = g.getColor();
-
-                    g.setColor(Color.orange);
-                    g.fillRect(field_x+1, field_y+1, field_size-1, field_size-1);
-                    if (last_move != Direction.NONE) {
-                        int last_move_x = field_center_x, last_move_y = field_center_y;
-                        switch (last_move) {
-                            case UP:   last_move_y -= field_size * 0.9 + separating_dist - half_label_height; break;
-                            case DOWN: last_move_y += field_size * 0.9 + separating_dist - half_label_height; break;
-                            case RIGHT: last_move_x += field_size * 0.9 + separating_dist - half_label_width; break;
-                            case LEFT: last_move_x -= field_size * 0.9 + separating_dist - half_label_width; break;
-                        }
-                        arrow_x1 = field_center_x; arrow_x2 = last_move_x;
-                        arrow_y1 = field_center_y; arrow_y2 = last_move_y;
-
-                        //drawArrowLine(g, field_center_x, field_center_y, last_move_x, last_move_y, (int)(field_size *0.15), (int)(field_size *0.1));
-                        //g.drawLine(field_center_x, field_center_y, last_move_x, last_move_y);
-                    }
-                    // restore color
-                    g.setColor(preserved_color);
-
-                } else {
-                    g.drawString(val, field_center_x - half_label_width, field_center_y + half_label_height);
-                }
-            }
-        }
-
-        if (last_move != Direction.NONE) {
-            g.setColor(Color.black);
-            drawArrowLine(g, arrow_x1, arrow_y1, arrow_x2, arrow_y2, (int) (field_size * 0.20), (int) (field_size * 0.15));
-        }
-
-        g.setColor(Color.orange);
-
-        int boundary_width = field_size * col_size + (separating_dist * (col_size-1));
-        int boundary_height = field_size * row_size + (separating_dist * (row_size-1));
-        // draw boundary
-        g.drawRect(x,y, boundary_width, boundary_height);
-    }
-
-    /**
-     * "drawArrowLine" function was copied from: https://stackoverflow.com/a/27461352/4620679
-     * Author: phibao37; last edited by: RubenLaguna
-     *
-     * Draw an arrow line between two points.
-     * @param g the graphics component.
-     * @param x1 x-position of first point.
-     * @param y1 y-position of first point.
-     * @param x2 x-position of second point.
-     * @param y2 y-position of second point.
-     * @param d  the width of the arrow.
-     * @param h  the height of the arrow.
-     */
-    private void drawArrowLine(Graphics g, int x1, int y1, int x2, int y2, int d, int h) {
-        int dx = x2 - x1, dy = y2 - y1;
-        double D = Math.sqrt(dx*dx + dy*dy);
-        double xm = D - d, xn = xm, ym = h, yn = -h, x;
-        double sin = dy / D, cos = dx / D;
-
-        x = xm*cos - ym*sin + x1;
-        ym = xm*sin + ym*cos + y1;
-        xm = x;
-
-        x = xn*cos - yn*sin + x1;
-        yn = xn*sin + yn*cos + y1;
-        xn = x;
-
-        int[] xpoints = {x2, (int) xm, (int) xn};
-        int[] ypoints = {y2, (int) ym, (int) yn};
-
-        Graphics2D g2 = (Graphics2D)g;
-        g2.setRenderingHint
-                (RenderingHints.KEY_ANTIALIASING,
-                        RenderingHints.VALUE_ANTIALIAS_ON);
-
-        // ugly fix to hide line being visible after arrow head
-        // (due to increased stroke of the line)
-        x2 += (x1 - x2) / 10;
-        y2 += (y1 - y2) / 10;
-
-        Stroke preserved_stroke = g2.getStroke();
-        g2.setStroke(new BasicStroke(2));
-        g2.draw(new Line2D.Double(x1, y1, x2, y2));
-        g2.setStroke(preserved_stroke);
-
-        //g.drawLine(x1, y1, x2, y2);
-        g.fillPolygon(xpoints, ypoints, 3);
-    }
 }
\ No newline at end of file
@@ -0,0 +1,103 @@
+package EightPuzzle;
+
+// Map from states to int values (e.g. NodeArena handles), open addressing like StateSet.java,
+// so there are no per-entry objects and no boxed Integers.
+class StateIntMap {
+    static final int NOT_FOUND = -1;
+    private static final int MIN_CAPACITY = 1 << 10;
+
+    // keys_lo[i] == 0 marks a free slot (see StateSet.java)
+    private long[] keys_lo;
+    private long[] keys_hi;
+    private int[] values;
+    private int mask;
+    private int size;
+    private int resize_threshold;
+    private int zero_key_value = NOT_FOUND;
+
+    StateIntMap() {
+        allocate(MIN_CAPACITY);
+    }
+
+    private void allocate(int capacity) {
+        keys_lo = new long[capacity];
+        keys_hi = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        resize_threshold = (int)(capacity * 0.6);
+    }
+
+    private static int slotFor(long lo, long hi, int mask) {
+        long h = lo * 0x9E3779B97F4A7C15L ^ hi;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return (int)h & mask;
+    }
+
+    // value of the state or NOT_FOUND
+    int get(long lo, long hi) {
+        if (lo == 0)
+            return zero_key_value;
+
+        int slot = slotFor(lo, hi, mask);
+        while (keys_lo[slot] != 0) {
+            if (keys_lo[slot] == lo && keys_hi[slot] == hi)
+                return values[slot];
+            slot = (slot + 1) & mask;
+        }
+        return NOT_FOUND;
+    }
+
+    int get(State state) {
+        return get(state.packedLow(), state.packedHigh());
+    }
+
+    void put(State state, int value) {
+        long lo = state.packedLow();
+        long hi = state.packedHigh();
+        if (lo == 0) {
+            if (zero_key_value == NOT_FOUND)
+                size++;
+            zero_key_value = value;
+            return;
+        }
+
+        int slot = slotFor(lo, hi, mask);
+        while (keys_lo[slot] != 0) {
+            if (keys_lo[slot] == lo && keys_hi[slot] == hi) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys_lo[slot] = lo;
+        keys_hi[slot] = hi;
+        values[slot] = value;
+
+        if (++size > resize_threshold)
+            rehash(keys_lo.length << 1);
+    }
+
+    private void rehash(int new_capacity) {
+        long[] old_lo = keys_lo;
+        long[] old_hi = keys_hi;
+        int[] old_values = values;
+        allocate(new_capacity);
+
+        for (int i = 0; i < old_lo.length; i++) {
+            if (old_lo[i] == 0)
+                continue;
+            int slot = slotFor(old_lo[i], old_hi[i], mask);
+            while (keys_lo[slot] != 0)
+                slot = (slot + 1) & mask;
+            keys_lo[slot] = old_lo[i];
+            keys_hi[slot] = old_hi[i];
+            values[slot] = old_values[i];
+        }
+    }
+
+    int size() {
+        return size;
+    }
+}
@@ -0,0 +1,118 @@
+package EightPuzzle;
+
+import java.nio.file.Path;
+
+import static EightPuzzle.EightPuzzle.StorageMode;
+
+// Set of previously seen states used by the solver instead of HashSet<State>.
+//
+// HashSet<State> stores every state as a HashMap node pointing to a State object,
+// while this set stores only the two packed longs of each state directly in
+// a table (open addressing with linear probing). There are no per-entry objects,
+// so millions of visited states cost 16 bytes each (plus free slots) and lookups
+// don't chase pointers.
+//
+// The table is kept in arrays on the heap (HeapStateSet.java) or in off-heap memory
+// (OffHeapStateSet.java), this class has the parts that are the same for both.
+abstract class StateSet {
+    static final int MIN_CAPACITY = 1 << 10;
+
+    // A packed state never has its low word equal to 0 (at most one field holds 0),
+    // so 0 marks a free slot of the table, unless the board has a single field,
+    // that case is handled by "contains_zero_key".
+    private boolean contains_zero_key;
+    int mask;
+    private int size;
+    private int resize_threshold;
+
+    static StateSet create(StorageMode storage, Path directory) {
+        switch (storage) {
+            case OFF_HEAP:    return new OffHeapStateSet(OffHeapMemory::direct);
+            case MAPPED_FILE: return new OffHeapStateSet(() -> OffHeapMemory.mappedFile(directory));
+            default:          return new HeapStateSet();
+        }
+    }
+
+    static int tableSizeFor(int expected_size) {
+        // keep load factor below 0.6 so linear probing sequences stay short
+        int capacity = MIN_CAPACITY;
+        while (capacity * 0.6 < expected_size)
+            capacity <<= 1;
+        return capacity;
+    }
+
+    static int slotFor(long lo, long hi, int mask) {
+        // murmur3 finalizer, spreads the packed fields over all bits used for indexing
+        long h = lo * 0x9E3779B97F4A7C15L ^ hi;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return (int)h & mask;
+    }
+
+    // replaces the table with an empty one
+    void allocate(int capacity) {
+        mask = capacity - 1;
+        resize_threshold = (int)(capacity * 0.6);
+    }
+
+    // adds a state (with non-zero low word) to the table, returns false if it was already there
+    abstract boolean insert(long lo, long hi);
+
+    abstract boolean find(long lo, long hi);
+
+    // moves all states to a new table of "new_capacity" slots
+    abstract void rehash(int new_capacity);
+
+    // Adds the state if it wasn't seen before (single probe sequence).
+    // Returns true if the state was added, false if it was already in the set.
+    boolean add(State state) {
+        return add(state.packedLow(), state.packedHigh());
+    }
+
+    boolean add(long lo, long hi) {
+        if (lo == 0) {
+            if (contains_zero_key)
+                return false;
+            contains_zero_key = true;
+            size++;
+            return true;
+        }
+
+        if (!insert(lo, hi))
+            return false;
+        if (++size > resize_threshold)
+            rehash((mask + 1) << 1);
+        return true;
+    }
+
+    boolean contains(State state) {
+        return contains(state.packedLow(), state.packedHigh());
+    }
+
+    boolean contains(long lo, long hi) {
+        if (lo == 0)
+            return contains_zero_key;
+        return find(lo, hi);
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        // shrink back so a big previous search doesn't keep its memory
+        allocate(MIN_CAPACITY);
+        emptied();
+    }
+
+    // forgets all states, called after all slots of the table were freed
+    void emptied() {
+        size = 0;
+        contains_zero_key = false;
+    }
+
+    // releases off-heap memory of the set, it can't be used after that
+    void close() {
+    }
+}
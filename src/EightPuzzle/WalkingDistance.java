@@ -0,0 +1,279 @@
+package EightPuzzle;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Walking distance heuristic (Ken'ichiro Takahashi).
+//
+// Vertical walking distance only looks at rows: which row each value is in and which row it
+// should be in. The board is reduced to a table count[row][goal_row] (how many values of the
+// row belong to each goal row) + the row of the empty space. A vertical move takes any value
+// from the row next to the empty space into the empty space's row. The minimal number of such
+// moves to reach the goal table is precomputed by breadth-first search over all tables.
+// Horizontal walking distance is the same for columns, and their sum is the heuristic.
+// It's admissible (each move is either vertical or horizontal) and it's better than manhattan
+// distance because it counts values of the same row/column that have to get out of each other's way.
+//
+// The tables depend only on the number of lines and their length, so they're built once for
+// each board shape (rows x cols uses one table for rows and one for columns).
+// Tables for 5 lines would hold tens of millions of entries, so for such direction the
+// manhattan distance along that direction is used instead (still admissible, just weaker).
+class WalkingDistance {
+    private static final int MAX_TABLE_LINES = 4;
+
+    private static final Map<BoardGeometry, WalkingDistance> cache = new ConcurrentHashMap<>();
+    private static final Map<Integer, DistanceTable> tables = new ConcurrentHashMap<>();
+
+    private final BoardGeometry geometry;
+    private final DistanceTable vertical;
+    private final DistanceTable horizontal;
+
+    static WalkingDistance of(BoardGeometry geometry) {
+        return cache.computeIfAbsent(geometry, WalkingDistance::new);
+    }
+
+    private WalkingDistance(BoardGeometry geometry_) {
+        geometry = geometry_;
+        // rows are "lines" of length "cols" for vertical moves, columns are "lines" of length "rows" for horizontal moves
+        vertical = tableFor(geometry.rows, geometry.cols);
+        horizontal = tableFor(geometry.cols, geometry.rows);
+    }
+
+    private static DistanceTable tableFor(int lines, int line_length) {
+        if (lines > MAX_TABLE_LINES)
+            return null;
+        return tables.computeIfAbsent(lines * (State.MAX_SIZE + 1) + line_length,
+                key -> new DistanceTable(lines, line_length));
+    }
+
+    int evaluate(State state) {
+        return evaluate(state, vertical, geometry.row_of) + evaluate(state, horizontal, geometry.col_of);
+    }
+
+    // codes of the vertical and horizontal table of "state" (a code is 0 when its direction has no table)
+    void loadCodes(State state, long[] codes) {
+        codes[0] = vertical == null ? 0 : codeOf(state, vertical, geometry.row_of);
+        codes[1] = horizontal == null ? 0 : codeOf(state, horizontal, geometry.col_of);
+    }
+
+    // codes of the state before the last move of "moved" become codes of "moved"
+    void moveCodes(long[] codes, State moved) {
+        int from = moved.getBlankIndex();
+        int to = moved.getPreviousBlankIndex();
+        boolean vertical_move = geometry.row_of[from] != geometry.row_of[to];
+        DistanceTable table = vertical_move ? vertical : horizontal;
+        if (table != null) {
+            int[] line_of = vertical_move ? geometry.row_of : geometry.col_of;
+            codes[vertical_move ? 0 : 1] += codeChange(table, line_of, moved.getValueThatMoved(), from, to);
+        }
+    }
+
+    private long codeOf(State state, DistanceTable table, int[] line_of) {
+        long code = table.blankCode(line_of[state.getBlankIndex()]);
+        for (int index = 0; index < geometry.size; index++) {
+            int value = state.getValueAt(index);
+            if (value != 0)
+                code += table.unit(line_of[index], line_of[geometry.goal_index_of_value[value]]);
+        }
+        return code;
+    }
+
+    // change of the code when value "moved" goes from field "from" to field "to" (where the empty space was)
+    private long codeChange(DistanceTable table, int[] line_of, int moved, int from, int to) {
+        int goal_line = line_of[geometry.goal_index_of_value[moved]];
+        return table.unit(line_of[to], goal_line) - table.unit(line_of[from], goal_line)
+                + table.blankCode(line_of[from]) - table.blankCode(line_of[to]);
+    }
+
+    private int evaluate(State state, DistanceTable table, int[] line_of) {
+        if (table == null) {
+            // no table for this direction, manhattan distance along it is used
+            int distance = 0;
+            for (int index = 0; index < geometry.size; index++) {
+                int value = state.getValueAt(index);
+                if (value != 0)
+                    distance += Math.abs(line_of[index] - line_of[geometry.goal_index_of_value[value]]);
+            }
+            return distance;
+        }
+
+        return table.distance(codeOf(state, table, line_of));
+    }
+
+    int evaluateChild(int parent_heuristic, long[] parent_codes, State child) {
+        // a vertical move changes only the vertical table (and horizontal move only the horizontal one),
+        // child's code is the parent's code with the moved value and empty space moved (2 table units)
+        int moved = child.getValueThatMoved();
+        int from = child.getBlankIndex();
+        int to = child.getPreviousBlankIndex();
+        int goal_index = geometry.goal_index_of_value[moved];
+
+        boolean vertical_move = geometry.row_of[from] != geometry.row_of[to];
+        DistanceTable table = vertical_move ? vertical : horizontal;
+        int[] line_of = vertical_move ? geometry.row_of : geometry.col_of;
+
+        if (table == null) {
+            int goal_line = line_of[goal_index];
+            return parent_heuristic + Math.abs(line_of[to] - goal_line) - Math.abs(line_of[from] - goal_line);
+        }
+
+        long parent_code = parent_codes[vertical_move ? 0 : 1];
+        long child_code = parent_code + codeChange(table, line_of, moved, from, to);
+
+        return parent_heuristic + table.distance(child_code) - table.distance(parent_code);
+    }
+
+    // Distances of all count[line][goal_line] tables for "lines" lines of length "line_length".
+    //
+    // A table is encoded in a long, 3 bits per count (counts are at most MAX_SIZE). The count for
+    // the last goal line is not stored since it's the line's length minus the other counts
+    // (minus 1 in the line of the empty space), the line of the empty space takes the top bits.
+    // 5 lines * 4 counts * 3 bits + 3 bits = 63 bits.
+    private static class DistanceTable {
+        private final int lines;
+        private final int line_length;
+
+        // open addressing map: code -> distance (key -1 marks a free slot, codes are never negative)
+        private long[] keys;
+        private byte[] values;
+        private int mask;
+        private int size;
+
+        DistanceTable(int lines_, int line_length_) {
+            lines = lines_;
+            line_length = line_length_;
+            allocate(1 << 10);
+            build();
+        }
+
+        long unit(int line, int goal_line) {
+            // code of a single value in "line" that belongs to "goal_line"
+            return goal_line == lines - 1 ? 0 : 1L << (3 * (line * (lines - 1) + goal_line));
+        }
+
+        long blankCode(int line) {
+            return (long)line << (3 * lines * (lines - 1));
+        }
+
+        int distance(long code) {
+            // every reachable table was added by build, a missing code means a wrong code
+            // (the probe stops at a free slot instead of looping forever)
+            int distance = get(code);
+            if (distance < 0)
+                throw new IllegalStateException("Walking distance table has no entry for code " + Long.toHexString(code));
+            return distance;
+        }
+
+        private void build() {
+            // breadth-first search from the goal table (each line holds values that belong to it)
+            int[][] count = new int[lines][lines];
+            for (int line = 0; line < lines; line++)
+                count[line][line] = line_length - (line == lines - 1 ? 1 : 0);
+            int blank = lines - 1;
+
+            long[] queue = new long[1024];
+            int head = 0, tail = 0;
+            queue[tail++] = encode(count, blank);
+            put(queue[0], (byte)0);
+
+            while (head < tail) {
+                long code = queue[head++];
+                int distance = get(code);
+                blank = decode(code, count);
+
+                for (int line = blank - 1; line <= blank + 1; line += 2) {
+                    if (line < 0 || line >= lines)
+                        continue;
+                    // any value of the neighboring line can move into the line of the empty space
+                    for (int goal_line = 0; goal_line < lines; goal_line++) {
+                        if (count[line][goal_line] == 0)
+                            continue;
+                        count[line][goal_line]--;
+                        count[blank][goal_line]++;
+                        long new_code = encode(count, line);
+                        count[line][goal_line]++;
+                        count[blank][goal_line]--;
+
+                        if (get(new_code) < 0) {
+                            put(new_code, (byte)(distance + 1));
+                            if (tail == queue.length)
+                                queue = Arrays.copyOf(queue, queue.length * 2);
+                            queue[tail++] = new_code;
+                        }
+                    }
+                }
+            }
+        }
+
+        private long encode(int[][] count, int blank) {
+            long code = blankCode(blank);
+            for (int line = 0; line < lines; line++)
+                for (int goal_line = 0; goal_line < lines - 1; goal_line++)
+                    code += count[line][goal_line] * unit(line, goal_line);
+            return code;
+        }
+
+        private int decode(long code, int[][] count) {
+            int blank = (int)(code >>> (3 * lines * (lines - 1)));
+            for (int line = 0; line < lines; line++) {
+                int rest = line_length - (line == blank ? 1 : 0);
+                for (int goal_line = 0; goal_line < lines - 1; goal_line++) {
+                    count[line][goal_line] = (int)(code >>> (3 * (line * (lines - 1) + goal_line))) & 7;
+                    rest -= count[line][goal_line];
+                }
+                count[line][lines - 1] = rest;
+            }
+            return blank;
+        }
+
+        private void allocate(int capacity) {
+            keys = new long[capacity];
+            values = new byte[capacity];
+            Arrays.fill(keys, -1);
+            mask = capacity - 1;
+        }
+
+        private int slotFor(long code) {
+            // murmur3 finalizer (codes differ only in a few bits, so they need good mixing)
+            long h = code;
+            h ^= h >>> 33;
+            h *= 0xFF51AFD7ED558CCDL;
+            h ^= h >>> 33;
+            h *= 0xC4CEB9FE1A85EC53L;
+            h ^= h >>> 33;
+            return (int)h & mask;
+        }
+
+        private int get(long code) {
+            int slot = slotFor(code);
+            while (keys[slot] != -1) {
+                if (keys[slot] == code)
+                    return values[slot];
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        private void put(long code, byte distance) {
+            if (size * 2 >= keys.length) {
+                long[] old_keys = keys;
+                byte[] old_values = values;
+                allocate(keys.length * 2);
+                for (int i = 0; i < old_keys.length; i++)
+                    if (old_keys[i] != -1)
+                        insert(old_keys[i], old_values[i]);
+            }
+            insert(code, distance);
+            size++;
+        }
+
+        private void insert(long code, byte distance) {
+            int slot = slotFor(code);
+            while (keys[slot] != -1)
+                slot = (slot + 1) & mask;
+            keys[slot] = code;
+            values[slot] = distance;
+        }
+    }
+}
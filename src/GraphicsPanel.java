@@ -2,113 +2,171 @@ import EightPuzzle.State;
 
 import javax.swing.*;
 import java.awt.*;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
 import java.util.ArrayList;
 
 import static java.lang.Integer.max;
-import static java.lang.Math.floor;
 
-public class GraphicsPanel extends JPanel {
-    /*  This panel can be in 3 states:
+// Displays solution states as a grid of tiles (inside a JScrollPane, see Program.java).
+//
+// The panel is repainted only when something changes (its state, the solution, its size or scrolling),
+// there's no timer, so it doesn't use CPU while nothing happens. Tiles keep their size (see BoardRenderer),
+// long solutions make the panel taller instead, and only tiles inside the clip area (the visible part
+// of the panel) are drawn.
+//
+// All fields are used only in the GUI thread, setters can be called from any thread.
+public class GraphicsPanel extends JPanel implements Scrollable {
+    /*  This panel can be in 4 states:
         - init
         - solving
-        - solved  */
+        - solved
+        - failed (unsolvable, cancelled or out of budget) */
     private PanelState panel_state;
-    public enum PanelState { INIT, SOLVING, SOLVED };
+    public enum PanelState { INIT, SOLVING, SOLVED, FAILED };
 
-    java.util.List<State> solution_states;
+    private java.util.List<State> solution_states;
+    private String failure_message = "";
+
+    // prepared for the board shape of solution_states, null before the first solution
+    private BoardRenderer renderer;
+    // number of tiles in a row at the current width of the panel
+    private int columns = 1;
 
     GraphicsPanel() {
         solution_states = new ArrayList<>();
         panel_state = PanelState.INIT;
-        setPreferredSize(new Dimension(800, 600));
+        setBackground(Color.gray);
 
-        Timer update_timer = new Timer(20, new ActionListener() {
+        // the number of columns depends on the width, so the height of the panel is updated after resizing
+        addComponentListener(new ComponentAdapter() {
             @Override
-            public void actionPerformed(ActionEvent e) {
-                /* This is where action upon every frame is performed
-                  (State is an abstract class, "current()" is a static method) */
-                //State.current().advance();
-
-                // repaint calls "paintComponent" where "draw" of current state is called
-                repaint();
+            public void componentResized(ComponentEvent e) {
+                if (renderer != null && columnsFor(getWidth()) != columns)
+                    revalidate();
             }
         });
-        update_timer.start();
     }
 
     @Override
     public void paintComponent(Graphics g) {
         super.paintComponent(g);
-        setBackground(Color.gray);
         g.setColor(Color.white);
 
-        FontMetrics fm = g.getFontMetrics();
-
-        synchronized (panel_state) {
-            switch(panel_state) {
-                case INIT: {
-                    // probably should paint currently selected state here too
-                    String str = "Press 'Solve'";
-                    int half_width = (int) (fm.getStringBounds(str, g).getWidth() * 0.5);
-                    g.drawString(str, 400 - half_width, 290);
-                }
+        switch(panel_state) {
+            case INIT:
+                // probably should paint currently selected state here too
+                drawCenteredString(g, "Press 'Solve'");
                 break;
-                case SOLVING: {
-                    // probably should paint currently selected state here too
-                    String str = "Solving...";
-                    int half_width = (int) (fm.getStringBounds(str, g).getWidth() * 0.5);
-                    g.drawString(str, 400 - half_width, 290);
-                }
+            case SOLVING:
+                // probably should paint currently selected state here too
+                drawCenteredString(g, "Solving...");
                 break;
-                case SOLVED:
-                    State temp_state = solution_states.get(0);
-
-                    int how_many_states_could_fit = -1;
-                    double size_divisor = 1.0;
-                    int max_row_col = 0, max_size = 0, width = 0, height = 0, max_w_h = 0, margin = 0, x = 0, y = 0;
-                    while (how_many_states_could_fit < solution_states.size()) {
-                        max_row_col = max(temp_state.getRowSize(), temp_state.getColSize());
-                        max_size = (int)((20 + max_row_col * 20) / size_divisor);
-
-                        width = max_size * temp_state.getColSize() / max_row_col;
-                        height = max_size * temp_state.getRowSize() / max_row_col;
-                        max_w_h = max(width, height);
-                        margin = (int)(max_w_h * 0.1);
-                        x = margin;
-                        y = margin;
-
-                        how_many_states_could_fit = (int)(floor(getWidth() / (width + margin)) * floor(getHeight() / (height + margin)));
-                        size_divisor += 0.1;// (double)solution_states.size() / (double)how_many_states_could_fit;
-                    }
-
-                    synchronized (solution_states) {
-                        for (int i = 0; i < solution_states.size(); i++) {
-                            State state = solution_states.get(i);
-                            state.drawAt(g, x, y, max_w_h);
-                            x += width + margin;
-                            if (x > getWidth() - width) {
-                                x = margin;
-                                y += height + margin;
-                            }
-                        }
-                    }
-                    break;
+            case FAILED:
+                drawCenteredString(g, failure_message);
+                break;
+            case SOLVED:
+                drawVisibleStates(g);
+                break;
+        }
+    }
+
+    private void drawCenteredString(Graphics g, String str) {
+        // in the middle of the visible part of the panel
+        Rectangle visible = getVisibleRect();
+        int half_width = g.getFontMetrics().stringWidth(str) / 2;
+        g.drawString(str, visible.x + visible.width / 2 - half_width, visible.y + visible.height / 2);
+    }
 
+    private void drawVisibleStates(Graphics g) {
+        if (renderer == null)
+            return;
+        columns = columnsFor(getWidth());
+        int step_x = renderer.width + renderer.margin;
+        int step_y = renderer.height + renderer.margin;
+
+        // rows of tiles that intersect the clip area
+        Rectangle clip = g.getClipBounds();
+        int first_row = max(0, (clip.y - renderer.margin) / step_y);
+        int last_row = (clip.y + clip.height - renderer.margin) / step_y;
+
+        for (int row = first_row; row <= last_row; row++) {
+            for (int col = 0; col < columns; col++) {
+                int i = row * columns + col;
+                if (i >= solution_states.size())
+                    return;
+                renderer.draw(g, solution_states.get(i), renderer.margin + col * step_x, renderer.margin + row * step_y);
             }
         }
     }
 
-    public void setPanelState(PanelState panel_state) {
-        synchronized (this.panel_state) {
-            this.panel_state = panel_state;
-        }
+    private int columnsFor(int panel_width) {
+        // tiles start at margin and the last one must fit the width
+        return max(1, (panel_width - renderer.width - renderer.margin) / (renderer.width + renderer.margin) + 1);
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        if (panel_state != PanelState.SOLVED || renderer == null)
+            return getPreferredScrollableViewportSize();
+        int tile_rows = (solution_states.size() + columnsFor(getWidth()) - 1) / columnsFor(getWidth());
+        return new Dimension(renderer.width + 2 * renderer.margin,
+                renderer.margin + tile_rows * (renderer.height + renderer.margin));
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return new Dimension(800, 600);
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visible, int orientation, int direction) {
+        return renderer == null ? 16 : (renderer.height + renderer.margin) / 2;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visible, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? visible.height : visible.width;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        // tiles are wrapped to the width of the window, scrolling is only vertical
+        return true;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        // short solutions (and messages) fill the whole window
+        return getParent() instanceof JViewport && getParent().getHeight() > getPreferredSize().height;
+    }
+
+    public void setPanelState(PanelState panel_state_) {
+        SwingUtilities.invokeLater(() -> {
+            panel_state = panel_state_;
+            revalidate();
+            repaint();
+        });
+    }
+
+    public void setFailureMessage(String message) {
+        SwingUtilities.invokeLater(() -> {
+            failure_message = message;
+            repaint();
+        });
     }
 
     public void setSolutionStates(java.util.List<State> states) {
-        synchronized (solution_states) {
+        SwingUtilities.invokeLater(() -> {
             solution_states = states;
-        }
+            // the renderer is prepared again only for a different board shape
+            if (!states.isEmpty()) {
+                State first = states.get(0);
+                if (renderer == null || renderer.rows != first.getRowSize() || renderer.cols != first.getColSize())
+                    renderer = new BoardRenderer(first.getRowSize(), first.getColSize(), getFontMetrics(getFont()));
+            }
+            revalidate();
+            repaint();
+        });
     }
-}
\ No newline at end of file
+}
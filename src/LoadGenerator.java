@@ -0,0 +1,148 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Measures throughput and latency of SolverServer on this machine.
+//
+// Usage:
+//      java LoadGenerator <input file> [options]
+//          --port N           port of the server (default: 7878)
+//          --connections N    connections sending puzzles at the same time (default: 4)
+//          --requests N       puzzles sent by each connection (default: 1000), lines of the input file are repeated
+//          --window N         puzzles of a connection waiting for their responses at once (default: 16)
+//
+// Every connection keeps "--window" requests in flight (closed loop, a new puzzle is sent when a response
+// arrives), so the load adapts to the server instead of queueing without limit. Latency of a request is
+// the time from sending its line to receiving its response (including time it waited in the server's queue).
+public class LoadGenerator {
+    int port = SolverServer.DEFAULT_PORT;
+    int connections = 4;
+    int requests = 1000;
+    int window = 16;
+    // valid lines of the input file
+    List<String> lines = new ArrayList<>();
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.out.println("Usage: java LoadGenerator <input file> [--port N] [--connections N] [--requests N] [--window N]");
+            return;
+        }
+        LoadGenerator generator = new LoadGenerator();
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port":        generator.port = Integer.parseInt(args[++i]); break;
+                case "--connections": generator.connections = Integer.parseInt(args[++i]); break;
+                case "--requests":    generator.requests = Integer.parseInt(args[++i]); break;
+                case "--window":      generator.window = Integer.parseInt(args[++i]); break;
+                default:              throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        try (PuzzleReader reader = PuzzleReader.open(Paths.get(args[0]))) {
+            while (reader.hasNext()) {
+                PuzzleReader.Puzzle puzzle = reader.next();
+                if (puzzle.isValid())
+                    generator.lines.add(puzzle.toString());
+            }
+        }
+        if (generator.lines.isEmpty()) {
+            System.out.println("No valid puzzles in " + args[0]);
+            return;
+        }
+        generator.run();
+    }
+
+    void run() throws InterruptedException {
+        long[][] latencies = new long[connections][];
+        int[] solved = new int[connections];
+        Thread[] threads = new Thread[connections];
+        long start_time = System.nanoTime();
+        for (int c = 0; c < connections; c++) {
+            int connection = c;
+            threads[c] = new Thread(() -> {
+                try {
+                    latencies[connection] = runConnection(connection, solved);
+                } catch (IOException | InterruptedException e) {
+                    e.printStackTrace();
+                    latencies[connection] = new long[0];
+                }
+            });
+            threads[c].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+        long elapsed_ns = System.nanoTime() - start_time;
+
+        long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).toArray();
+        Arrays.sort(all);
+        int total_solved = Arrays.stream(solved).sum();
+        System.out.printf("%d responses (%d solved) in %dms, %.1f puzzles/s\n",
+                all.length, total_solved, elapsed_ns / 1_000_000, all.length * 1e9 / elapsed_ns);
+        if (all.length > 0) {
+            System.out.printf("latency ms: p50 %.2f, p90 %.2f, p99 %.2f, max %.2f\n",
+                    percentile(all, 0.50) / 1e6, percentile(all, 0.90) / 1e6,
+                    percentile(all, 0.99) / 1e6, all[all.length - 1] / 1e6);
+        }
+    }
+
+    private static long percentile(long[] sorted, double fraction) {
+        return sorted[Math.min(sorted.length - 1, (int)Math.ceil(fraction * sorted.length) - 1)];
+    }
+
+    // returns latencies (ns) of the responses of one connection
+    private long[] runConnection(int connection, int[] solved) throws IOException, InterruptedException {
+        // send times of requests, written by the sending thread and read by the receiving one
+        AtomicLongArray sent_at = new AtomicLongArray(requests);
+        long[] latencies = new long[requests];
+        Semaphore in_flight = new Semaphore(window);
+
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            Thread sender = new Thread(() -> {
+                try {
+                    Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII));
+                    for (int i = 0; i < requests; i++) {
+                        // requests are flushed together, only when no more can be sent before a response arrives
+                        if (!in_flight.tryAcquire()) {
+                            out.flush();
+                            in_flight.acquire();
+                        }
+                        sent_at.set(i, System.nanoTime());
+                        out.write(lines.get((connection + i) % lines.size()));
+                        out.write('\n');
+                    }
+                    out.flush();
+                    socket.shutdownOutput();
+                } catch (IOException | InterruptedException e) {
+                    e.printStackTrace();
+                }
+            });
+            sender.start();
+
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            int received = 0;
+            String response;
+            while ((response = in.readLine()) != null) {
+                // "<line> <result> ..." (see SolverServer.java), line numbers start at 1
+                String[] parts = response.split(" ", 3);
+                int request = Integer.parseInt(parts[0]) - 1;
+                latencies[received++] = System.nanoTime() - sent_at.get(request);
+                if (parts[1].equals("SOLVED"))
+                    solved[connection]++;
+                in_flight.release();
+            }
+            sender.join();
+            return Arrays.copyOf(latencies, received);
+        }
+    }
+}
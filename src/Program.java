@@ -1,4 +1,12 @@
+import EightPuzzle.CancellationToken;
 import EightPuzzle.EightPuzzle;
+import EightPuzzle.SearchBudget;
+import EightPuzzle.SearchListener;
+import EightPuzzle.SearchStatistics;
+import EightPuzzle.SolutionCache;
+import EightPuzzle.SolveReport;
+import EightPuzzle.SolverConfig;
+import EightPuzzle.State;
 
 import javax.swing.*;
 import java.awt.*;
@@ -6,7 +14,9 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
 import java.util.List;
@@ -20,23 +30,52 @@ public class Program extends JFrame {
     // top panel with selection of puzzle and "Solve" button
     JPanel top_panel;
     JComboBox comboBox_puzzle_type;
+    JComboBox<EightPuzzle.Algorithm> comboBox_algorithm;
+    // heuristic weight of weighted A* and ARA*
+    JSpinner spinner_weight;
+    // where nodes of A* searches are kept (heap, off-heap memory or a mapped file)
+    JComboBox<EightPuzzle.StorageMode> comboBox_storage;
     JButton button_solve;
+    JButton button_cancel;
 
     // checkboxes for selectable heuristics
     JCheckBox checkbox_manhattan_distance;
     JCheckBox checkbox_direct_reversal_penalty;
     JCheckBox checkbox_mismatch_count;
+    JCheckBox checkbox_pattern_database;
+    JCheckBox checkbox_linear_conflict;
+    JCheckBox checkbox_walking_distance;
     JPanel panel_heuristics;
 
     // performance statistics elements
     JLabel label_moves;
     JLabel label_completion_time;
     JLabel label_expanded_nodes;
+    JLabel label_progress;
     JPanel panel_performance;
 
     // graphics_panel is where the squares and numbers representing states are displayed after solution
     GraphicsPanel graphics_panel;
 
+    // allows to stop the solve that is currently running
+    volatile CancellationToken cancellation_token = new CancellationToken();
+
+    // rough number of bytes used by a single node/state kept by the search, used to stop
+    // searches before they run out of memory (instead of crashing with OutOfMemoryError)
+    static final long STORED_NODE_BYTES = 200;
+    // the same with off-heap storage, only the open list of the search is left on the heap
+    static final long OFF_HEAP_STORED_NODE_BYTES = 16;
+
+    // puzzles of the input file that are listed in comboBox_puzzle_type
+    static final int MAX_LISTED_PUZZLES = 1000;
+
+    // how often statistics of a running solve are displayed
+    static final long PROGRESS_INTERVAL_MS = 200;
+
+    // solutions are kept between runs of the program in this file (see SolutionCache.java)
+    static final Path SOLUTION_CACHE_FILE = Paths.get("solution_cache.bin");
+    SolutionCache solution_cache = new SolutionCache(1000, 1_000_000);
+
     public static void main(String[] args) throws FileNotFoundException {
         new Program();
     }
@@ -44,54 +83,152 @@ public class Program extends JFrame {
     Program() {
         initWindow();
 
-        // create single puzzle object that is reused
-        EightPuzzle puzzle = new EightPuzzle();
+        loadSolutionCache();
+        // settings shared by all solves, the rest is read from the controls when "Solve" is pressed
+        SolverConfig base_config = SolverConfig.defaults().withSolutionCache(solution_cache);
+
+        button_cancel.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                cancellation_token.cancel();
+            }
+        });
 
         button_solve.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                Thread thread = new Thread() {
-                    public void run(){
-                        graphics_panel.setPanelState(GraphicsPanel.PanelState.SOLVING);
-
-                        // set heuristics supplied to solver based on the state of the checkboxes
-                        List<Heuristic> heuristics = new ArrayList<>(){{
-                            if (checkbox_manhattan_distance.isSelected()) { add(MANHATTAN_DISTANCE); }
-                            if (checkbox_direct_reversal_penalty.isSelected()) { add(DIRECT_REVERSE_PENALTY); }
-                            if (checkbox_mismatch_count.isSelected()) { add(MISMATCH_COUNT); }
-                        }};
-                        puzzle.setHeuristics(heuristics);
-
-                        // clear performance statistics of the previous solution because the new one is about to be done
-                        label_moves.setText("");
-                        label_completion_time.setText("");
-                        label_expanded_nodes.setText("");
-
-                        // this is where the puzzle gets solved
-                        // (it may take some time but it doesn't block GUI because it's in a separate thread)
-                        puzzle.solve(
-                                lineToInputState(comboBox_puzzle_type.getSelectedItem().toString())
-                        );
-
-                        // at this point the puzzle is solved, so performance statistics are displayed
-                        label_moves.setText("   Moves: " + (puzzle.getSolutionStates().size()-1));
-                        label_completion_time.setText("   Time taken: " + puzzle.getCompletionTime() + "ms");
-                        label_expanded_nodes.setText("   Nodes expanded: " + puzzle.getExpandedNodesCount());
-
-                        // states (number values) of moves that lead to solution must be passed from solver to GUI
-                        graphics_panel.setSolutionStates(puzzle.getSolutionStates());
-
-                        graphics_panel.setPanelState(GraphicsPanel.PanelState.SOLVED);
-                    }
-                };
-                // setting as daemon will terminate thread when the program exits
-                thread.setDaemon(true);
-
-                thread.start();
+                // only the newest solve is displayed, so the previous one (if it's still running) is stopped
+                cancellation_token.cancel();
+                CancellationToken token = new CancellationToken();
+                cancellation_token = token;
+
+                // Every solve gets its own config (SolverConfig can't change), read from the controls here in
+                // the GUI thread. Solves don't share anything else, so a previous solve that is still finishing
+                // its cancellation can't affect this one.
+
+                // set heuristics supplied to solver based on the state of the checkboxes
+                List<Heuristic> heuristics = new ArrayList<>(){{
+                    if (checkbox_manhattan_distance.isSelected()) { add(MANHATTAN_DISTANCE); }
+                    if (checkbox_direct_reversal_penalty.isSelected()) { add(DIRECT_REVERSE_PENALTY); }
+                    if (checkbox_mismatch_count.isSelected()) { add(MISMATCH_COUNT); }
+                    if (checkbox_pattern_database.isSelected()) { add(PATTERN_DATABASE); }
+                    if (checkbox_linear_conflict.isSelected()) { add(LINEAR_CONFLICT); }
+                    if (checkbox_walking_distance.isSelected()) { add(WALKING_DISTANCE); }
+                }};
+                EightPuzzle.StorageMode storage = (EightPuzzle.StorageMode)comboBox_storage.getSelectedItem();
+                long node_bytes = storage == EightPuzzle.StorageMode.HEAP ? STORED_NODE_BYTES : OFF_HEAP_STORED_NODE_BYTES;
+                SolverConfig config = base_config
+                        .withHeuristics(heuristics)
+                        .withAlgorithm((EightPuzzle.Algorithm)comboBox_algorithm.getSelectedItem())
+                        .withWeight((Double)spinner_weight.getValue())
+                        .withStorage(storage)
+                        .withBudget(new SearchBudget(SearchBudget.UNLIMITED, SearchBudget.UNLIMITED,
+                                Runtime.getRuntime().maxMemory() / node_bytes))
+                        .withSearchListener(createSearchListener(token), PROGRESS_INTERVAL_MS);
+                int[][] values = PuzzleReader.lineToInputState(comboBox_puzzle_type.getSelectedItem().toString());
+
+                graphics_panel.setPanelState(GraphicsPanel.PanelState.SOLVING);
+
+                // clear performance statistics of the previous solution because the new one is about to be done
+                label_moves.setText("");
+                label_completion_time.setText("");
+                label_expanded_nodes.setText("");
+                label_progress.setText("");
+
+                // this is where the puzzle gets solved
+                // (it may take some time but it doesn't block GUI because it runs in the background)
+                EightPuzzle.solveAsync(config, values, token).whenComplete((report, error) -> {
+                    // the cache file is written here in the solver's thread, it would block the GUI
+                    if (error == null && report.getResult() == EightPuzzle.SolveResult.SOLVED)
+                        saveSolutionCache();
+
+                    // Results are displayed in the GUI thread, after progress and improved solutions of this
+                    // solve that were queued before it finished (see createSearchListener), so they can't
+                    // overwrite the final statistics.
+                    SwingUtilities.invokeLater(() -> {
+                        // a newer solve was started, its results will be displayed instead
+                        if (token != cancellation_token)
+                            return;
+
+                        if (error != null) {
+                            label_moves.setText("   Error: " + error.getCause());
+                            graphics_panel.setFailureMessage("Error (" + error.getCause() + ")");
+                            graphics_panel.setPanelState(GraphicsPanel.PanelState.FAILED);
+                            return;
+                        }
+                        showReport(report);
+                    });
+                });
             }
         });
     }
 
+    private void showReport(SolveReport report) {
+        EightPuzzle.SolveResult result = report.getResult();
+        if (result != EightPuzzle.SolveResult.SOLVED) {
+            label_moves.setText("   No solution: " + result);
+            label_completion_time.setText("   Time taken: " + report.getCompletionTime() + "ms");
+            label_expanded_nodes.setText("   Nodes expanded: " + report.getExpandedNodesCount());
+            graphics_panel.setFailureMessage("No solution (" + result + ")");
+            graphics_panel.setPanelState(GraphicsPanel.PanelState.FAILED);
+            return;
+        }
+
+        // at this point the puzzle is solved, so performance statistics are displayed
+        label_moves.setText("   Moves: " + (report.getSolutionStates().size()-1));
+        label_completion_time.setText("   Time taken: " + report.getCompletionTime() + "ms");
+        label_expanded_nodes.setText("   Nodes expanded: " + report.getExpandedNodesCount());
+
+        // states (number values) of moves that lead to solution must be passed from solver to GUI
+        graphics_panel.setSolutionStates(report.getSolutionStates());
+
+        graphics_panel.setPanelState(GraphicsPanel.PanelState.SOLVED);
+    }
+
+    private void saveSolutionCache() {
+        try {
+            solution_cache.save(SOLUTION_CACHE_FILE);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private SearchListener createSearchListener(CancellationToken token) {
+        return new SearchListener() {
+            @Override
+            public void onProgress(SearchStatistics statistics) {
+                SwingUtilities.invokeLater(() -> {
+                    if (token == cancellation_token)
+                        showProgress(statistics);
+                });
+            }
+
+            @Override
+            public void onSolutionImproved(List<State> solution_states, double weight) {
+                // anytime search found a better solution, it's displayed while the search continues
+                SwingUtilities.invokeLater(() -> {
+                    if (token != cancellation_token)
+                        return;
+                    label_moves.setText(String.format("   Moves: %d (at most %.1fx optimal)",
+                            solution_states.size() - 1, weight));
+                    graphics_panel.setSolutionStates(solution_states);
+                    graphics_panel.setPanelState(GraphicsPanel.PanelState.SOLVED);
+                });
+            }
+        };
+    }
+
+    private void showProgress(SearchStatistics statistics) {
+        label_completion_time.setText("   Time taken: " + statistics.getElapsedMs() + "ms");
+        label_expanded_nodes.setText("   Nodes expanded: " + statistics.getNodesExpanded()
+                + " (" + statistics.getExpandedPerSecond() + "/s)");
+        label_progress.setText(String.format("   Generated: %d/s  Open: %d  Closed: %d  Duplicates: %d  "
+                        + "Heuristics: %dms  Peak heap: %dMB  f-bound: %d",
+                statistics.getGeneratedPerSecond(), statistics.getOpenSize(), statistics.getClosedSize(),
+                statistics.getDuplicatesRejected(), statistics.getHeuristicTimeMs(),
+                statistics.getPeakHeapBytes() >> 20, statistics.getFBound()));
+    }
+
     private void initWindow() {
         // create panels that later get added to BoxLayout of the JFrame
         // Flow layout of these panels makes their items positioned next to each other.
@@ -103,26 +240,43 @@ public class Program extends JFrame {
 
         // top_panel elements
         comboBox_puzzle_type = new JComboBox();
+        comboBox_algorithm = new JComboBox<>(EightPuzzle.Algorithm.values());
+        comboBox_storage = new JComboBox<>(EightPuzzle.StorageMode.values());
+        spinner_weight = new JSpinner(new SpinnerNumberModel(2.0, 1.0, 10.0, 0.5));
         button_solve = new JButton("Solve");
+        button_cancel = new JButton("Cancel");
         top_panel.add(comboBox_puzzle_type);
+        top_panel.add(comboBox_algorithm);
+        top_panel.add(new JLabel("Weight:"));
+        top_panel.add(spinner_weight);
+        top_panel.add(comboBox_storage);
         top_panel.add(button_solve);
+        top_panel.add(button_cancel);
 
         // selectable heuristic elements
         checkbox_manhattan_distance = new JCheckBox("Manhattan distance", true);
         checkbox_direct_reversal_penalty = new JCheckBox("Direct reversal penalty", true);
         checkbox_mismatch_count = new JCheckBox("Mismatch count", false);
+        checkbox_pattern_database = new JCheckBox("Pattern database", false);
+        checkbox_linear_conflict = new JCheckBox("Linear conflict (+ Manhattan)", false);
+        checkbox_walking_distance = new JCheckBox("Walking distance", false);
         panel_heuristics.add(new JLabel("Heuristics for A* algorithm:"));
         panel_heuristics.add(checkbox_manhattan_distance);
         panel_heuristics.add(checkbox_direct_reversal_penalty);
         panel_heuristics.add(checkbox_mismatch_count);
+        panel_heuristics.add(checkbox_pattern_database);
+        panel_heuristics.add(checkbox_linear_conflict);
+        panel_heuristics.add(checkbox_walking_distance);
 
         // performance statistics elements
         label_moves = new JLabel();
         label_completion_time = new JLabel();
         label_expanded_nodes = new JLabel();
+        label_progress = new JLabel();
         panel_performance.add(label_moves);
         panel_performance.add(label_completion_time);
         panel_performance.add(label_expanded_nodes);
+        panel_performance.add(label_progress);
 
         // Create BoxLayout. It is equivalent to "vertical layout" thanks to
         // "Y_AXIS" parameter which positions each new panel under previous one.
@@ -132,7 +286,10 @@ public class Program extends JFrame {
         add(top_panel);
         add(panel_heuristics);
         add(panel_performance);
-        add(graphics_panel);
+        // long solutions are scrolled, only their visible part is drawn (see GraphicsPanel.java)
+        JScrollPane scroll_pane = new JScrollPane(graphics_panel,
+                ScrollPaneConstants.VERTICAL_SCROLLBAR_AS_NEEDED, ScrollPaneConstants.HORIZONTAL_SCROLLBAR_NEVER);
+        add(scroll_pane);
 
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         pack();
@@ -141,35 +298,32 @@ public class Program extends JFrame {
         loadInputFile();
     }
 
-    private void loadInputFile() {
-        int[][] initial_state_from_file;
+    private void loadSolutionCache() {
+        if (!Files.exists(SOLUTION_CACHE_FILE))
+            return;
         try {
-            List<String> allLines = Files.readAllLines(Paths.get("input.txt"));
-            for (String line : allLines) {
-                System.out.println(line);
-                initial_state_from_file = lineToInputState(line);
-                comboBox_puzzle_type.addItem(line);
-            }
+            solution_cache.load(SOLUTION_CACHE_FILE);
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
-    // it converts the line from input file into 2D array containing initial state of the puzzle
-    static private int[][] lineToInputState(String line) {
-        int [][] arr;
-        int rows = line.charAt(1) - '0';
-        int cols = line.charAt(3) - '0';
-        arr = new int[rows][cols];
-        String[] nums = line.substring(6, line.length() - 1).split(" ");
-
-        int num_i = 0;
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                arr[i][j] = Integer.parseInt(nums[num_i]);
-                num_i += 1;
+    private void loadInputFile() {
+        // puzzles are read one by one, only the first MAX_LISTED_PUZZLES are listed
+        // (large files should be solved with BatchSolver)
+        try (PuzzleReader reader = PuzzleReader.open(Paths.get("input.txt"))) {
+            int listed = 0;
+            while (reader.hasNext() && listed < MAX_LISTED_PUZZLES) {
+                PuzzleReader.Puzzle puzzle = reader.next();
+                if (!puzzle.isValid())
+                    continue;
+                comboBox_puzzle_type.addItem(puzzle.toString());
+                listed++;
             }
+            if (reader.hasNext())
+                System.out.printf("Only the first %d puzzles are listed.\n", MAX_LISTED_PUZZLES);
+        } catch (IOException | UncheckedIOException e) {
+            e.printStackTrace();
         }
-        return arr;
     }
 }
@@ -0,0 +1,54 @@
+import EightPuzzle.InstanceGenerator;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Random;
+
+// Writes random solvable boards in the format of input.txt (see EightPuzzle.InstanceGenerator), e.g. as
+// input of BatchSolver, SolverClient or LoadGenerator.
+//
+// Usage:
+//      java PuzzleGenerator <rows> <cols> <count> [options]
+//          --walk N               boards N random moves away from the goal (default: uniform random boards)
+//          --seed S               seed of the random generator, the same seed gives the same boards (default: random)
+//          --output FILE          (default: console)
+public class PuzzleGenerator {
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.out.println("Usage: java PuzzleGenerator <rows> <cols> <count> [--walk N] [--seed S] [--output FILE]");
+            return;
+        }
+
+        int rows = Integer.parseInt(args[0]);
+        int cols = Integer.parseInt(args[1]);
+        int count = Integer.parseInt(args[2]);
+        int walk = -1;
+        Random random = new Random();
+        String output_file = null;
+        for (int i = 3; i < args.length; i++) {
+            switch (args[i]) {
+                case "--walk":   walk = Integer.parseInt(args[++i]); break;
+                case "--seed":   random = new Random(Long.parseLong(args[++i])); break;
+                case "--output": output_file = args[++i]; break;
+                default:         throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        try (Writer writer = output_file == null
+                ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+                : Files.newBufferedWriter(Paths.get(output_file))) {
+            for (int i = 0; i < count; i++) {
+                int[][] values = walk >= 0
+                        ? InstanceGenerator.randomWalk(rows, cols, walk, random)
+                        : InstanceGenerator.randomPermutation(rows, cols, random);
+                writer.write(InstanceGenerator.toLine(values));
+                writer.write('\n');
+            }
+        }
+    }
+}
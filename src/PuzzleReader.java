@@ -0,0 +1,254 @@
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// Reads puzzles of an input file one by one, e.g.
+//      (2,3)[5 4 3 2 1 0]
+//      (10,12)[1 2 3 ... 119 0]
+//
+// Bytes are parsed straight from a buffer filled by a channel (without creating a String for each line),
+// and only the puzzle that's currently returned is kept in memory, so files with any number of lines can
+// be read in constant memory. Dimensions and values may have any number of digits, spaces are allowed
+// between all parts of a line and blank lines are skipped.
+//
+// Each board is validated while it's read (every value from 0 to rows*cols-1 must appear exactly once).
+// A line that is not valid doesn't stop reading, it's returned as a Puzzle with an error message.
+class PuzzleReader implements Iterator<PuzzleReader.Puzzle>, Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+    // larger boards would take too much memory (and can't be solved anyway, see State.MAX_SIZE)
+    static final int MAX_DIMENSION = 1000;
+    private static final int END_OF_INPUT = -1;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private boolean end_of_input = false;
+
+    private int line_number = 0;
+    private Puzzle next_puzzle = null;
+    // values already seen on the current line (reused for all lines)
+    private boolean[] value_seen = new boolean[0];
+
+    PuzzleReader(ReadableByteChannel channel_) {
+        channel = channel_;
+        buffer.flip();
+    }
+
+    static PuzzleReader open(Path path) throws IOException {
+        return new PuzzleReader(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    static PuzzleReader of(String text) {
+        return new PuzzleReader(Channels.newChannel(new ByteArrayInputStream(text.getBytes(StandardCharsets.US_ASCII))));
+    }
+
+    // it converts a single line (e.g. item of Program's puzzle list) into 2D array containing initial state of the puzzle
+    static int[][] lineToInputState(String line) {
+        Puzzle puzzle = of(line).next();
+        if (!puzzle.isValid())
+            throw new IllegalArgumentException(puzzle.error);
+        return puzzle.values;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next_puzzle == null)
+            next_puzzle = readPuzzle();
+        return next_puzzle != null;
+    }
+
+    @Override
+    public Puzzle next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        Puzzle puzzle = next_puzzle;
+        next_puzzle = null;
+        return puzzle;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int peek() {
+        if (!buffer.hasRemaining()) {
+            if (end_of_input)
+                return END_OF_INPUT;
+            try {
+                buffer.clear();
+                int count;
+                do {
+                    count = channel.read(buffer);
+                } while (count == 0);
+                buffer.flip();
+                if (count < 0) {
+                    end_of_input = true;
+                    return END_OF_INPUT;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return buffer.get(buffer.position()) & 0xFF;
+    }
+
+    private int read() {
+        int c = peek();
+        if (c != END_OF_INPUT)
+            buffer.get();
+        return c;
+    }
+
+    private void skipSpaces() {
+        int c;
+        while ((c = peek()) == ' ' || c == '\t' || c == '\r')
+            read();
+    }
+
+    private void skipLine() {
+        int c;
+        while ((c = read()) != '\n' && c != END_OF_INPUT);
+    }
+
+    // returns the next puzzle or null at the end of input
+    private Puzzle readPuzzle() {
+        // skip blank lines
+        int c;
+        while (true) {
+            skipSpaces();
+            c = peek();
+            if (c == END_OF_INPUT)
+                return null;
+            line_number++;
+            if (c != '\n')
+                break;
+            read();
+        }
+
+        String error = null;
+        int[][] values = null;
+        try {
+            expect('(');
+            int rows = readNumber();
+            expect(',');
+            int cols = readNumber();
+            expect(')');
+            if (rows < 1 || cols < 1 || rows > MAX_DIMENSION || cols > MAX_DIMENSION)
+                throw new ParseException("dimensions must be between 1 and " + MAX_DIMENSION);
+
+            expect('[');
+            values = readValues(rows, cols);
+            expect(']');
+
+            skipSpaces();
+            c = peek();
+            if (c != '\n' && c != END_OF_INPUT)
+                throw new ParseException("unexpected '" + (char)c + "' after ']'");
+        } catch (ParseException e) {
+            error = e.getMessage();
+            values = null;
+        }
+        skipLine();
+        return new Puzzle(line_number, values, error);
+    }
+
+    private int[][] readValues(int rows, int cols) throws ParseException {
+        int size = rows * cols;
+        if (value_seen.length < size)
+            value_seen = new boolean[size];
+        Arrays.fill(value_seen, 0, size, false);
+
+        int[][] values = new int[rows][cols];
+        for (int i = 0; i < size; i++) {
+            int value = readNumber();
+            if (value >= size)
+                throw new ParseException("value " + value + " is out of range 0-" + (size - 1));
+            if (value_seen[value])
+                throw new ParseException("value " + value + " appears more than once");
+            value_seen[value] = true;
+            values[i / cols][i % cols] = value;
+
+            // values may be separated by commas too
+            skipSpaces();
+            if (peek() == ',')
+                read();
+        }
+        return values;
+    }
+
+    private void expect(char expected) throws ParseException {
+        skipSpaces();
+        int c = peek();
+        if (c != expected)
+            throw new ParseException("expected '" + expected + "' but found "
+                    + (c == END_OF_INPUT || c == '\n' ? "end of line" : "'" + (char)c + "'"));
+        read();
+    }
+
+    private int readNumber() throws ParseException {
+        skipSpaces();
+        int c = peek();
+        if (c < '0' || c > '9')
+            throw new ParseException("expected a number but found "
+                    + (c == END_OF_INPUT || c == '\n' ? "end of line" : "'" + (char)c + "'"));
+
+        long number = 0;
+        while ((c = peek()) >= '0' && c <= '9') {
+            number = number * 10 + (c - '0');
+            if (number > Integer.MAX_VALUE)
+                throw new ParseException("number is too large");
+            read();
+        }
+        return (int)number;
+    }
+
+    private static class ParseException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        ParseException(String message) {
+            super(message);
+        }
+    }
+
+    // a single line of the input file
+    static class Puzzle {
+        final int line_number;
+        // null if the line is not valid
+        final int[][] values;
+        final String error;
+
+        Puzzle(int line_number_, int[][] values_, String error_) {
+            line_number = line_number_;
+            values = values_;
+            error = error_;
+        }
+
+        boolean isValid() {
+            return values != null;
+        }
+
+        @Override
+        public String toString() {
+            // the same format as input file lines
+            if (values == null)
+                return "line " + line_number + ": " + error;
+            StringBuilder sb = new StringBuilder();
+            sb.append('(').append(values.length).append(',').append(values[0].length).append(")[");
+            for (int i = 0; i < values.length; i++)
+                for (int j = 0; j < values[0].length; j++)
+                    sb.append(i + j == 0 ? "" : " ").append(values[i][j]);
+            return sb.append(']').toString();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+// Sends puzzles of an input file to SolverServer on this machine and prints its responses as they arrive
+// (see SolverServer.java for the format of responses).
+//
+// Usage:
+//      java SolverClient <input file> [--port N]
+//
+// The file is sent as it is (the server parses and validates the lines), by a separate thread, so responses
+// are printed while the rest of the file is still being sent.
+public class SolverClient {
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.out.println("Usage: java SolverClient <input file> [--port N]");
+            return;
+        }
+        String input_file = args[0];
+        int port = SolverServer.DEFAULT_PORT;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--port"))
+                port = Integer.parseInt(args[++i]);
+        }
+
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            Thread sender = new Thread(() -> {
+                try {
+                    OutputStream out = socket.getOutputStream();
+                    Files.copy(Paths.get(input_file), out);
+                    out.flush();
+                    // no more requests, the server closes the connection after the last response
+                    socket.shutdownOutput();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            });
+            // setting as daemon will terminate thread when the program exits
+            sender.setDaemon(true);
+            sender.start();
+
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            String response;
+            while ((response = in.readLine()) != null)
+                System.out.println(response);
+            sender.join();
+        }
+    }
+}
@@ -0,0 +1,230 @@
+import EightPuzzle.CancellationToken;
+import EightPuzzle.EightPuzzle;
+import EightPuzzle.SearchBudget;
+import EightPuzzle.SolveReport;
+import EightPuzzle.SolverConfig;
+import EightPuzzle.SolverThreads;
+import EightPuzzle.State;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static EightPuzzle.EightPuzzle.Heuristic;
+import static EightPuzzle.EightPuzzle.Heuristic.*;
+
+// Solver service for other programs of this machine: puzzles are sent over a local TCP connection
+// (e.g. by SolverClient or LoadGenerator) and results are sent back as soon as each search finishes.
+//
+// Usage:
+//      java SolverServer [options]
+//          --port N               port on the loopback address (default: 7878)
+//          --max-searches N       searches running at once, of all connections together (default: number of cores)
+//          --queue N              puzzles of a single connection that are solved or wait to be sent back at once (default: 64)
+//          --algorithm NAME, --weight W, --heuristics A,B,..., --max-time MS, --max-expanded N,
+//          --storage MODE, --storage-dir DIR      the same as options of BatchSolver
+//
+// Protocol (text, a line in each direction for every puzzle):
+//      request:    line of the input.txt format, e.g. "(3,3)[1 2 3 4 5 6 0 7 8]"
+//      response:   <line> <result> <moves> <expanded nodes> <time ms> [values that moved, separated by spaces]
+//                  <line> INVALID <error of the request line>
+//                  <line> ERROR <exception thrown by the search>
+// <line> is the number of the request line on its connection (from 1), responses come in the order searches
+// finish, not in the order of requests. <moves> is -1 when the result is not SOLVED.
+// The client may close its output after the last request, the server closes the connection after the last response.
+//
+// Each connection is handled by its own thread (a virtual thread if the JVM has them, see SolverThreads.java),
+// searches run on threads of EightPuzzle.solveAsync. Backpressure:
+//      - a connection stops reading requests while "--queue" of its puzzles are not answered yet,
+//        and all connections wait for a free search when "--max-searches" searches are running
+//      - a client that doesn't read responses stops only its own connection (its responses wait in its queue)
+// Responses that finish at about the same time are written together and flushed once (see Connection.drain).
+//
+// (only TCP on the loopback address, Unix domain sockets need Java 16, the project targets Java 14)
+public class SolverServer {
+    static final int DEFAULT_PORT = 7878;
+
+    int port = DEFAULT_PORT;
+    int max_searches = Runtime.getRuntime().availableProcessors();
+    int queue = 64;
+    // settings of all searches
+    SolverConfig config;
+
+    // free searches, shared by all connections
+    private Semaphore search_permits;
+    private final ExecutorService connection_threads = SolverThreads.newPerTaskExecutor("SolverServer connection");
+
+    public static void main(String[] args) throws IOException {
+        SolverServer server = new SolverServer();
+        EightPuzzle.Algorithm algorithm = EightPuzzle.Algorithm.A_STAR;
+        double weight = 2.0;
+        List<Heuristic> heuristics = new ArrayList<>(List.of(MANHATTAN_DISTANCE, DIRECT_REVERSE_PENALTY));
+        long max_time_ms = SearchBudget.UNLIMITED;
+        long max_expanded_nodes = SearchBudget.UNLIMITED;
+        EightPuzzle.StorageMode storage = EightPuzzle.StorageMode.HEAP;
+        Path storage_directory = Paths.get(System.getProperty("java.io.tmpdir"));
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port":         server.port = Integer.parseInt(args[++i]); break;
+                case "--max-searches": server.max_searches = Integer.parseInt(args[++i]); break;
+                case "--queue":        server.queue = Integer.parseInt(args[++i]); break;
+                case "--algorithm":    algorithm = EightPuzzle.Algorithm.valueOf(args[++i]); break;
+                case "--weight":       weight = Double.parseDouble(args[++i]); break;
+                case "--heuristics":   heuristics = BatchSolver.parseHeuristics(args[++i]); break;
+                case "--max-time":     max_time_ms = Long.parseLong(args[++i]); break;
+                case "--max-expanded": max_expanded_nodes = Long.parseLong(args[++i]); break;
+                case "--storage":      storage = EightPuzzle.StorageMode.valueOf(args[++i]); break;
+                case "--storage-dir":  storage_directory = Paths.get(args[++i]); break;
+                default:
+                    System.out.println("Usage: java SolverServer [--port N] [--max-searches N] [--queue N] [--algorithm NAME]"
+                            + " [--weight W] [--heuristics A,B,...] [--max-time MS] [--max-expanded N]"
+                            + " [--storage MODE] [--storage-dir DIR]");
+                    return;
+            }
+        }
+
+        // each search gets an equal part of the heap (see BatchSolver.solveAll)
+        long node_bytes = storage == EightPuzzle.StorageMode.HEAP
+                ? BatchSolver.STORED_NODE_BYTES : BatchSolver.OFF_HEAP_STORED_NODE_BYTES;
+        server.config = SolverConfig.defaults()
+                .withAlgorithm(algorithm)
+                .withWeight(weight)
+                .withHeuristics(heuristics)
+                .withBudget(new SearchBudget(max_expanded_nodes, max_time_ms,
+                        Runtime.getRuntime().maxMemory() / node_bytes / server.max_searches))
+                .withStorage(storage)
+                .withStorageDirectory(storage_directory)
+                .withPrintStatistics(false);
+        server.run();
+    }
+
+    void run() throws IOException {
+        search_permits = new Semaphore(max_searches, true);
+        try (ServerSocket server_socket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            System.err.printf("Listening on %s (%d searches at once).\n",
+                    server_socket.getLocalSocketAddress(), max_searches);
+            while (true) {
+                Socket socket = server_socket.accept();
+                connection_threads.execute(new Connection(socket));
+            }
+        }
+    }
+
+    // single line response of a finished search (see the protocol above)
+    static String formatResponse(int line_number, SolveReport report, Throwable error) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(line_number).append(' ');
+        if (error != null)
+            return sb.append("ERROR ").append(error.getCause() != null ? error.getCause() : error).append('\n').toString();
+
+        EightPuzzle.SolveResult result = report.getResult();
+        List<State> states = report.getSolutionStates();
+        sb.append(result).append(' ');
+        sb.append(result == EightPuzzle.SolveResult.SOLVED ? states.size() - 1 : -1).append(' ');
+        sb.append(report.getExpandedNodesCount()).append(' ');
+        sb.append(report.getCompletionTime());
+        for (int i = 1; i < states.size(); i++)
+            sb.append(' ').append(states.get(i).getValueThatMoved());
+        return sb.append('\n').toString();
+    }
+
+    private class Connection implements Runnable {
+        private final Socket socket;
+        private final Writer out;
+        // puzzles of this connection that are solved or wait to be written
+        private final Semaphore unanswered = new Semaphore(queue);
+        // finished responses, written by whichever thread gets to drain them first
+        private final Queue<String> responses = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean draining = new AtomicBoolean(false);
+        // stops all searches of the connection when the client goes away
+        private final CancellationToken cancellation_token = new CancellationToken();
+        private volatile boolean output_failed = false;
+
+        Connection(Socket socket_) throws IOException {
+            socket = socket_;
+            out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII));
+        }
+
+        @Override
+        public void run() {
+            int puzzles = 0;
+            try (socket) {
+                // requests are parsed straight from the socket (see PuzzleReader.java)
+                PuzzleReader reader = new PuzzleReader(Channels.newChannel(socket.getInputStream()));
+                while (reader.hasNext() && !output_failed) {
+                    PuzzleReader.Puzzle puzzle = reader.next();
+                    unanswered.acquire();
+                    puzzles++;
+                    if (!puzzle.isValid()) {
+                        send(puzzle.line_number + " INVALID " + puzzle.error + "\n");
+                        continue;
+                    }
+
+                    search_permits.acquire();
+                    EightPuzzle.solveAsync(config, puzzle.values, cancellation_token).whenComplete((report, error) -> {
+                        search_permits.release();
+                        send(formatResponse(puzzle.line_number, report, error));
+                    });
+                }
+
+                // all requests were read, the connection is closed after the last response
+                unanswered.acquire(queue);
+            } catch (IOException | UncheckedIOException e) {
+                // client closed the connection before all responses were sent
+                cancellation_token.cancel();
+            } catch (InterruptedException e) {
+                cancellation_token.cancel();
+                Thread.currentThread().interrupt();
+            }
+            System.err.printf("%s: %d puzzles.\n", socket.getRemoteSocketAddress(), puzzles);
+        }
+
+        private void send(String response) {
+            responses.add(response);
+            drain();
+        }
+
+        // Writes all waiting responses and flushes them at once. Only one thread writes at a time, the others
+        // just leave their responses in the queue. The check after "draining" is cleared catches responses
+        // added while the writing thread was flushing (or left in the queue by a failed write).
+        // Responses are counted as answered only after they were flushed, the connection can't be closed earlier.
+        private void drain() {
+            while (!responses.isEmpty() && draining.compareAndSet(false, true)) {
+                int written = 0;
+                try {
+                    String response;
+                    while ((response = responses.poll()) != null) {
+                        written++;
+                        if (!output_failed)
+                            out.write(response);
+                    }
+                    if (!output_failed)
+                        out.flush();
+                } catch (IOException e) {
+                    // responses are dropped from now on, running searches are stopped
+                    output_failed = true;
+                    cancellation_token.cancel();
+                } finally {
+                    draining.set(false);
+                    unanswered.release(written);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package EightPuzzle;
+
+import java.util.Objects;
+
+// Checks of the tests in test/ (the project doesn't use a test framework, see RunTests.java).
+// A failed check doesn't stop the test, it's printed and counted, RunTests fails when any check failed.
+public class Checks {
+    private static int checks = 0;
+    private static int failures = 0;
+
+    public static void check(boolean condition, String description) {
+        checks++;
+        if (!condition) {
+            failures++;
+            System.out.println("FAILED: " + description);
+        }
+    }
+
+    public static void checkEquals(Object expected, Object actual, String description) {
+        check(Objects.deepEquals(expected, actual), description + " (expected " + describe(expected)
+                + ", got " + describe(actual) + ")");
+    }
+
+    public static void checkThrows(Class<? extends Throwable> type, Runnable code, String description) {
+        try {
+            code.run();
+            check(false, description + " (nothing was thrown)");
+        } catch (Throwable e) {
+            check(type.isInstance(e), description + " (" + e + " was thrown)");
+        }
+    }
+
+    private static String describe(Object value) {
+        if (value instanceof int[][])
+            return java.util.Arrays.deepToString((int[][])value);
+        return String.valueOf(value);
+    }
+
+    public static int getChecks() {
+        return checks;
+    }
+
+    public static int getFailures() {
+        return failures;
+    }
+}
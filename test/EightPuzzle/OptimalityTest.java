@@ -0,0 +1,96 @@
+package EightPuzzle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static EightPuzzle.Checks.*;
+import static EightPuzzle.EightPuzzle.Algorithm;
+import static EightPuzzle.EightPuzzle.Heuristic;
+import static EightPuzzle.EightPuzzle.SolveResult;
+import static EightPuzzle.EightPuzzle.StorageMode;
+
+// Every algorithm with every admissible set of heuristics returns a valid shortest solution - as long as
+// the one of uniform cost search (A* without heuristics). Weighted A* may return a longer one, but not
+// longer than weight * shortest. Boards are uniformly random 2x3, 3x3 and 2x4 boards and random walks
+// on larger shapes (short enough for uniform cost search).
+public class OptimalityTest {
+    private static final double WEIGHT = 2;
+
+    private static final List<List<Heuristic>> ADMISSIBLE = List.of(
+            List.of(Heuristic.MANHATTAN_DISTANCE),
+            List.of(Heuristic.MISMATCH_COUNT),
+            List.of(Heuristic.MANHATTAN_DISTANCE, Heuristic.DIRECT_REVERSE_PENALTY),
+            List.of(Heuristic.LINEAR_CONFLICT),
+            List.of(Heuristic.MANHATTAN_DISTANCE, Heuristic.LINEAR_CONFLICT),
+            List.of(Heuristic.PATTERN_DATABASE),
+            List.of(Heuristic.WALKING_DISTANCE));
+
+    public static void run() {
+        Random random = new Random(4);
+        List<int[][]> boards = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            boards.add(InstanceGenerator.randomPermutation(2, 3, random));
+            boards.add(InstanceGenerator.randomPermutation(3, 3, random));
+            boards.add(InstanceGenerator.randomPermutation(2, 4, random));
+        }
+        boards.add(InstanceGenerator.randomWalk(1, 4, 5, random));
+        boards.add(InstanceGenerator.randomWalk(3, 4, 20, random));
+        boards.add(InstanceGenerator.randomWalk(4, 4, 18, random));
+        boards.add(InstanceGenerator.randomWalk(5, 5, 16, random));
+
+        for (int[][] board : boards) {
+            String line = InstanceGenerator.toLine(board);
+            SolveReport reference = solve(board, Algorithm.A_STAR, List.of(), StorageMode.HEAP);
+            if (!checkSolution(board, reference, line + " uniform cost search"))
+                continue;
+            int shortest = reference.getSolutionStates().size() - 1;
+
+            for (List<Heuristic> heuristics : ADMISSIBLE) {
+                for (Algorithm algorithm : Algorithm.values()) {
+                    String description = line + " " + algorithm + " " + heuristics;
+                    SolveReport report = solve(board, algorithm, heuristics, StorageMode.HEAP);
+                    if (!checkSolution(board, report, description))
+                        continue;
+                    int moves = report.getSolutionStates().size() - 1;
+                    if (algorithm == Algorithm.WEIGHTED_A_STAR)
+                        check(moves <= WEIGHT * shortest, description + ": " + moves + " moves, more than "
+                                + WEIGHT + " * " + shortest);
+                    else
+                        checkEquals(shortest, moves, description + ": moves");
+                }
+            }
+
+            // nodes and visited states kept off the heap
+            SolveReport off_heap = solve(board, Algorithm.A_STAR, List.of(Heuristic.MANHATTAN_DISTANCE), StorageMode.OFF_HEAP);
+            if (checkSolution(board, off_heap, line + " A_STAR off-heap"))
+                checkEquals(shortest, off_heap.getSolutionStates().size() - 1, line + " A_STAR off-heap: moves");
+        }
+    }
+
+    private static SolveReport solve(int[][] board, Algorithm algorithm, List<Heuristic> heuristics, StorageMode storage) {
+        SolverConfig config = SolverConfig.defaults()
+                .withAlgorithm(algorithm)
+                .withHeuristics(heuristics)
+                .withWeight(WEIGHT)
+                .withStorage(storage)
+                .withThreads(2)
+                .withPrintStatistics(false);
+        return EightPuzzle.solve(config, board, new CancellationToken());
+    }
+
+    // solution leads from the board to the goal state by single moves
+    private static boolean checkSolution(int[][] board, SolveReport report, String description) {
+        if (report.getResult() != SolveResult.SOLVED) {
+            check(false, description + ": " + report.getResult());
+            return false;
+        }
+        List<State> states = report.getSolutionStates();
+        State goal = EightPuzzle.goalStateFor(board);
+        boolean valid = new State(board).equals(states.get(0)) && goal.equals(states.get(states.size() - 1));
+        for (int i = 1; i < states.size() && valid; i++)
+            valid = states.get(i - 1).directionTo(states.get(i)) != State.Direction.NONE;
+        check(valid, description + ": solution is a path of single moves from the board to the goal");
+        return valid;
+    }
+}
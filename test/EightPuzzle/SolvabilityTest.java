@@ -0,0 +1,116 @@
+package EightPuzzle;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+
+import static EightPuzzle.Checks.*;
+
+// Solvability pre-check (EightPuzzle.isSolvable): for small shapes every permutation of the fields is
+// compared with the set of boards reachable from the goal (breadth-first search on plain arrays),
+// and an unsolvable board is rejected by solve without expanding any node.
+public class SolvabilityTest {
+    private static final int[][] SHAPES = { {1, 2}, {1, 3}, {1, 5}, {4, 1}, {2, 2}, {2, 3}, {3, 2}, {2, 4}, {3, 3} };
+
+    public static void run() {
+        for (int[] shape : SHAPES)
+            checkShape(shape[0], shape[1]);
+
+        check(!EightPuzzle.isSolvable(new int[][]{ {1, 2, 3}, {4, 5, 6}, {7, 7, 0} }), "board with a repeated value");
+        check(!EightPuzzle.isSolvable(new int[][]{ {1, 2, 3}, {4, 5, 6}, {7, 9, 0} }), "board with a value out of range");
+        check(!EightPuzzle.isSolvable(new int[6][6]), "6x6 board isn't supported");
+
+        int[][] unsolvable = { {1, 2, 3}, {4, 5, 6}, {8, 7, 0} };
+        SolveReport report = EightPuzzle.solve(SolverConfig.defaults().withPrintStatistics(false), unsolvable,
+                new CancellationToken());
+        checkEquals(EightPuzzle.SolveResult.UNSOLVABLE, report.getResult(), "unsolvable board is rejected by solve");
+        checkEquals(0L, report.getExpandedNodesCount(), "unsolvable board isn't searched");
+
+        // a cancelled solve stops at its first limit check
+        CancellationToken cancelled = new CancellationToken();
+        cancelled.cancel();
+        report = EightPuzzle.solve(SolverConfig.defaults().withPrintStatistics(false)
+                .withHeuristics(List.of(EightPuzzle.Heuristic.MANHATTAN_DISTANCE)),
+                new int[][]{ {8, 7, 6}, {5, 4, 3}, {2, 1, 0} }, cancelled);
+        checkEquals(EightPuzzle.SolveResult.CANCELLED, report.getResult(), "cancelled solve");
+    }
+
+    private static void checkShape(int rows, int cols) {
+        int size = rows * cols;
+        Set<Long> reachable = reachableFromGoal(rows, cols);
+
+        // every permutation of the fields (Heap's algorithm)
+        int[] fields = new int[size];
+        for (int i = 0; i < size; i++)
+            fields[i] = i;
+        int[] counters = new int[size];
+        int permutations = 0, wrong = 0;
+        int i = 0;
+        while (true) {
+            permutations++;
+            if (EightPuzzle.isSolvable(toBoard(fields, rows, cols)) != reachable.contains(key(fields)))
+                wrong++;
+
+            while (i < size && counters[i] >= i) {
+                counters[i] = 0;
+                i++;
+            }
+            if (i >= size)
+                break;
+            int j = i % 2 == 0 ? 0 : counters[i];
+            int value = fields[i];
+            fields[i] = fields[j];
+            fields[j] = value;
+            counters[i]++;
+            i = 1;
+        }
+        checkEquals(0, wrong, rows + "x" + cols + ": isSolvable differs from reachability on " + wrong + " of "
+                + permutations + " boards");
+    }
+
+    private static Set<Long> reachableFromGoal(int rows, int cols) {
+        int size = rows * cols;
+        int[] goal = new int[size];
+        for (int i = 0; i < size - 1; i++)
+            goal[i] = i + 1;
+
+        Set<Long> reachable = new HashSet<>();
+        Queue<int[]> queue = new ArrayDeque<>();
+        reachable.add(key(goal));
+        queue.add(goal);
+        while (!queue.isEmpty()) {
+            int[] fields = queue.poll();
+            int blank = 0;
+            while (fields[blank] != 0)
+                blank++;
+            int[] neighbors = { blank % cols > 0 ? blank - 1 : -1, blank % cols < cols - 1 ? blank + 1 : -1,
+                    blank >= cols ? blank - cols : -1, blank + cols < size ? blank + cols : -1 };
+            for (int neighbor : neighbors) {
+                if (neighbor < 0)
+                    continue;
+                int[] next = fields.clone();
+                next[blank] = next[neighbor];
+                next[neighbor] = 0;
+                if (reachable.add(key(next)))
+                    queue.add(next);
+            }
+        }
+        return reachable;
+    }
+
+    private static long key(int[] fields) {
+        long key = 0;
+        for (int value : fields)
+            key = key * 16 + value;
+        return key;
+    }
+
+    private static int[][] toBoard(int[] fields, int rows, int cols) {
+        int[][] board = new int[rows][cols];
+        for (int i = 0; i < fields.length; i++)
+            board[i / cols][i % cols] = fields[i];
+        return board;
+    }
+}
@@ -0,0 +1,65 @@
+package EightPuzzle;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static EightPuzzle.Checks.*;
+
+// Open addressing StateSet (see StateSet.java), on the heap and off-heap: the same answers as HashSet<State>,
+// including the state with low word 0 (1x1 board), which can't be stored in the table (0 marks free slots).
+public class StateSetTest {
+    // small boards, so the same states come up many times (5x5 boards use both packed words)
+    private static final int[][] SHAPES = { {2, 3}, {3, 4}, {5, 5} };
+
+    public static void run() {
+        checkZeroKey(new HeapStateSet(), "heap");
+        checkZeroKey(new OffHeapStateSet(OffHeapMemory::direct), "off-heap");
+        checkAgainstHashSet(new HeapStateSet(), "heap");
+        checkAgainstHashSet(new OffHeapStateSet(OffHeapMemory::direct), "off-heap");
+    }
+
+    private static void checkZeroKey(StateSet set, String storage) {
+        State zero = new State(new int[][]{ {0} });
+        checkEquals(0L, zero.packedLow(), "1x1 board has low word 0");
+
+        check(!set.contains(zero), storage + ": empty set doesn't contain the zero key");
+        check(set.add(zero), storage + ": zero key is added");
+        check(!set.add(zero), storage + ": zero key isn't added twice");
+        check(set.contains(zero), storage + ": zero key is found");
+        checkEquals(1, set.size(), storage + ": size with the zero key");
+
+        // the zero key survives growing of the table
+        Random random = new Random(2);
+        for (int i = 0; i < 2000; i++)
+            set.add(new State(StateTest.shuffled(3, 3, random)));
+        check(set.contains(zero), storage + ": zero key is found after the table grew");
+
+        set.clear();
+        check(!set.contains(zero), storage + ": cleared set doesn't contain the zero key");
+        checkEquals(0, set.size(), storage + ": size of cleared set");
+        check(set.add(zero), storage + ": zero key is added again after clear");
+        set.close();
+    }
+
+    private static void checkAgainstHashSet(StateSet set, String storage) {
+        Set<State> expected = new HashSet<>();
+        Random random = new Random(3);
+        boolean same_answers = true;
+        for (int i = 0; i < 20000; i++) {
+            int[] shape = SHAPES[i % SHAPES.length];
+            State state = new State(StateTest.shuffled(shape[0], shape[1], random));
+            if (random.nextBoolean())
+                same_answers &= expected.add(state) == set.add(state);
+            else
+                same_answers &= expected.contains(state) == set.contains(state);
+        }
+        check(same_answers, storage + ": add and contains answer as HashSet<State>");
+        checkEquals(expected.size(), set.size(), storage + ": size");
+        boolean all_found = true;
+        for (State state : expected)
+            all_found &= set.contains(state);
+        check(all_found, storage + ": every added state is found");
+        set.close();
+    }
+}
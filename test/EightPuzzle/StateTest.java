@@ -0,0 +1,116 @@
+package EightPuzzle;
+
+import java.util.Random;
+
+import static EightPuzzle.Checks.*;
+import static EightPuzzle.State.Direction;
+
+// Bit-packed State (see State.java): values of every supported shape survive packing, copying,
+// loading from packed words and moves.
+public class StateTest {
+    public static void run() {
+        Random random = new Random(1);
+        for (int rows = 1; rows <= State.MAX_SIZE; rows++)
+            for (int cols = 1; cols <= State.MAX_SIZE; cols++)
+                for (int i = 0; i < 20; i++)
+                    checkPacking(shuffled(rows, cols, random));
+
+        // 5x5 boards use 5 bits per field, the field at index 12 is split between both packed words
+        int[][] straddling = new int[5][5];
+        for (int index = 0; index < 25; index++)
+            straddling[index / 5][index % 5] = index == 12 ? 24 : index == 24 ? 12 : index;
+        checkPacking(straddling);
+
+        for (int rows = 1; rows <= State.MAX_SIZE; rows++)
+            for (int cols = 1; cols <= State.MAX_SIZE; cols++)
+                checkMoves(shuffled(rows, cols, random), random);
+
+        checkThrows(IllegalArgumentException.class, () -> new State(new int[6][6]), "6x6 board is rejected");
+        checkThrows(IllegalArgumentException.class, () -> new State(new int[][]{ {16, 1, 2, 3}, {4, 5, 6, 7},
+                {8, 9, 10, 11}, {12, 13, 14, 15} }), "value that doesn't fit 4 bits is rejected");
+    }
+
+    private static void checkPacking(int[][] values) {
+        String board = java.util.Arrays.deepToString(values);
+        State state = new State(values);
+        checkEquals(values, state.getValues(), "values of " + board);
+        checkEquals(indexOf(values, 0), state.getBlankIndex(), "blank index of " + board);
+
+        State copy = new State(state);
+        check(copy.equals(state) && copy.hashCode() == state.hashCode(), "copy of " + board + " is equal");
+
+        // a state of the same shape set from packed words (as NodeArena does)
+        State loaded = new State(state);
+        if (loaded.possibleMoves().length > 0)
+            loaded.move(loaded.possibleMoves()[0]);
+        loaded.load(state.packedLow(), state.packedHigh(), state.getBlankIndex(), Direction.NONE);
+        checkEquals(values, loaded.getValues(), "values loaded from packed words of " + board);
+        check(loaded.equals(state), "state loaded from packed words of " + board + " is equal");
+
+        // swapping two values gives a different state
+        if (values.length * values[0].length > 2) {
+            int[][] swapped = copyOf(values);
+            int cols = values[0].length;
+            int first = indexOf(values, 0) == 0 ? 1 : 0;
+            int second = indexOf(values, 0) == first + 1 ? first + 2 : first + 1;
+            swapped[first / cols][first % cols] = values[second / cols][second % cols];
+            swapped[second / cols][second % cols] = values[first / cols][first % cols];
+            check(!new State(swapped).equals(state), "states with two values swapped differ: " + board);
+        }
+    }
+
+    private static void checkMoves(int[][] values, Random random) {
+        // the same moves are made on the packed state and on a plain array
+        int rows = values.length, cols = values[0].length;
+        State state = new State(values);
+        int[][] expected = copyOf(values);
+        for (int move = 0; move < 100 && state.possibleMoves().length > 0; move++) {
+            Direction[] moves = state.possibleMoves();
+            Direction dir = moves[random.nextInt(moves.length)];
+            int blank = indexOf(expected, 0);
+            // the value that moves into the empty space (the empty space moves the opposite way)
+            int source = blank + (dir == Direction.RIGHT ? -1 : dir == Direction.LEFT ? 1
+                    : dir == Direction.UP ? cols : -cols);
+            int moved = expected[source / cols][source % cols];
+            expected[blank / cols][blank % cols] = moved;
+            expected[source / cols][source % cols] = 0;
+
+            state.move(dir);
+            checkEquals(moved, state.getValueThatMoved(), "value moved " + dir + " on " + rows + "x" + cols);
+            checkEquals(expected, state.getValues(), "values after moving " + dir + " on " + rows + "x" + cols);
+            checkEquals(source, state.getBlankIndex(), "blank index after moving " + dir);
+        }
+    }
+
+    static int[][] shuffled(int rows, int cols, Random random) {
+        int size = rows * cols;
+        int[] fields = new int[size];
+        for (int i = 0; i < size; i++)
+            fields[i] = i;
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int value = fields[i];
+            fields[i] = fields[j];
+            fields[j] = value;
+        }
+        int[][] values = new int[rows][cols];
+        for (int i = 0; i < size; i++)
+            values[i / cols][i % cols] = fields[i];
+        return values;
+    }
+
+    static int[][] copyOf(int[][] values) {
+        int[][] copy = new int[values.length][];
+        for (int row = 0; row < values.length; row++)
+            copy[row] = values[row].clone();
+        return copy;
+    }
+
+    private static int indexOf(int[][] values, int value) {
+        int cols = values[0].length;
+        for (int index = 0; index < values.length * cols; index++)
+            if (values[index / cols][index % cols] == value)
+                return index;
+        return -1;
+    }
+}
@@ -0,0 +1,72 @@
+import java.util.ArrayList;
+import java.util.List;
+
+import static EightPuzzle.Checks.*;
+
+// Streaming input parser (see PuzzleReader.java): formats it accepts, lines it rejects (without stopping),
+// and lines and files longer than its buffer.
+public class PuzzleReaderTest {
+    public static void run() {
+        List<PuzzleReader.Puzzle> puzzles = readAll(
+                "(2,3)[5 4 3 2 1 0]\n" +
+                "\n" +
+                "  ( 3 , 3 ) [ 8 7 6 5 4 3 2 1 0 ]  \r\n" +
+                "(2,2)[1,2,3,0]\n" +
+                "(3,4)[1 2 3 4 5 6 8 0 7 10 11 9]");
+        checkEquals(4, puzzles.size(), "valid lines (blank line skipped)");
+        checkEquals(new int[][]{ {5, 4, 3}, {2, 1, 0} }, puzzles.get(0).values, "2x3 values");
+        checkEquals(new int[][]{ {8, 7, 6}, {5, 4, 3}, {2, 1, 0} }, puzzles.get(1).values, "spaces between all parts, CRLF");
+        checkEquals(new int[][]{ {1, 2}, {3, 0} }, puzzles.get(2).values, "values separated by commas");
+        checkEquals(new int[][]{ {1, 2, 3, 4}, {5, 6, 8, 0}, {7, 10, 11, 9} }, puzzles.get(3).values,
+                "multi-digit values, last line without a line break");
+        checkEquals(3, puzzles.get(1).line_number, "line numbers count blank lines");
+
+        checkRejected("(3,3)[1 2 3 4 5 6 7 7 0]", "appears more than once");
+        checkRejected("(3,3)[1 2 3 4 5 6 7 9 0]", "out of range");
+        checkRejected("(3,3)[1 2 3 4 5 6 7 8]", "expected a number");
+        checkRejected("(3,3)[1 2 3 4 5 6 7 8 0", "expected ']'");
+        checkRejected("(3,3)[1 2 3 4 5 6 7 8 0] x", "after ']'");
+        checkRejected("(0,3)[]", "dimensions");
+        checkRejected("3,3)[1 2 3 4 5 6 7 8 0]", "expected '('");
+        checkRejected("(2,2)[1 2 3 99999999999]", "too large");
+
+        // a line that isn't valid doesn't stop reading
+        puzzles = readAll("(2,2)[1 2 2 0]\n(2,2)[1 2 3 0]\n");
+        check(puzzles.size() == 2 && !puzzles.get(0).isValid() && puzzles.get(1).isValid(),
+                "reading continues after a line that isn't valid");
+        checkEquals(2, puzzles.get(1).line_number, "line number after a line that isn't valid");
+
+        checkEquals(new int[][]{ {1, 0} }, PuzzleReader.lineToInputState("(1,2)[1 0]"), "lineToInputState");
+        checkThrows(IllegalArgumentException.class, () -> PuzzleReader.lineToInputState("(1,2)[1 1]"),
+                "lineToInputState rejects a line that isn't valid");
+
+        // a single line longer than the buffer (200x200 board, over 190 kB) and many lines
+        StringBuilder text = new StringBuilder("(200,200)[");
+        for (int value = 1; value < 200 * 200; value++)
+            text.append(value).append(' ');
+        text.append("0]\n");
+        for (int i = 0; i < 20000; i++)
+            text.append("(2,3)[5 4 3 2 1 0]\n");
+        puzzles = readAll(text.toString());
+        checkEquals(20001, puzzles.size(), "lines of input longer than the buffer");
+        boolean all_valid = true;
+        for (PuzzleReader.Puzzle puzzle : puzzles)
+            all_valid &= puzzle.isValid();
+        check(all_valid, "all lines of a long input are valid");
+        checkEquals(39999, puzzles.get(0).values[199][198], "value near the end of a line longer than the buffer");
+    }
+
+    private static void checkRejected(String line, String expected_error) {
+        List<PuzzleReader.Puzzle> puzzles = readAll(line);
+        check(puzzles.size() == 1 && !puzzles.get(0).isValid() && puzzles.get(0).error.contains(expected_error),
+                "\"" + line + "\" is rejected with \"" + expected_error + "\" (" + puzzles + ")");
+    }
+
+    private static List<PuzzleReader.Puzzle> readAll(String text) {
+        List<PuzzleReader.Puzzle> puzzles = new ArrayList<>();
+        PuzzleReader reader = PuzzleReader.of(text);
+        while (reader.hasNext())
+            puzzles.add(reader.next());
+        return puzzles;
+    }
+}
@@ -0,0 +1,24 @@
+import EightPuzzle.Checks;
+import EightPuzzle.OptimalityTest;
+import EightPuzzle.SolvabilityTest;
+import EightPuzzle.StateSetTest;
+import EightPuzzle.StateTest;
+
+// Runs the tests of test/ - plain checks of behaviour that searches depend on, without a test framework.
+// From the project directory:
+//      javac -d out/test $(find src test -name "*.java")
+//      java -cp out/test RunTests
+// Exits with 1 when any check failed (failed checks are printed).
+public class RunTests {
+    public static void main(String[] args) {
+        StateTest.run();
+        StateSetTest.run();
+        SolvabilityTest.run();
+        PuzzleReaderTest.run();
+        OptimalityTest.run();
+
+        System.out.printf("%d checks, %d failed.\n", Checks.getChecks(), Checks.getFailures());
+        if (Checks.getFailures() > 0)
+            System.exit(1);
+    }
+}